@@ -0,0 +1,139 @@
+package com.musify.benchmarks;
+
+import com.musify.api.dto.Completion;
+import com.musify.api.search.AutocompleteIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 completions of 1 to 4 letter prefixes over about a million names (50,000
+ * artists with 20 songs each, plays skewed towards a few), from {@link AutocompleteIndex}
+ * and from a {@code TreeMap} of lowercase names walked over the prefix's range.
+ * Sample mode, so the output has p0.99 per benchmark. Setup prints the bytes per
+ * name of both against the names' raw UTF-8.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class AutocompleteBenchmark {
+
+    private static final int ARTISTS = 50_000;
+    private static final int SONGS_PER_ARTIST = 20;
+    private static final int PREFIXES = 4096;
+    private static final String[] WORDS = {"love", "night", "fire", "blue", "heart", "dance", "rain", "gold",
+            "summer", "dream", "river", "shadow", "light", "wild", "electric", "midnight", "sweet", "broken",
+            "city", "ghost", "ocean", "paper", "silver", "thunder", "velvet", "neon", "echo", "young", "Über",
+            "señor", "Nova", "Zero"};
+
+    private final String[] prefixes = new String[PREFIXES];
+    private AutocompleteIndex index;
+    private TreeMap<String, Long> sorted;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        List<String[]> names = new ArrayList<>();
+        long rawBytes = 0;
+        for (int artist = 0; artist < ARTISTS; artist++) {
+            String artistName = title(random, 1 + random.nextInt(2)) + " " + artist;
+            rawBytes += artistName.getBytes(StandardCharsets.UTF_8).length;
+            for (int song = 0; song < SONGS_PER_ARTIST; song++) {
+                String songName = title(random, 1 + random.nextInt(4)) + " " + song;
+                names.add(new String[]{artistName, songName});
+                rawBytes += songName.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        // about 1 in 1000 tracks gets most of the plays
+        long[] plays = new long[names.size()];
+        for (int i = 0; i < plays.length; i++) {
+            plays[i] = (long) (1_000_000 / Math.pow(1 + random.nextInt(1_000_000), 0.8));
+        }
+
+        long before = usedHeap();
+        index = new AutocompleteIndex();
+        AutocompleteIndex.Loader loader = new AutocompleteIndex.Loader();
+        for (int i = 0; i < plays.length; i++) {
+            loader.add(names.get(i)[0], names.get(i)[1], plays[i]);
+        }
+        index.replaceAll(loader);
+        loader = null;
+        long indexHeap = usedHeap() - before;
+
+        before = usedHeap();
+        sorted = new TreeMap<>();
+        for (int i = 0; i < plays.length; i++) {
+            String[] name = names.get(i);
+            sorted.put(name[1].toLowerCase() + '\0' + name[0].toLowerCase(), plays[i]);
+            sorted.merge(name[0].toLowerCase(), plays[i], Long::sum);
+        }
+        long treeMapHeap = usedHeap() - before;
+
+        AutocompleteIndex.Stats stats = index.stats();
+        for (int i = 0; i < PREFIXES; i++) {
+            String[] name = names.get(random.nextInt(names.size()));
+            String source = name[random.nextInt(2)];
+            prefixes[i] = source.substring(0, Math.min(source.length(), 1 + random.nextInt(4)));
+        }
+        System.out.printf("%n%d names: dictionaries %.1f B/name (%.1f B/name heap), TreeMap %.1f B/name,"
+                        + " names' UTF-8 %.1f B/name%n", stats.names(),
+                (double) stats.bytes() / stats.names(), (double) indexHeap / stats.names(),
+                (double) treeMapHeap / sorted.size(), (double) rawBytes / stats.names());
+    }
+
+    @Benchmark
+    public List<Completion> dictionary() {
+        return index.complete(prefix(), 10);
+    }
+
+    @Benchmark
+    public List<String> treeMap() {
+        String prefix = prefix().toLowerCase();
+        PriorityQueue<Map.Entry<String, Long>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<String, Long> entry : sorted.tailMap(prefix).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            top.add(entry);
+            if (top.size() > 10) {
+                top.poll();
+            }
+        }
+        List<String> names = new ArrayList<>();
+        top.forEach(entry -> names.add(entry.getKey()));
+        return names;
+    }
+
+    private String prefix() {
+        return prefixes[ThreadLocalRandom.current().nextInt(PREFIXES)];
+    }
+
+    private static String title(Random random, int words) {
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            title.append(i == 0 ? "" : " ").append(Character.toUpperCase(word.charAt(0))).append(word, 1,
+                    word.length());
+        }
+        return title.toString();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
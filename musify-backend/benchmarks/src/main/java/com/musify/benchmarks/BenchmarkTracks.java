@@ -0,0 +1,29 @@
+package com.musify.benchmarks;
+
+import com.musify.api.model.MusicTrack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkTracks {
+
+    private BenchmarkTracks() {
+    }
+
+    static List<MusicTrack> generate(int count) {
+        List<MusicTrack> tracks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String artist = "Artist " + (i % 97);
+            String song = "Song number " + i;
+            tracks.add(MusicTrack.builder()
+                    .artistName(artist)
+                    .songName(song)
+                    .artistNameLower(artist.toLowerCase())
+                    .songNameLower(song.toLowerCase())
+                    .s3Key("tracks/" + artist + "/" + song + ".mp3")
+                    .duration(120 + i % 240)
+                    .build());
+        }
+        return tracks;
+    }
+}
@@ -0,0 +1,80 @@
+package com.musify.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.musify.api.controller.MusicTrackController;
+import com.musify.api.repository.MusicTrackRepository;
+import com.musify.api.service.AudioMetadataService;
+import com.musify.api.service.CatalogEtagService;
+import com.musify.api.service.HlsService;
+import com.musify.api.service.MusicTrackExportService;
+import com.musify.api.service.MusicTrackIngestService;
+import com.musify.api.service.MusicTrackService;
+import com.musify.api.service.S3Service;
+import com.musify.api.service.TrackJsonWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Full GET /api/musictrack dispatch through Spring MVC (MockMvc) against an
+ * in-memory repository: routing, argument binding, controller, service and JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetAllSongsDispatchBenchmark {
+
+    @Param({"20", "100"})
+    private int limit;
+
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        MusicTrackRepository repository = new InMemoryMusicTrackRepository(BenchmarkTracks.generate(10_000));
+        MusicTrackService service = new MusicTrackService(repository,
+                new S3Service(null, null, new SimpleMeterRegistry(), null), new AudioMetadataService(null, repository),
+                new HlsService(null, null, null), new SimpleMeterRegistry());
+        // every iteration asks for the same page, so a coalesce window would measure the cache instead
+        ReflectionTestUtils.setField(service, "coalesceWindow", Duration.ZERO);
+        service.init();
+        CatalogEtagService catalogEtagService = new CatalogEtagService(repository);
+        ReflectionTestUtils.setField(catalogEtagService, "etagWindow", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(catalogEtagService, "cacheMaxAge", Duration.ZERO);
+        TrackJsonWriter trackJsonWriter = new TrackJsonWriter(objectMapper);
+        MusicTrackController controller = new MusicTrackController(service,
+                new MusicTrackIngestService(repository, objectMapper, null),
+                new MusicTrackExportService(repository, trackJsonWriter), catalogEtagService, trackJsonWriter, null, null);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setMessageConverters(new ByteArrayHttpMessageConverter(),
+                        new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+    }
+
+    @Benchmark
+    public byte[] getAllSongs() throws Exception {
+        // the controller returns a CompletableFuture, so the body is written by the async dispatch
+        MvcResult started = mockMvc.perform(get("/api/musictrack").param("limit", String.valueOf(limit)))
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+    }
+}
@@ -0,0 +1,106 @@
+package com.musify.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load generator for a running backend: {@code concurrency}
+ * virtual-thread clients each send the next request as soon as the previous one
+ * returns. Prints throughput, latency percentiles and error counts. A client
+ * turned away with a 503 waits out its {@code Retry-After} before the next
+ * request, as a well-behaved client would; those are counted as shed, not as errors.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.musify.benchmarks.HttpLoadTest \
+ *     http://localhost:8080/api/musictrack?limit=20 200 30
+ * </pre>
+ */
+public class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/musictrack?limit=20");
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+        Duration warmup = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 5);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+        LongAdder errors = new LongAdder();
+        LongAdder shed = new LongAdder();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long stopAt = measureFrom + duration.toNanos();
+
+        List<Future<long[]>> results = new ArrayList<>();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                results.add(workers.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    long start;
+                    while ((start = System.nanoTime()) < stopAt) {
+                        int status;
+                        long retryAfterSeconds = 0;
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            status = response.statusCode();
+                            retryAfterSeconds = response.headers().firstValueAsLong("Retry-After").orElse(0);
+                        } catch (Exception e) {
+                            status = 0;
+                        }
+                        long end = System.nanoTime();
+                        if (status == 503) {
+                            if (end >= measureFrom && end <= stopAt) {
+                                shed.increment();
+                            }
+                            Thread.sleep(retryAfterSeconds * 1000);
+                            continue;
+                        }
+                        if (start < measureFrom || end > stopAt) {
+                            continue;
+                        }
+                        if (status == 0 || status >= 400) {
+                            errors.increment();
+                            continue;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = end - start;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+        }
+
+        long[] all = results.stream()
+                .flatMapToLong(result -> Arrays.stream(result.resultNow()))
+                .sorted()
+                .toArray();
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("url=%s concurrency=%d duration=%ss%n", uri, concurrency, duration.toSeconds());
+        System.out.printf("requests=%d errors=%d shed=%d throughput=%.1f req/s%n", all.length, errors.sum(),
+                shed.sum(), all.length / seconds);
+        if (all.length > 0) {
+            System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f max=%.2f%n", percentile(all, 0.50),
+                    percentile(all, 0.90), percentile(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,55 @@
+package com.musify.benchmarks;
+
+import com.musify.api.dto.PaginatedResponse;
+import com.musify.api.model.MusicTrack;
+import com.musify.api.repository.MusicTrackRepository;
+import com.musify.api.repository.PageTokens;
+import com.musify.api.search.AutocompleteIndex;
+import com.musify.api.search.TrackSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stand-in for the DynamoDB-backed repository: serves findAll pages from a list,
+ * using the real token format, so the web layer can be measured on its own.
+ */
+class InMemoryMusicTrackRepository extends MusicTrackRepository {
+
+    private final List<MusicTrack> tracks;
+
+    InMemoryMusicTrackRepository(List<MusicTrack> tracks) {
+        super(null, new TrackSearchIndex(), new AutocompleteIndex(), null, new SimpleMeterRegistry(), null, null);
+        this.tracks = tracks;
+    }
+
+    @Override
+    public PaginatedResponse findAll(int limit, String nextToken, String searchQuery,
+                                     List<String> attributesToProject) {
+        int from = 0;
+        Map<String, AttributeValue> startKey = PageTokens.decodeScanKey(nextToken);
+        if (startKey != null) {
+            for (int i = 0; i < tracks.size(); i++) {
+                MusicTrack track = tracks.get(i);
+                if (track.getArtistName().equals(startKey.get("artistName").s())
+                        && track.getSongName().equals(startKey.get("songName").s())) {
+                    from = i + 1;
+                    break;
+                }
+            }
+        }
+        int to = Math.min(tracks.size(), from + limit);
+        List<MusicTrack> page = new ArrayList<>(tracks.subList(from, to));
+        String token = null;
+        if (to < tracks.size()) {
+            MusicTrack last = tracks.get(to - 1);
+            token = PageTokens.encodeScanKey(Map.of(
+                    "artistName", AttributeValue.builder().s(last.getArtistName()).build(),
+                    "songName", AttributeValue.builder().s(last.getSongName()).build()));
+        }
+        return new PaginatedResponse(page, token);
+    }
+}
@@ -0,0 +1,56 @@
+package com.musify.benchmarks;
+
+import com.musify.api.repository.PageTokens;
+import com.musify.api.search.TrackSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * nextToken encode/decode done on every findAll page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageTokenBenchmark {
+
+    private Map<String, AttributeValue> lastKey;
+    private String scanToken;
+    private TrackSearchIndex.Hit hit;
+    private String searchToken;
+
+    @Setup
+    public void setUp() {
+        lastKey = Map.of(
+                "artistName", AttributeValue.builder().s("Lionel Richie").build(),
+                "songName", AttributeValue.builder().s("Hello (Remastered 2003)").build());
+        scanToken = PageTokens.encodeScanKey(lastKey);
+        hit = new TrackSearchIndex.Hit(TrackSearchIndex.SCORE_PREFIX, "Lionel Richie", "Hello (Remastered 2003)");
+        searchToken = PageTokens.encodeSearchCursor(hit);
+    }
+
+    @Benchmark
+    public String encodeScanKey() {
+        return PageTokens.encodeScanKey(lastKey);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> decodeScanKey() {
+        return PageTokens.decodeScanKey(scanToken);
+    }
+
+    @Benchmark
+    public String encodeSearchCursor() {
+        return PageTokens.encodeSearchCursor(hit);
+    }
+
+    @Benchmark
+    public TrackSearchIndex.Hit decodeSearchCursor() {
+        return PageTokens.decodeSearchCursor(searchToken);
+    }
+}
@@ -0,0 +1,59 @@
+package com.musify.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.musify.api.dto.PaginatedResponse;
+import com.musify.api.model.TrackField;
+import com.musify.api.service.TrackJsonWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of a findAll page: the bean serializer with the same ObjectMapper
+ * defaults Spring uses, and the listing endpoints' TrackJsonWriter with the default
+ * fields, two selected fields, and gzip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginatedResponseSerializationBenchmark {
+
+    @Param({"10", "20", "100", "500"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private TrackJsonWriter trackJsonWriter;
+    private PaginatedResponse response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        trackJsonWriter = new TrackJsonWriter(objectMapper);
+        response = new PaginatedResponse(BenchmarkTracks.generate(pageSize), "QXJ0aXN0IDF8U29uZyBudW1iZXIgMQ==");
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] trackJsonWriter() throws Exception {
+        return trackJsonWriter.writePage(response, TrackField.LISTED, false);
+    }
+
+    @Benchmark
+    public byte[] trackJsonWriterSelectedFields() throws Exception {
+        return trackJsonWriter.writePage(response, List.of(TrackField.ARTIST_NAME, TrackField.SONG_NAME), false);
+    }
+
+    @Benchmark
+    public byte[] trackJsonWriterGzip() throws Exception {
+        return trackJsonWriter.writePage(response, TrackField.LISTED, true);
+    }
+}
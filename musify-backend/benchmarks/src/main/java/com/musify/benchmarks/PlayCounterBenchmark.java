@@ -0,0 +1,58 @@
+package com.musify.benchmarks;
+
+import com.musify.api.service.PlayCounter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording plays from several threads at once, into {@link PlayCounter} and into
+ * a {@code ConcurrentHashMap.merge} map of boxed counts, on one hot track and
+ * spread over many. Run with {@code -prof gc} to see the boxing of the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class PlayCounterBenchmark {
+
+    private static final int KEYS = 4096;
+
+    private final String[] keys = new String[KEYS];
+    private PlayCounter counter;
+    private ConcurrentHashMap<String, Long> merged;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "tracks/Artist " + (i % 64) + "/Song " + i + ".mp3";
+        }
+        counter = new PlayCounter(KEYS * 2);
+        merged = new ConcurrentHashMap<>();
+    }
+
+    @Benchmark
+    public boolean hotKeyCounter() {
+        return counter.record(keys[0]);
+    }
+
+    @Benchmark
+    public Long hotKeyMerge() {
+        return merged.merge(keys[0], 1L, Long::sum);
+    }
+
+    @Benchmark
+    public boolean spreadKeysCounter() {
+        return counter.record(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    public Long spreadKeysMerge() {
+        return merged.merge(keys[ThreadLocalRandom.current().nextInt(KEYS)], 1L, Long::sum);
+    }
+}
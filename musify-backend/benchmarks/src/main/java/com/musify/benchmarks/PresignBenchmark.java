@@ -0,0 +1,73 @@
+package com.musify.benchmarks;
+
+import com.musify.api.service.PresignedUrlCache;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SigV4 presigning of stream URLs, with and without the stream URL cache.
+ * Static credentials keep the credential chain and the network out of the picture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PresignBenchmark {
+
+    private static final int KEYS = 256;
+
+    private S3Presigner presigner;
+    private PresignedUrlCache cache;
+    private String[] keys;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        presigner = S3Presigner.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create("AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY")))
+                .build();
+        cache = new PresignedUrlCache(1000, Duration.ofMinutes(15), Clock.systemUTC());
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "tracks/Artist " + (i % 32) + "/Song " + i + ".mp3";
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        presigner.close();
+    }
+
+    @Benchmark
+    public String presignUncached() {
+        return sign(nextKey());
+    }
+
+    @Benchmark
+    public String presignCached() {
+        return cache.get(nextKey(), this::sign);
+    }
+
+    private String nextKey() {
+        next = (next + 1) % KEYS;
+        return keys[next];
+    }
+
+    private String sign(String key) {
+        return presigner.presignGetObject(r -> r.signatureDuration(Duration.ofMinutes(60))
+                        .getObjectRequest(g -> g.bucket("musify-benchmark").key(key)))
+                .url()
+                .toString();
+    }
+}
@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+# Compares the blocking and async (musify.aws.async=true) data paths under the same load.
+# Starts the backend once per mode against DynamoDB Local (see bulk-ingest-load.sh for the table),
+# drives it with benchmarks' HttpLoadTest and reports throughput, latency and the JVM's thread count.
+#
+#   mvn -B package -DskipTests && mvn -B -f benchmarks/pom.xml package
+#   scripts/async-load-test.sh 200 30
+set -euo pipefail
+
+CONCURRENCY=${1:-200}
+SECONDS_PER_RUN=${2:-30}
+PORT=${PORT:-8080}
+DYNAMODB_ENDPOINT=${DYNAMODB_ENDPOINT:-http://localhost:8000}
+URL=${URL:-http://localhost:$PORT/api/musictrack?limit=20}
+JAR=target/musify-backend-0.0.1-SNAPSHOT.jar
+
+for ASYNC in false true; do
+  java -cp "$JAR" com.musify.api.MusifyBackendApplication \
+    --server.port="$PORT" --aws.dynamodb.endpoint="$DYNAMODB_ENDPOINT" --musify.aws.async="$ASYNC" \
+    > "target/async-load-test-$ASYNC.log" 2>&1 &
+  PID=$!
+  trap 'kill $PID 2>/dev/null || true' EXIT
+  until curl -sf -o /dev/null "http://localhost:$PORT/test"; do sleep 1; done
+
+  echo "== musify.aws.async=$ASYNC"
+  java -cp benchmarks/target/benchmarks.jar com.musify.benchmarks.HttpLoadTest "$URL" "$CONCURRENCY" "$SECONDS_PER_RUN"
+  echo "jvm threads: $(awk '/^Threads:/ {print $2}' "/proc/$PID/status")"
+
+  kill "$PID"
+  wait "$PID" 2>/dev/null || true
+done
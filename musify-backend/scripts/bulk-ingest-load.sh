@@ -0,0 +1,25 @@
+#!/usr/bin/env bash
+# Measures bulk ingest throughput against a locally running backend, e.g. one started with
+# aws.dynamodb.endpoint=http://localhost:8000 against DynamoDB Local and a MusicTrack table:
+#
+#   aws dynamodb create-table --endpoint-url http://localhost:8000 --table-name MusicTrack \
+#     --attribute-definitions AttributeName=artistName,AttributeType=S AttributeName=songName,AttributeType=S \
+#     --key-schema AttributeName=artistName,KeyType=HASH AttributeName=songName,KeyType=RANGE \
+#     --billing-mode PAY_PER_REQUEST
+#   scripts/bulk-ingest-load.sh 20000
+set -euo pipefail
+
+COUNT=${1:-10000}
+BASE_URL=${BASE_URL:-http://localhost:8080}
+RUN=$(date +%s)
+FILE=$(mktemp)
+trap 'rm -f "$FILE"' EXIT
+
+for ((i = 0; i < COUNT; i++)); do
+  printf '{"artistName":"Load Artist %d","songName":"Song %d-%d","s3Key":"tracks/load/%d-%d.mp3","duration":%d}\n' \
+    $((i % 500)) "$RUN" "$i" "$RUN" "$i" $((120 + i % 240))
+done > "$FILE"
+
+curl -s -XPOST "$BASE_URL/api/musictrack/metadata/bulk" \
+  -H 'Content-Type: application/x-ndjson' --data-binary @"$FILE" \
+  | python3 -c 'import json,sys; r=json.load(sys.stdin); r.pop("results"); print(json.dumps(r))'
@@ -0,0 +1,69 @@
+#!/usr/bin/env bash
+# Smoke test for the Lambda packages behind the Runtime Interface Emulator (aws-lambda-rie).
+# Checks that the existing endpoints answer and prints time-to-first-response and peak RSS,
+# so the native and JVM builds can be compared on the same machine.
+#
+#   mvn -Pnative package && scripts/lambda-smoke-test.sh native
+#   mvn package          && scripts/lambda-smoke-test.sh jvm
+#
+# Needs aws-lambda-rie on the PATH, plus aws.region / aws.s3.bucket-name (e.g. AWS_REGION,
+# AWS_S3_BUCKET_NAME). Endpoints that reach DynamoDB only need to answer, not to find data.
+set -euo pipefail
+
+MODE=${1:-native}
+PORT=${PORT:-9000}
+cd "$(dirname "$0")/.."
+
+case "$MODE" in
+  native)
+    CMD=(./target/musify-backend)
+    ;;
+  jvm)
+    JAR=$(ls target/musify-backend-*.jar | grep -v original | head -1)
+    RIC=$(find ~/.m2/repository/com/amazonaws/aws-lambda-java-runtime-interface-client -name '*.jar' | head -1)
+    CMD=(java -cp "$JAR:$RIC" com.amazonaws.services.lambda.runtime.api.client.AWSLambda
+         com.musify.api.StreamLambdaHandler::handleRequest)
+    ;;
+  *)
+    echo "usage: $0 [native|jvm]" >&2
+    exit 2
+    ;;
+esac
+
+event() {
+  local path=$1 query=${2:-}
+  printf '{"version":"2.0","routeKey":"GET %s","rawPath":"%s","rawQueryString":"%s","headers":{"accept":"application/json"},"requestContext":{"http":{"method":"GET","path":"%s","protocol":"HTTP/1.1","sourceIp":"127.0.0.1","userAgent":"smoke-test"},"requestId":"smoke","stage":"$default","timeEpoch":0},"isBase64Encoded":false}' \
+    "$path" "$path" "$query" "$path"
+}
+
+invoke() {
+  curl -s -XPOST "http://localhost:${PORT}/2015-03-31/functions/function/invocations" -d "$(event "$@")"
+}
+
+start=$(date +%s%N)
+aws-lambda-rie --runtime-interface-emulator-address "0.0.0.0:${PORT}" "${CMD[@]}" > target/smoke-test.log 2>&1 &
+RIE_PID=$!
+trap 'kill $RIE_PID 2>/dev/null || true' EXIT
+
+until curl -s -o /dev/null "http://localhost:${PORT}"; do sleep 0.05; done
+first=$(invoke /test)
+ready=$(date +%s%N)
+
+fail=0
+check() {
+  local name=$1 body=$2
+  if grep -q '"statusCode":200' <<<"$body"; then
+    echo "OK    $name"
+  else
+    echo "FAIL  $name: $body"
+    fail=1
+  fi
+}
+
+check "GET /test" "$first"
+check "GET /api/musictrack" "$(invoke /api/musictrack limit=1)"
+check "GET /api/musictrack/stream" "$(invoke /api/musictrack/stream key=tracks/smoke-test.mp3)"
+
+rss=$(for pid in $(pgrep -P "$RIE_PID"); do grep VmHWM "/proc/$pid/status" | awk '{print $2}'; done | sort -n | tail -1)
+echo "mode=$MODE timeToFirstResponse=$(( (ready - start) / 1000000 ))ms peakRss=${rss:-?}kB"
+exit $fail
@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+# Drives the backend past what its DynamoDB can take, first as configured by default and then with
+# bulkheads (musify.bulkhead.enabled) and no SDK retries (musify.aws.dynamodb.max-attempts=1).
+# The backend runs against scripts/throttling-dynamodb.py, which slows down as calls pile up and throttles
+# past its capacity. By default a throttled call backs off and retries inside the SDK while the request
+# waits; with bulkheads the excess requests come back at once as 503s with Retry-After, and the rest keep
+# close to the backend's unloaded latency. HttpLoadTest's clients wait out Retry-After before trying again.
+#
+# The stand-in is slow on purpose: it has to give out before the backend runs out of CPU, or the test
+# measures the machine instead.
+#
+#   mvn -B package -DskipTests && mvn -B -f benchmarks/pom.xml package
+#   scripts/overload-test.sh 100 30
+set -euo pipefail
+
+CONCURRENCY=${1:-100}
+SECONDS_PER_RUN=${2:-30}
+PORT=${PORT:-8080}
+DYNAMODB_PORT=${DYNAMODB_PORT:-8001}
+CAPACITY=${CAPACITY:-4}
+LATENCY_MS=${LATENCY_MS:-250}
+# an artist listing: the full listing would be folded into a few calls by the request coalescer
+URL=${URL:-http://localhost:$PORT/api/musictrack/artist/Artist%200001?limit=20}
+JAR=target/musify-backend-0.0.1-SNAPSHOT.jar
+
+python3 scripts/throttling-dynamodb.py --port "$DYNAMODB_PORT" --capacity "$CAPACITY" --latency-ms "$LATENCY_MS" &
+DYNAMODB_PID=$!
+trap 'kill $DYNAMODB_PID 2>/dev/null || true' EXIT
+
+run() {
+  local name=$1
+  shift
+  java -cp "$JAR" com.musify.api.MusifyBackendApplication \
+    --server.port="$PORT" --aws.dynamodb.endpoint="http://localhost:$DYNAMODB_PORT" \
+    --musify.search.index.enabled=false --logging.level.com.musify=WARN "$@" \
+    > "target/overload-test-$name.log" 2>&1 &
+  PID=$!
+  trap 'kill $PID $DYNAMODB_PID 2>/dev/null || true' EXIT
+  until curl -sf -o /dev/null "http://localhost:$PORT/test"; do sleep 1; done
+
+  echo "== $name"
+  java -cp benchmarks/target/benchmarks.jar com.musify.benchmarks.HttpLoadTest "$URL" "$CONCURRENCY" "$SECONDS_PER_RUN"
+  echo "dynamodb: $(curl -s "http://localhost:$DYNAMODB_PORT/")"
+  echo "search bulkhead limit: $(curl -s \
+    "http://localhost:$PORT/actuator/metrics/musify.bulkhead.limit?tag=bulkhead:search" \
+    | python3 -c 'import json,sys; print(json.load(sys.stdin)["measurements"][0]["value"])')"
+
+  kill "$PID"
+  wait "$PID" 2>/dev/null || true
+}
+
+run unguarded --musify.bulkhead.enabled=false
+run bulkheads --musify.bulkhead.enabled=true --musify.aws.dynamodb.max-attempts=1
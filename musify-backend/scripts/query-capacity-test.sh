@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+# Shows that artist and sorted listings cost read units in proportion to the page, not the table.
+# Grows the table to each given size and, after each, reads one artist's 20 songs through the artist
+# Query, a page of the by-upload-time index, and a filtered Scan (a search with the index disabled).
+# Consumed capacity is read back from /actuator/metrics.
+#
+# Needs DynamoDB Local with the table and its listing indexes, and a backend running against it with the
+# search index off and no scan budget:
+#
+#   aws dynamodb create-table --endpoint-url http://localhost:8000 --table-name MusicTrack \
+#     --attribute-definitions AttributeName=artistName,AttributeType=S AttributeName=songName,AttributeType=S \
+#       AttributeName=listingKey,AttributeType=S AttributeName=uploadedAt,AttributeType=N \
+#       AttributeName=duration,AttributeType=N \
+#     --key-schema AttributeName=artistName,KeyType=HASH AttributeName=songName,KeyType=RANGE \
+#     --global-secondary-indexes \
+#       'IndexName=byUploadTime,KeySchema=[{AttributeName=listingKey,KeyType=HASH},{AttributeName=uploadedAt,KeyType=RANGE}],Projection={ProjectionType=ALL}' \
+#       'IndexName=byDuration,KeySchema=[{AttributeName=listingKey,KeyType=HASH},{AttributeName=duration,KeyType=RANGE}],Projection={ProjectionType=ALL}' \
+#     --billing-mode PAY_PER_REQUEST
+#   java -jar target/musify-backend-0.0.1-SNAPSHOT.jar --aws.dynamodb.endpoint=http://localhost:8000 \
+#     --musify.search.index.enabled=false --musify.scan.fill.capacity-budget=1000000 \
+#     --musify.scan.fill.time-budget=PT1M
+#   scripts/query-capacity-test.sh 1000 10000
+set -euo pipefail
+
+BASE_URL=${BASE_URL:-http://localhost:8080}
+SIZES=("${@:-1000 10000}")
+PROBE="Probe Artist"
+RUN=$(date +%s)
+FILE=$(mktemp)
+trap 'rm -f "$FILE"' EXIT
+
+ingest() {
+  curl -s -o /dev/null -XPOST "$BASE_URL/api/musictrack/metadata/bulk" \
+    -H 'Content-Type: application/x-ndjson' --data-binary @"$FILE"
+}
+
+capacity() {
+  curl -s "$BASE_URL/actuator/metrics/musify.dynamodb.consumed.capacity?tag=operation:$1" \
+    | python3 -c 'import json,sys; print(json.load(sys.stdin)["measurements"][0]["value"])'
+}
+
+# read units consumed by one request, as seen by the given operation's counter
+cost() {
+  local operation=$1 url=$2 before after
+  before=$(capacity "$operation")
+  curl -s -o /dev/null "$url"
+  after=$(capacity "$operation")
+  python3 -c "print(round($after - $before, 1))"
+}
+
+for ((i = 0; i < 20; i++)); do
+  printf '{"artistName":"%s","songName":"Song %d-%d","s3Key":"tracks/probe/%d-%d.mp3","duration":%d}\n' \
+    "$PROBE" "$RUN" "$i" "$RUN" "$i" $((120 + i))
+done > "$FILE"
+ingest
+
+seeded=20
+printf '%10s %14s %14s %14s\n' items 'artist query' 'sorted index' 'filtered scan'
+for size in ${SIZES[*]}; do
+  for ((i = seeded; i < size; i++)); do
+    printf '{"artistName":"Filler Artist %d","songName":"Song %d-%d","s3Key":"tracks/filler/%d-%d.mp3","duration":%d}\n' \
+      $((i % 500)) "$RUN" "$i" "$RUN" "$i" $((120 + i % 240))
+  done > "$FILE"
+  ingest
+  seeded=$size
+
+  artist=$(cost query "$BASE_URL/api/musictrack/artist/${PROBE// /%20}?limit=20")
+  sorted=$(cost query "$BASE_URL/api/musictrack/sorted?by=uploadedAt&limit=20")
+  scan=$(cost findAll "$BASE_URL/api/musictrack?limit=20&search=probe%20artist")
+  printf '%10d %14s %14s %14s\n' "$size" "$artist" "$sorted" "$scan"
+done
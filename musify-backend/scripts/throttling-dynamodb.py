@@ -0,0 +1,121 @@
+#!/usr/bin/env python3
+"""A DynamoDB stand-in that slows down and throttles under load, for overload-test.sh.
+
+Serves a fixed catalog of generated tracks through the calls the backend makes (Scan, Query,
+GetItem, BatchGetItem and the writes, which are accepted and dropped). Every call takes
+--latency-ms, stretched by how many calls are in flight relative to --capacity, and a call that
+arrives with --capacity calls already in flight gets ProvisionedThroughputExceededException,
+like a table out of provisioned throughput. Filter and key conditions are ignored: every listing
+reads from the same catalog.
+
+    scripts/throttling-dynamodb.py --port 8001 --capacity 16 --latency-ms 20
+"""
+import argparse
+import json
+import threading
+import time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+
+parser = argparse.ArgumentParser()
+parser.add_argument("--port", type=int, default=8001)
+parser.add_argument("--capacity", type=int, default=16)
+parser.add_argument("--latency-ms", type=float, default=20)
+parser.add_argument("--items", type=int, default=2000)
+args = parser.parse_args()
+
+ITEMS = []
+for i in range(args.items):
+    artist, song = "Artist %04d" % (i // 10), "Song %05d" % i
+    ITEMS.append({
+        "artistName": {"S": artist}, "songName": {"S": song},
+        "artistNameLower": {"S": artist.lower()}, "songNameLower": {"S": song.lower()},
+        "s3Key": {"S": "tracks/%s/%s.mp3" % (artist, song)}, "duration": {"N": str(120 + i % 240)},
+        "listingKey": {"S": "TRACK"}, "uploadedAt": {"N": str(1_700_000_000_000 + i)},
+    })
+BY_KEY = {(item["artistName"]["S"], item["songName"]["S"]): item for item in ITEMS}
+
+lock = threading.Lock()
+in_flight = 0
+stats = {"served": 0, "throttled": 0}
+
+
+def page(request):
+    start = request.get("ExclusiveStartKey")
+    offset = 0
+    if start:
+        offset = ITEMS.index(BY_KEY[(start["artistName"]["S"], start["songName"]["S"])]) + 1
+    items = ITEMS[offset:offset + request.get("Limit", 100)]
+    body = {"Items": items, "Count": len(items), "ScannedCount": len(items),
+            "ConsumedCapacity": {"TableName": "MusicTrack", "CapacityUnits": len(items) / 8}}
+    if offset + len(items) < len(ITEMS):
+        body["LastEvaluatedKey"] = {k: items[-1][k] for k in ("artistName", "songName")}
+    return body
+
+
+def answer(operation, request):
+    if operation in ("Scan", "Query"):
+        return page(request)
+    if operation == "GetItem":
+        key = request["Key"]
+        item = BY_KEY.get((key["artistName"]["S"], key["songName"]["S"]))
+        return {"Item": item} if item else {}
+    if operation == "BatchGetItem":
+        return {"Responses": {table: [BY_KEY[(k["artistName"]["S"], k["songName"]["S"])] for k in keys["Keys"]
+                                      if (k["artistName"]["S"], k["songName"]["S"]) in BY_KEY]
+                              for table, keys in request["RequestItems"].items()},
+                "UnprocessedKeys": {}}
+    if operation == "BatchWriteItem":
+        return {"UnprocessedItems": {}}
+    if operation == "DescribeTable":
+        return {"Table": {"TableName": "MusicTrack", "TableStatus": "ACTIVE", "ItemCount": len(ITEMS)}}
+    return {}
+
+
+class Handler(BaseHTTPRequestHandler):
+    protocol_version = "HTTP/1.1"
+
+    def do_POST(self):
+        global in_flight
+        request = json.loads(self.rfile.read(int(self.headers["Content-Length"])) or b"{}")
+        operation = self.headers.get("X-Amz-Target", "").split(".")[-1]
+        with lock:
+            throttled = in_flight >= args.capacity
+            if not throttled:
+                in_flight += 1
+                load = in_flight / args.capacity
+            stats["throttled" if throttled else "served"] += 1
+        if throttled:
+            self.reply(400, {"__type": "com.amazonaws.dynamodb.v20120810#ProvisionedThroughputExceededException",
+                             "message": "The level of configured provisioned throughput for the table was exceeded."})
+            return
+        try:
+            time.sleep(args.latency_ms / 1000 * (1 + load))
+            self.reply(200, answer(operation, request))
+        finally:
+            with lock:
+                in_flight -= 1
+
+    # GET / reports how many calls were served and throttled
+    def do_GET(self):
+        with lock:
+            self.reply(200, dict(stats, in_flight=in_flight))
+
+    def reply(self, status, body):
+        data = json.dumps(body).encode()
+        self.send_response(status)
+        self.send_header("Content-Type", "application/x-amz-json-1.0")
+        self.send_header("Content-Length", str(len(data)))
+        self.end_headers()
+        self.wfile.write(data)
+
+    def log_message(self, *ignored):
+        pass
+
+
+class Server(ThreadingHTTPServer):
+    daemon_threads = True
+    # the default backlog of 5 drops connections when the SDK opens its pool all at once
+    request_queue_size = 256
+
+
+Server(("127.0.0.1", args.port), Handler).serve_forever()
@@ -1,34 +1,98 @@
 package com.musify.api;
 
 import com.amazonaws.serverless.exceptions.ContainerInitializationException;
+import com.amazonaws.serverless.proxy.internal.LambdaContainerHandler;
 import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
 import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
 import com.amazonaws.serverless.proxy.model.HttpApiV2ProxyRequest;
 import com.amazonaws.serverless.proxy.spring.SpringBootLambdaContainerHandler;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.musify.api.metrics.EmfMeterRegistry;
+import com.musify.api.startup.PrimingContext;
+import com.musify.api.startup.StartupTimings;
+import org.crac.Core;
+import org.crac.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
 public class StreamLambdaHandler implements RequestStreamHandler {
 
     private static SpringBootLambdaContainerHandler<HttpApiV2ProxyRequest, AwsProxyResponse> handler;
+    // published after each invocation, null when EMF is disabled
+    private static EmfMeterRegistry emfMeterRegistry;
+
+    // GET /test as an HTTP API v2 event, used to push one request through the whole stack before a snapshot
+    private static final String PRIMING_EVENT = """
+            {"version":"2.0","routeKey":"GET /test","rawPath":"/test","rawQueryString":"",
+             "headers":{"accept":"application/json","user-agent":"musify-priming"},
+             "requestContext":{"http":{"method":"GET","path":"/test","protocol":"HTTP/1.1",
+             "sourceIp":"127.0.0.1","userAgent":"musify-priming"},"requestId":"priming","stage":"$default",
+             "timeEpoch":0},"isBase64Encoded":false}
+            """;
+
+    // the CRaC global context only holds weak references to resources
+    private static final Resource PRIMING_HOOK = new Resource() {
+        @Override
+        public void beforeCheckpoint(org.crac.Context<? extends Resource> context) throws Exception {
+            long start = System.nanoTime();
+            handler.proxyStream(new ByteArrayInputStream(PRIMING_EVENT.getBytes(StandardCharsets.UTF_8)),
+                    new ByteArrayOutputStream(), new PrimingContext());
+            StartupTimings.record("prime.synthetic-request", start);
+        }
+
+        @Override
+        public void afterRestore(org.crac.Context<? extends Resource> context) {
+        }
+    };
 
     static {
+        // a Lambda environment serves one request at a time, and the container only re-dispatches
+        // async requests whose result is ready when the controller returns, so stay on the blocking clients
+        System.setProperty("musify.aws.async", "false");
+        // metrics go out as EMF log lines; behind API Gateway the actuator would be public, so keep it to health
+        if (System.getProperty("musify.metrics.emf.enabled") == null) {
+            System.setProperty("musify.metrics.emf.enabled", "true");
+        }
+        // the environment is frozen between invocations, so a background publisher would lose steps
+        System.setProperty("musify.metrics.emf.per-invocation", "true");
+        System.setProperty("management.endpoints.web.exposure.include", "health");
+        long start = System.nanoTime();
         try {
             handler = SpringBootLambdaContainerHandler.getHttpApiV2ProxyHandler(MusifyBackendApplication.class);
+            // the export may be gzip-compressed, and only binary bodies are passed through base64-encoded
+            LambdaContainerHandler.getContainerConfig().addBinaryContentTypes(MediaType.APPLICATION_NDJSON_VALUE);
+            WebApplicationContext applicationContext =
+                    WebApplicationContextUtils.getWebApplicationContext(handler.getServletContext());
+            if (applicationContext != null) {
+                emfMeterRegistry = applicationContext.getBeanProvider(EmfMeterRegistry.class).getIfAvailable();
+            }
         } catch (ContainerInitializationException e) {
             throw new RuntimeException("Could not initialize Spring Boot", e);
         }
+        StartupTimings.record("init.spring-context", start);
+        Core.getGlobalContext().register(PRIMING_HOOK);
     }
 
     @Override
     public void handleRequest(InputStream inputStream,
                               OutputStream outputStream,
                               Context context) throws IOException {
-        handler.proxyStream(inputStream, outputStream, context);
+        try {
+            handler.proxyStream(inputStream, outputStream, context);
+        } finally {
+            if (emfMeterRegistry != null) {
+                emfMeterRegistry.flush();
+            }
+        }
     }
 
 }
@@ -0,0 +1,12 @@
+package com.musify.api.audio;
+
+/**
+ * Properties read from an audio file's headers.
+ *
+ * @param bitrateKbps average bitrate for VBR files
+ * @param vbr         true if the bitrate varies between frames
+ * @param estimated   true if the duration was extrapolated from sampled frames
+ *                    because the file has no Xing/Info or VBRI header
+ */
+public record AudioInfo(int durationSeconds, int bitrateKbps, int sampleRate, boolean vbr, boolean estimated) {
+}
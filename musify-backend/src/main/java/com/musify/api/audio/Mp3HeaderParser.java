@@ -0,0 +1,206 @@
+package com.musify.api.audio;
+
+/**
+ * Reads the parts of an MP3 needed for duration and bitrate: the ID3v2 tag size,
+ * MPEG audio frame headers and the Xing/Info or VBRI header in the first frame.
+ * Everything works on a caller-supplied buffer; nothing is copied.
+ */
+public final class Mp3HeaderParser {
+
+    public static final int ID3V2_HEADER_LENGTH = 10;
+
+    // [version][layer] -> kbps by bitrate index; version 0 = MPEG 1, 1 = MPEG 2 and 2.5
+    private static final int[][][] BITRATES = {
+            {
+                    {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+                    {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+                    {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},
+            },
+            {
+                    {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+                    {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+                    {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+            },
+    };
+
+    private static final int[] MPEG1_SAMPLE_RATES = {44100, 48000, 32000};
+
+    public enum Version {
+        MPEG_1(1), MPEG_2(2), MPEG_2_5(4);
+
+        private final int sampleRateDivisor;
+
+        Version(int sampleRateDivisor) {
+            this.sampleRateDivisor = sampleRateDivisor;
+        }
+    }
+
+    /**
+     * One decoded frame header.
+     *
+     * @param layer       1, 2 or 3
+     * @param frameLength bytes including the header
+     */
+    public record FrameHeader(Version version, int layer, int bitrateKbps, int sampleRate, boolean mono,
+                              int samplesPerFrame, int frameLength) {
+
+        boolean sameStream(FrameHeader other) {
+            return version == other.version && layer == other.layer && sampleRate == other.sampleRate;
+        }
+    }
+
+    /**
+     * Frame count and byte count from a Xing/Info or VBRI header; -1 where the header doesn't say.
+     *
+     * @param vbr false for an Info header, which LAME writes on CBR files
+     */
+    public record VbrHeader(long frames, long bytes, boolean vbr) {
+    }
+
+    private Mp3HeaderParser() {
+    }
+
+    /**
+     * @return the size of the ID3v2 tag at the start of the buffer including its header
+     * and footer, or 0 if there is none
+     */
+    public static long id3v2Length(byte[] buf, int length) {
+        if (length < ID3V2_HEADER_LENGTH || buf[0] != 'I' || buf[1] != 'D' || buf[2] != '3') {
+            return 0;
+        }
+        long size = syncsafe(buf, 6);
+        if (size < 0) {
+            return 0;
+        }
+        boolean footer = (buf[5] & 0x10) != 0;
+        return ID3V2_HEADER_LENGTH + size + (footer ? ID3V2_HEADER_LENGTH : 0);
+    }
+
+    /**
+     * Decodes the four bytes at {@code offset} as a frame header.
+     *
+     * @return the header, or null if the bytes aren't a valid one
+     */
+    public static FrameHeader parseFrameHeader(byte[] buf, int offset) {
+        int b1 = buf[offset + 1] & 0xFF;
+        int b2 = buf[offset + 2] & 0xFF;
+        int b3 = buf[offset + 3] & 0xFF;
+        if ((buf[offset] & 0xFF) != 0xFF || (b1 & 0xE0) != 0xE0) {
+            return null;
+        }
+        int versionBits = (b1 >> 3) & 0x3;
+        int layerBits = (b1 >> 1) & 0x3;
+        int bitrateIndex = (b2 >> 4) & 0xF;
+        int sampleRateIndex = (b2 >> 2) & 0x3;
+        // reserved values, and free-format bitrate whose frame length we can't compute
+        if (versionBits == 1 || layerBits == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            return null;
+        }
+
+        Version version = versionBits == 3 ? Version.MPEG_1 : versionBits == 2 ? Version.MPEG_2 : Version.MPEG_2_5;
+        int layer = 4 - layerBits;
+        int bitrateKbps = BITRATES[version == Version.MPEG_1 ? 0 : 1][layer - 1][bitrateIndex];
+        int sampleRate = MPEG1_SAMPLE_RATES[sampleRateIndex] / version.sampleRateDivisor;
+        int padding = (b2 >> 1) & 0x1;
+        boolean mono = ((b3 >> 6) & 0x3) == 3;
+
+        int samplesPerFrame;
+        int frameLength;
+        if (layer == 1) {
+            samplesPerFrame = 384;
+            frameLength = (12 * bitrateKbps * 1000 / sampleRate + padding) * 4;
+        } else {
+            samplesPerFrame = layer == 3 && version != Version.MPEG_1 ? 576 : 1152;
+            frameLength = samplesPerFrame / 8 * bitrateKbps * 1000 / sampleRate + padding;
+        }
+        return new FrameHeader(version, layer, bitrateKbps, sampleRate, mono, samplesPerFrame, frameLength);
+    }
+
+    /**
+     * Finds the first frame header at or after {@code from}. A candidate only
+     * counts if the next frame header, when it lies inside the buffer, belongs to
+     * the same stream, which filters out sync patterns inside audio data and tags.
+     *
+     * @return the offset of the frame header, or -1 if none was found
+     */
+    public static int findFrame(byte[] buf, int from, int length) {
+        for (int offset = Math.max(0, from); offset + 4 <= length; offset++) {
+            if ((buf[offset] & 0xFF) != 0xFF) {
+                continue;
+            }
+            FrameHeader header = parseFrameHeader(buf, offset);
+            if (header == null) {
+                continue;
+            }
+            int next = offset + header.frameLength();
+            if (next + 4 > length) {
+                return offset;
+            }
+            FrameHeader following = parseFrameHeader(buf, next);
+            if (following != null && header.sameStream(following)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads a Xing/Info or VBRI header from the frame at {@code offset}.
+     *
+     * @return the header, or null if the frame has neither
+     */
+    public static VbrHeader parseVbrHeader(byte[] buf, int offset, int length, FrameHeader header) {
+        int sideInfo = header.version() == Version.MPEG_1
+                ? (header.mono() ? 17 : 32)
+                : (header.mono() ? 9 : 17);
+        int xing = offset + 4 + sideInfo;
+        boolean info = xing + 8 <= length && matches(buf, xing, "Info");
+        if (info || xing + 8 <= length && matches(buf, xing, "Xing")) {
+            int flags = readInt(buf, xing + 4);
+            int position = xing + 8;
+            long frames = -1;
+            long bytes = -1;
+            if ((flags & 0x1) != 0 && position + 4 <= length) {
+                frames = readInt(buf, position) & 0xFFFFFFFFL;
+                position += 4;
+            }
+            if ((flags & 0x2) != 0 && position + 4 <= length) {
+                bytes = readInt(buf, position) & 0xFFFFFFFFL;
+            }
+            return new VbrHeader(frames, bytes, !info);
+        }
+
+        // VBRI always sits 32 bytes after the frame header
+        int vbri = offset + 4 + 32;
+        if (vbri + 18 <= length && matches(buf, vbri, "VBRI")) {
+            return new VbrHeader(readInt(buf, vbri + 14) & 0xFFFFFFFFL, readInt(buf, vbri + 10) & 0xFFFFFFFFL, true);
+        }
+        return null;
+    }
+
+    private static long syncsafe(byte[] buf, int offset) {
+        long value = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = buf[offset + i] & 0xFF;
+            if ((b & 0x80) != 0) {
+                return -1;
+            }
+            value = (value << 7) | b;
+        }
+        return value;
+    }
+
+    private static int readInt(byte[] buf, int offset) {
+        return ((buf[offset] & 0xFF) << 24) | ((buf[offset + 1] & 0xFF) << 16)
+                | ((buf[offset + 2] & 0xFF) << 8) | (buf[offset + 3] & 0xFF);
+    }
+
+    private static boolean matches(byte[] buf, int offset, String tag) {
+        for (int i = 0; i < tag.length(); i++) {
+            if (buf[offset + i] != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
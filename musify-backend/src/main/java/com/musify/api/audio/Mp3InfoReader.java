@@ -0,0 +1,94 @@
+package com.musify.api.audio;
+
+import java.io.IOException;
+
+/**
+ * Works out duration, bitrate and sample rate of an MP3 from a few small reads
+ * instead of the whole file: the head (ID3v2 tag size, first frame, Xing/Info or
+ * VBRI header) and, only for VBR files without such a header, a handful of
+ * sampled stretches of frames. All reads go into one caller-supplied buffer.
+ */
+public final class Mp3InfoReader {
+
+    // enough for the ID3v2 header plus the first frame and its Xing/VBRI header in almost every file
+    public static final int BUFFER_SIZE = 16 * 1024;
+    static final int SAMPLE_BYTES = 8 * 1024;
+    static final int SAMPLE_POINTS = 3;
+
+    /**
+     * Byte-range access to one object.
+     */
+    public interface RangeSource {
+        /**
+         * Reads up to {@code length} bytes starting at {@code position} into the start of {@code buf}.
+         *
+         * @return the number of bytes read
+         */
+        int read(long position, byte[] buf, int length) throws IOException;
+
+        /**
+         * Total object size; known after the first read.
+         */
+        long size();
+    }
+
+    private Mp3InfoReader() {
+    }
+
+    /**
+     * @param buf scratch buffer of at least {@link #BUFFER_SIZE} bytes
+     * @throws IOException if no MPEG audio frame is found or a read fails
+     */
+    public static AudioInfo read(RangeSource source, byte[] buf) throws IOException {
+        int length = source.read(0, buf, BUFFER_SIZE);
+        long size = source.size();
+        long audioStart = Mp3HeaderParser.id3v2Length(buf, length);
+        long bufferStart = 0;
+        int offset;
+        if (audioStart + 4 <= length) {
+            offset = Mp3HeaderParser.findFrame(buf, (int) audioStart, length);
+        } else {
+            // the tag (usually cover art) is bigger than the head read, so read again after it
+            bufferStart = audioStart;
+            length = source.read(audioStart, buf, BUFFER_SIZE);
+            offset = Mp3HeaderParser.findFrame(buf, 0, length);
+        }
+        if (offset < 0) {
+            throw new IOException("No MPEG audio frame found in the first " + (bufferStart + length) + " bytes");
+        }
+
+        Mp3HeaderParser.FrameHeader first = Mp3HeaderParser.parseFrameHeader(buf, offset);
+        long firstFrame = bufferStart + offset;
+        long audioBytes = size - firstFrame;
+        Mp3HeaderParser.VbrHeader vbr = Mp3HeaderParser.parseVbrHeader(buf, offset, length, first);
+        if (vbr != null && vbr.frames() > 0) {
+            double seconds = (double) vbr.frames() * first.samplesPerFrame() / first.sampleRate();
+            long bytes = vbr.bytes() > 0 ? vbr.bytes() : audioBytes;
+            int kbps = (int) Math.round(bytes * 8 / seconds / 1000);
+            return new AudioInfo((int) Math.round(seconds), kbps, first.sampleRate(), vbr.vbr(), false);
+        }
+
+        long bitrateSum = first.bitrateKbps();
+        int frames = 1;
+        boolean constant = true;
+        for (int point = 1; point <= SAMPLE_POINTS; point++) {
+            long position = firstFrame + audioBytes * point / (SAMPLE_POINTS + 1);
+            int read = source.read(position, buf, SAMPLE_BYTES);
+            int at = Mp3HeaderParser.findFrame(buf, 0, read);
+            while (at >= 0 && at + 4 <= read) {
+                Mp3HeaderParser.FrameHeader header = Mp3HeaderParser.parseFrameHeader(buf, at);
+                if (header == null || !header.sameStream(first)) {
+                    break;
+                }
+                bitrateSum += header.bitrateKbps();
+                frames++;
+                constant &= header.bitrateKbps() == first.bitrateKbps();
+                at += header.frameLength();
+            }
+        }
+        double kbps = (double) bitrateSum / frames;
+        double seconds = audioBytes * 8 / (kbps * 1000);
+        return new AudioInfo((int) Math.round(seconds), (int) Math.round(kbps), first.sampleRate(),
+                !constant, !constant);
+    }
+}
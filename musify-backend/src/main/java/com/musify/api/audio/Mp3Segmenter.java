@@ -0,0 +1,193 @@
+package com.musify.api.audio;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits an MP3 stream at frame boundaries into segments of roughly equal
+ * duration for HLS. The input is read once, frame by frame; only the current
+ * frame and the current segment are held in memory. Every segment starts with
+ * the ID3 timestamp tag HLS requires on packed audio, so players can place it
+ * on the timeline.
+ */
+public final class Mp3Segmenter {
+
+    // longest possible frame is MPEG 2.5 Layer II at 160 kbps, 8 kHz: 2881 bytes
+    private static final int MAX_FRAME_LENGTH = 4 * 1024;
+    private static final String TIMESTAMP_OWNER = "com.apple.streaming.transportStreamTimestamp";
+    private static final int TIMESTAMP_CLOCK = 90_000;
+
+    /**
+     * @param seconds exact duration of the frames in the segment
+     */
+    public record Segment(int index, double seconds) {
+    }
+
+    @FunctionalInterface
+    public interface SegmentSink {
+        /**
+         * Receives one finished segment; {@code data} is only valid until the call returns.
+         */
+        void accept(Segment segment, byte[] data, int length) throws IOException;
+    }
+
+    private Mp3Segmenter() {
+    }
+
+    /**
+     * @param targetSeconds a segment is closed at the first frame boundary at or after this duration
+     * @return every segment written, in order
+     * @throws IOException if the stream contains no MPEG audio frame or the sink fails
+     */
+    public static List<Segment> segment(InputStream input, double targetSeconds, SegmentSink sink) throws IOException {
+        InputStream in = new BufferedInputStream(input, 16 * 1024);
+        skipId3v2(in);
+
+        SegmentBuffer buffer = new SegmentBuffer();
+        byte[] frame = new byte[MAX_FRAME_LENGTH];
+        List<Segment> segments = new ArrayList<>();
+        Mp3HeaderParser.FrameHeader first = null;
+        long samplesBefore = 0;
+        long segmentSamples = 0;
+
+        Mp3HeaderParser.FrameHeader header;
+        while ((header = nextFrame(in, frame, first)) != null) {
+            int rest = header.frameLength() - 4;
+            if (in.readNBytes(frame, 4, rest) < rest) {
+                break; // truncated last frame
+            }
+            if (first == null) {
+                first = header;
+                // the Xing/Info frame carries no audio and its totals are wrong for a single segment
+                if (Mp3HeaderParser.parseVbrHeader(frame, 0, header.frameLength(), header) != null) {
+                    continue;
+                }
+            }
+            if (buffer.size() == 0) {
+                writeTimestampTag(buffer, samplesBefore * TIMESTAMP_CLOCK / first.sampleRate());
+            }
+            buffer.write(frame, 0, header.frameLength());
+            segmentSamples += header.samplesPerFrame();
+
+            if ((double) segmentSamples / first.sampleRate() >= targetSeconds) {
+                segments.add(flush(buffer, segments.size(), segmentSamples, first, sink));
+                samplesBefore += segmentSamples;
+                segmentSamples = 0;
+            }
+        }
+        if (first == null) {
+            throw new IOException("No MPEG audio frame found");
+        }
+        if (segmentSamples > 0) {
+            segments.add(flush(buffer, segments.size(), segmentSamples, first, sink));
+        }
+        return segments;
+    }
+
+    /**
+     * Builds a VOD media playlist.
+     *
+     * @param uris segment URIs, parallel to {@code segments}
+     */
+    public static String playlist(List<Segment> segments, List<String> uris) {
+        double longest = segments.stream().mapToDouble(Segment::seconds).max().orElse(0);
+        StringBuilder playlist = new StringBuilder()
+                .append("#EXTM3U\n")
+                .append("#EXT-X-VERSION:3\n")
+                .append("#EXT-X-PLAYLIST-TYPE:VOD\n")
+                .append("#EXT-X-TARGETDURATION:").append((long) Math.ceil(longest)).append('\n')
+                .append("#EXT-X-MEDIA-SEQUENCE:0\n");
+        for (int i = 0; i < segments.size(); i++) {
+            playlist.append(String.format(Locale.ROOT, "#EXTINF:%.3f,", segments.get(i).seconds())).append('\n')
+                    .append(uris.get(i)).append('\n');
+        }
+        return playlist.append("#EXT-X-ENDLIST\n").toString();
+    }
+
+    private static Segment flush(SegmentBuffer buffer, int index, long samples, Mp3HeaderParser.FrameHeader first,
+                                 SegmentSink sink) throws IOException {
+        Segment segment = new Segment(index, (double) samples / first.sampleRate());
+        sink.accept(segment, buffer.array(), buffer.size());
+        buffer.reset();
+        return segment;
+    }
+
+    /**
+     * Reads up to and including the next frame header that belongs to the same
+     * stream as {@code first}, skipping anything else, e.g. junk or a trailing ID3v1 tag.
+     *
+     * @return the header, whose four bytes are now at the start of {@code frame}, or null at the end of the stream
+     */
+    private static Mp3HeaderParser.FrameHeader nextFrame(InputStream in, byte[] frame, Mp3HeaderParser.FrameHeader first)
+            throws IOException {
+        int filled = in.readNBytes(frame, 0, 4);
+        while (filled == 4) {
+            Mp3HeaderParser.FrameHeader header = Mp3HeaderParser.parseFrameHeader(frame, 0);
+            if (header != null && header.frameLength() <= MAX_FRAME_LENGTH
+                    && (first == null || header.sameStream(first))) {
+                return header;
+            }
+            int next = in.read();
+            if (next < 0) {
+                return null;
+            }
+            System.arraycopy(frame, 1, frame, 0, 3);
+            frame[3] = (byte) next;
+        }
+        return null;
+    }
+
+    private static void skipId3v2(InputStream in) throws IOException {
+        byte[] head = new byte[Mp3HeaderParser.ID3V2_HEADER_LENGTH];
+        in.mark(head.length);
+        int read = in.readNBytes(head, 0, head.length);
+        long tagLength = Mp3HeaderParser.id3v2Length(head, read);
+        if (tagLength == 0) {
+            in.reset();
+        } else {
+            in.skipNBytes(tagLength - head.length);
+        }
+    }
+
+    // ID3v2.4 tag with one PRIV frame holding the 33-bit MPEG-2 timestamp of the first sample
+    private static void writeTimestampTag(ByteArrayOutputStream out, long timestamp) {
+        byte[] owner = TIMESTAMP_OWNER.getBytes(StandardCharsets.ISO_8859_1);
+        int frameSize = owner.length + 1 + 8;
+        int tagSize = 10 + frameSize;
+        out.writeBytes(new byte[]{'I', 'D', '3', 4, 0, 0});
+        writeSyncsafe(out, tagSize);
+        out.writeBytes(new byte[]{'P', 'R', 'I', 'V'});
+        writeSyncsafe(out, frameSize);
+        out.write(0);
+        out.write(0);
+        out.writeBytes(owner);
+        out.write(0);
+        long masked = timestamp & 0x1FFFFFFFFL;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (masked >>> shift));
+        }
+    }
+
+    private static void writeSyncsafe(ByteArrayOutputStream out, int value) {
+        for (int shift = 21; shift >= 0; shift -= 7) {
+            out.write((value >>> shift) & 0x7F);
+        }
+    }
+
+    // exposes the backing array so a finished segment can be handed on without copying
+    private static final class SegmentBuffer extends ByteArrayOutputStream {
+        SegmentBuffer() {
+            super(256 * 1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
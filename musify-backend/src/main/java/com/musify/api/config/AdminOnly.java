@@ -0,0 +1,17 @@
+package com.musify.api.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method as an operator action, e.g. a catalog-wide backfill.
+ * Requests need the {@code X-Admin-Token} header, see {@link AdminTokenInterceptor}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AdminOnly {
+}
@@ -0,0 +1,49 @@
+package com.musify.api.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Lets requests to {@link AdminOnly} handlers through only with an
+ * {@code X-Admin-Token} header equal to {@code musify.admin.token}. Without a
+ * configured token those handlers answer 404, as if they didn't exist.
+ */
+@Slf4j
+public class AdminTokenInterceptor implements HandlerInterceptor {
+
+    public static final String HEADER = "X-Admin-Token";
+
+    private final byte[] token;
+
+    public AdminTokenInterceptor(String token) {
+        this.token = token == null || token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!(handler instanceof HandlerMethod method) || !method.hasMethodAnnotation(AdminOnly.class)) {
+            return true;
+        }
+        if (token == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return false;
+        }
+        String presented = request.getHeader(HEADER);
+        // constant time, so the token can't be guessed byte by byte from response times
+        if (presented == null || !MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Rejected {} {} without a valid admin token", request.getMethod(), request.getRequestURI());
+            response.sendError(HttpStatus.FORBIDDEN.value());
+            return false;
+        }
+        return true;
+    }
+}
@@ -1,32 +1,130 @@
 package com.musify.api.config;
 
-
+import com.musify.api.metrics.AwsSdkMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.URI;
+import java.time.Duration;
+
 @Configuration
 public class AwsConfig {
 
     @Value("${aws.region}")
     private String awsRegion;
 
+    // e.g. http://localhost:8000 to run against DynamoDB Local
+    @Value("${aws.dynamodb.endpoint:}")
+    private String dynamoDbEndpoint;
+
+    // e.g. http://localhost:9000 to run against a local S3 stand-in; path-style addressing is used then
+    @Value("${aws.s3.endpoint:}")
+    private String s3Endpoint;
+
+    // bounds a DynamoDB call including its retries, so a throttled table fails the request instead of stalling it
+    @Value("${musify.aws.dynamodb.api-call-timeout:PT10S}")
+    private Duration dynamoDbApiCallTimeout;
+
+    // attempts per DynamoDB call, first one included; the SDK's standard strategy makes 3. Each retry of a
+    // throttled call backs off for up to seconds while holding its bulkhead permit, so with bulkheads it
+    // can be cheaper to shed the request at once and let the client come back after Retry-After.
+    @Value("${musify.aws.dynamodb.max-attempts:3}")
+    private int dynamoDbMaxAttempts;
+
+    // A virtual thread waiting for a pooled connection pins its carrier, so once every carrier is
+    // waiting nothing can finish a call and give a connection back. Keep this above the bulkheads'
+    // combined limit (3 x musify.bulkhead.max-limit) so no call ever waits for one.
+    @Value("${musify.aws.dynamodb.max-connections:200}")
+    private int dynamoDbMaxConnections;
+
+    // in-flight requests across all async clients
+    @Value("${musify.aws.async.max-concurrency:200}")
+    private int asyncMaxConcurrency;
+
+    // shared by every client so a restored snapshot can swap credentials in one place
+    @Bean
+    public RefreshableCredentialsProvider awsCredentialsProvider() {
+        return new RefreshableCredentialsProvider();
+    }
+
+    // times every SDK call by service and operation; see musify.aws.calls
+    @Bean
+    public AwsSdkMetricsInterceptor awsSdkMetricsInterceptor(MeterRegistry meterRegistry) {
+        return new AwsSdkMetricsInterceptor(meterRegistry);
+    }
+
+    // the clients' connection pools, kept as beans so a restored snapshot can rebuild them
+    @Bean(destroyMethod = "close")
+    public RefreshableHttpClient s3HttpClient() {
+        return new RefreshableHttpClient(() -> ApacheHttpClient.builder().build());
+    }
+
+    @Bean(destroyMethod = "close")
+    public RefreshableHttpClient dynamoDbHttpClient() {
+        return new RefreshableHttpClient(() -> ApacheHttpClient.builder()
+                .maxConnections(dynamoDbMaxConnections)
+                .build());
+    }
+
     @Bean
-    public S3Client s3Client() {
-        return S3Client.builder()
+    public S3Client s3Client(RefreshableCredentialsProvider credentialsProvider,
+                             AwsSdkMetricsInterceptor metricsInterceptor) {
+        S3ClientBuilder builder = S3Client.builder()
                 .region(Region.of(awsRegion))
-                .build();
+                .credentialsProvider(credentialsProvider)
+                .httpClient(s3HttpClient())
+                .overrideConfiguration(o -> o.addExecutionInterceptor(metricsInterceptor));
+        if (!s3Endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(s3Endpoint)).forcePathStyle(true);
+        }
+        return builder.build();
     }
 
+    // one presigner for the whole app; Spring closes it on shutdown
     @Bean
-    public DynamoDbClient dynamoDbClient() {
-        return DynamoDbClient.builder()
+    public S3Presigner s3Presigner(S3Client s3Client, RefreshableCredentialsProvider credentialsProvider) {
+        S3Presigner.Builder builder = S3Presigner.builder()
                 .region(Region.of(awsRegion))
-                .build();
+                .credentialsProvider(credentialsProvider)
+                .s3Client(s3Client);
+        if (!s3Endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(s3Endpoint))
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build());
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public DynamoDbClient dynamoDbClient(RefreshableCredentialsProvider credentialsProvider,
+                                         AwsSdkMetricsInterceptor metricsInterceptor) {
+        DynamoDbClientBuilder builder = DynamoDbClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(credentialsProvider)
+                .httpClient(dynamoDbHttpClient())
+                .overrideConfiguration(o -> o.addExecutionInterceptor(metricsInterceptor)
+                        .apiCallTimeout(dynamoDbApiCallTimeout)
+                        .retryStrategy(r -> r.maxAttempts(dynamoDbMaxAttempts)));
+        if (!dynamoDbEndpoint.isBlank()) {
+            builder.endpointOverride(URI.create(dynamoDbEndpoint));
+        }
+        return builder.build();
     }
 
     @Bean
@@ -36,4 +134,42 @@ public class AwsConfig {
                 .build();
     }
 
+    // Async mode: repository calls return CompletableFutures completed on the Netty event loop
+    // instead of holding a request thread for each AWS round trip.
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "musify.aws.async", havingValue = "true")
+    public RefreshableAsyncHttpClient sdkAsyncHttpClient() {
+        return new RefreshableAsyncHttpClient(() -> NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(asyncMaxConcurrency)
+                .connectionAcquisitionTimeout(Duration.ofSeconds(10))
+                .build());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "musify.aws.async", havingValue = "true")
+    public DynamoDbAsyncClient dynamoDbAsyncClient(SdkAsyncHttpClient sdkAsyncHttpClient,
+                                                   RefreshableCredentialsProvider credentialsProvider,
+                                                   AwsSdkMetricsInterceptor metricsInterceptor) {
+        DynamoDbAsyncClientBuilder builder = DynamoDbAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(credentialsProvider)
+                .httpClient(sdkAsyncHttpClient)
+                .overrideConfiguration(o -> o.addExecutionInterceptor(metricsInterceptor)
+                        .apiCallTimeout(dynamoDbApiCallTimeout)
+                        .retryStrategy(r -> r.maxAttempts(dynamoDbMaxAttempts)));
+        if (!dynamoDbEndpoint.isBlank()) {
+            builder.endpointOverride(URI.create(dynamoDbEndpoint));
+        }
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "musify.aws.async", havingValue = "true")
+    public DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient(DynamoDbAsyncClient dynamoDbAsyncClient) {
+        return DynamoDbEnhancedAsyncClient.builder()
+                .dynamoDbClient(dynamoDbAsyncClient)
+                .build();
+    }
+
 }
@@ -0,0 +1,21 @@
+package com.musify.api.config;
+
+import com.musify.api.metrics.EmfConfig;
+import com.musify.api.metrics.EmfMeterRegistry;
+import io.micrometer.core.instrument.Clock;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class MetricsConfig {
+
+    // EMF lines on stdout, for Lambda; locally the actuator's in-memory registry is enough
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "musify.metrics.emf.enabled", havingValue = "true")
+    public EmfMeterRegistry emfMeterRegistry(Environment environment, Clock clock) {
+        EmfConfig config = environment::getProperty;
+        return EmfMeterRegistry.create(config, clock);
+    }
+}
@@ -0,0 +1,9 @@
+package com.musify.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+@Configuration
+@ImportRuntimeHints(NativeRuntimeHints.class)
+public class NativeConfig {
+}
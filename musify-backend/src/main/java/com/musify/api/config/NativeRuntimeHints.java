@@ -0,0 +1,63 @@
+package com.musify.api.config;
+
+import com.musify.api.StreamLambdaHandler;
+import com.musify.api.model.MusicTrack;
+import com.musify.api.startup.PrimingContext;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.stream.Stream;
+
+/**
+ * Reflection, JNI and resource hints for the native-image build (-Pnative).
+ * Spring AOT covers the controllers and beans; this adds what is looked up by
+ * name outside of Spring: the DynamoDB bean mapper, the Lambda container's
+ * event models and the Lambda runtime interface client.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final MemberCategory[] ALL_MEMBERS = {
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+            MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+            MemberCategory.INVOKE_DECLARED_METHODS,
+            MemberCategory.INVOKE_PUBLIC_METHODS,
+            MemberCategory.DECLARED_FIELDS
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // BeanTableSchema introspects getters/setters and calls the no-arg constructor
+        hints.reflection().registerType(MusicTrack.class, ALL_MEMBERS);
+        hints.reflection().registerType(MusicTrack.MusicTrackBuilder.class, ALL_MEMBERS);
+
+        // loaded by name by the runtime interface client
+        hints.reflection().registerType(StreamLambdaHandler.class, ALL_MEMBERS);
+        hints.reflection().registerType(PrimingContext.class, ALL_MEMBERS);
+
+        Stream.of("HttpApiV2ProxyRequest", "HttpApiV2ProxyRequestContext", "HttpApiV2HttpContext",
+                        "HttpApiV2AuthorizerMap", "HttpApiV2AuthorizerMap$HttpApiV2AuthorizerDeserializer",
+                        "HttpApiV2AuthorizerMap$HttpApiV2AuthorizerSerializer", "HttpApiV2JwtAuthorizer",
+                        "HttpApiV2IamAuthorizer", "AwsProxyRequest", "AwsProxyRequestContext", "AwsProxyResponse",
+                        "ApiGatewayRequestIdentity", "ApiGatewayAuthorizerContext", "CognitoAuthorizerClaims",
+                        "AlbContext", "Headers", "SingleValueHeaders", "MultiValuedTreeMap", "ErrorModel")
+                .map(name -> TypeReference.of("com.amazonaws.serverless.proxy.model." + name))
+                .forEach(type -> hints.reflection().registerType(type, ALL_MEMBERS));
+
+        TypeReference nativeClient = TypeReference.of(
+                "com.amazonaws.services.lambda.runtime.api.client.runtimeapi.NativeClient");
+        TypeReference invocationRequest = TypeReference.of(
+                "com.amazonaws.services.lambda.runtime.api.client.runtimeapi.InvocationRequest");
+        hints.jni().registerType(nativeClient, ALL_MEMBERS);
+        hints.jni().registerType(invocationRequest, ALL_MEMBERS);
+        hints.reflection().registerType(invocationRequest, ALL_MEMBERS);
+        hints.resources().registerPattern("jni/*.so");
+
+        // SDK interceptor lists and endpoint/partition metadata
+        hints.resources().registerPattern("software/amazon/awssdk/global/handlers/execution.interceptors");
+        hints.resources().registerPattern("software/amazon/awssdk/services/*/execution.interceptors");
+        hints.resources().registerPattern("software/amazon/awssdk/global/partitions.json");
+        hints.resources().registerPattern("software/amazon/awssdk/services/*/partitions.json");
+    }
+}
@@ -0,0 +1,44 @@
+package com.musify.api.config;
+
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Async counterpart of {@link RefreshableHttpClient}.
+ */
+public class RefreshableAsyncHttpClient implements SdkAsyncHttpClient {
+
+    private final Supplier<SdkAsyncHttpClient> factory;
+    private final AtomicReference<SdkAsyncHttpClient> delegate;
+
+    public RefreshableAsyncHttpClient(Supplier<SdkAsyncHttpClient> factory) {
+        this.factory = factory;
+        this.delegate = new AtomicReference<>(factory.get());
+    }
+
+    @Override
+    public CompletableFuture<Void> execute(AsyncExecuteRequest request) {
+        return delegate.get().execute(request);
+    }
+
+    @Override
+    public String clientName() {
+        return delegate.get().clientName();
+    }
+
+    /**
+     * Aborts any call still using the old pool, so only call it while idle, e.g. on restore.
+     */
+    public void refresh() {
+        delegate.getAndSet(factory.get()).close();
+    }
+
+    @Override
+    public void close() {
+        delegate.get().close();
+    }
+}
@@ -0,0 +1,32 @@
+package com.musify.api.config;
+
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Default credentials chain that can be thrown away and rebuilt. A JVM restored
+ * from a SnapStart/CRaC snapshot must not keep credentials resolved at checkpoint.
+ */
+public class RefreshableCredentialsProvider implements AwsCredentialsProvider, SdkAutoCloseable {
+
+    private final AtomicReference<DefaultCredentialsProvider> delegate =
+            new AtomicReference<>(DefaultCredentialsProvider.builder().build());
+
+    @Override
+    public AwsCredentials resolveCredentials() {
+        return delegate.get().resolveCredentials();
+    }
+
+    public void refresh() {
+        delegate.getAndSet(DefaultCredentialsProvider.builder().build()).close();
+    }
+
+    @Override
+    public void close() {
+        delegate.get().close();
+    }
+}
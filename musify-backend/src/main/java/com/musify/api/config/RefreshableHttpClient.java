@@ -0,0 +1,45 @@
+package com.musify.api.config;
+
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.SdkHttpClient;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * HTTP client whose connection pool can be thrown away and rebuilt. Connections
+ * pooled before a SnapStart/CRaC checkpoint are dead after restore.
+ */
+public class RefreshableHttpClient implements SdkHttpClient {
+
+    private final Supplier<SdkHttpClient> factory;
+    private final AtomicReference<SdkHttpClient> delegate;
+
+    public RefreshableHttpClient(Supplier<SdkHttpClient> factory) {
+        this.factory = factory;
+        this.delegate = new AtomicReference<>(factory.get());
+    }
+
+    @Override
+    public ExecutableHttpRequest prepareRequest(HttpExecuteRequest request) {
+        return delegate.get().prepareRequest(request);
+    }
+
+    @Override
+    public String clientName() {
+        return delegate.get().clientName();
+    }
+
+    /**
+     * Aborts any call still using the old pool, so only call it while idle, e.g. on restore.
+     */
+    public void refresh() {
+        delegate.getAndSet(factory.get()).close();
+    }
+
+    @Override
+    public void close() {
+        delegate.get().close();
+    }
+}
@@ -0,0 +1,67 @@
+package com.musify.api.controller;
+
+import com.musify.api.audio.AudioInfo;
+import com.musify.api.config.AdminOnly;
+import com.musify.api.dto.AudioBackfillResponse;
+import com.musify.api.service.AudioMetadataService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/musictrack/metadata/audio")
+@RequiredArgsConstructor
+@Slf4j
+public class AudioMetadataController {
+
+    private final AudioMetadataService audioMetadataService;
+
+    /**
+     * Reads duration, bitrate and sample rate of one track from its MP3 headers and stores them.
+     */
+    @PostMapping
+    public ResponseEntity<AudioInfo> extractAudioInfo(@RequestParam String artistName,
+            @RequestParam String songName) {
+        log.info("Request to read audio headers for artist: {} and song: {}", artistName, songName);
+        AudioInfo info;
+        try {
+            info = audioMetadataService.extractAndSave(artistName, songName);
+        } catch (NoSuchKeyException e) {
+            log.warn("Track {} has no object in S3", songName);
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IOException e) {
+            log.warn("Could not read audio headers for song: {}: {}", songName, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        } catch (S3Exception e) {
+            // 416: the object is empty, or shorter than its headers claim
+            if (e.statusCode() != HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                throw e;
+            }
+            log.warn("Could not read audio headers for song: {}: {}", songName, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        if (info == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok(info);
+    }
+
+    /**
+     * Same as {@link #extractAudioInfo} for the whole catalog.
+     *
+     * @param onlyMissing skip tracks that were already processed
+     */
+    @AdminOnly
+    @PostMapping("/backfill")
+    public ResponseEntity<AudioBackfillResponse> backfillAudioInfo(
+            @RequestParam(required = false, defaultValue = "true") boolean onlyMissing) {
+        log.info("Request to backfill audio info, onlyMissing={}", onlyMissing);
+        return ResponseEntity.ok(audioMetadataService.backfill(onlyMissing));
+    }
+}
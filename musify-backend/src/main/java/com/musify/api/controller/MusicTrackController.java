@@ -1,19 +1,55 @@
 package com.musify.api.controller;
 
+import com.musify.api.config.AdminOnly;
+import com.musify.api.dto.BulkIngestResponse;
+import com.musify.api.dto.Completion;
+import com.musify.api.dto.MultipartCompleteRequest;
+import com.musify.api.dto.MultipartPartUrlsRequest;
+import com.musify.api.dto.MultipartPartUrlsResponse;
+import com.musify.api.dto.MultipartUploadResponse;
 import com.musify.api.dto.MusicTrackRequest;
 import com.musify.api.dto.UploadUrlResponse;
 import com.musify.api.dto.PaginatedResponse;
+import com.musify.api.dto.StreamUrlBatchRequest;
+import com.musify.api.dto.StreamUrlBatchResponse;
+import com.musify.api.dto.TrendingTrack;
 import com.musify.api.model.MusicTrack;
+import com.musify.api.model.TrackField;
+import com.musify.api.repository.TrackOrder;
+import com.musify.api.service.CatalogEtagService;
+import com.musify.api.service.HlsService;
+import com.musify.api.service.MusicTrackExportService;
+import com.musify.api.service.MusicTrackIngestService;
 import com.musify.api.service.MusicTrackService;
+import com.musify.api.service.PlayCountService;
+import com.musify.api.service.TrackJsonWriter;
+import com.musify.api.service.TrendingService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
 @RestController
 @RequestMapping("/api/musictrack")
@@ -21,10 +57,20 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class MusicTrackController {
 
+    // larger pages would be cut short by DynamoDB's 1 MB per call anyway
+    private static final int MAX_PAGE_LIMIT = 1000;
+    private static final int MAX_AUTOCOMPLETE_LIMIT = 50;
+
     private final MusicTrackService musicTrackService;
+    private final MusicTrackIngestService musicTrackIngestService;
+    private final MusicTrackExportService musicTrackExportService;
+    private final CatalogEtagService catalogEtagService;
+    private final TrackJsonWriter trackJsonWriter;
+    private final PlayCountService playCountService;
+    private final TrendingService trendingService;
 
     @GetMapping("/upload-url")
-    public ResponseEntity<UploadUrlResponse> getUploadUrl(@RequestParam String artistName,
+    public CompletableFuture<ResponseEntity<UploadUrlResponse>> getUploadUrl(@RequestParam String artistName,
             @RequestParam String songName) {
         log.info("Request to get upload URL for artist: {} and song: {}", artistName, songName);
 
@@ -35,15 +81,91 @@ public class MusicTrackController {
             log.info("Decoded Request to get upload URL for artist: {} and song: {}", artistName, songName);
         } catch (Exception e) {
             log.error("Failed to decode artist name or song name", e);
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        // the S3 key is split at its last slash, so only the artist may contain one
+        if (songName.contains("/")) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return musicTrackService.getUploadUrl(artistName, songName).thenApply(uploadUrl -> {
+            log.info("Generated upload URL successfully for key: {}", uploadUrl.s3Key());
+            return new ResponseEntity<>(uploadUrl, HttpStatus.OK);
+        });
+    }
+
+    /**
+     * Starts a multipart upload for a large file. Upload the parts to URLs from
+     * {@code /upload/multipart/parts}, then call {@code /upload/multipart/complete}
+     * or abort it with {@code DELETE /upload/multipart}.
+     */
+    @PostMapping("/upload/multipart")
+    public CompletableFuture<ResponseEntity<MultipartUploadResponse>> createMultipartUpload(
+            @RequestParam String artistName, @RequestParam String songName) {
+        log.info("Request to create multipart upload for artist: {} and song: {}", artistName, songName);
+        if (songName.contains("/")) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return musicTrackService.createMultipartUpload(artistName, songName).thenApply(upload -> {
+            log.info("Created multipart upload for key: {}", upload.s3Key());
+            return new ResponseEntity<>(upload, HttpStatus.CREATED);
+        });
+    }
+
+    /**
+     * Presigns PUT URLs for a batch of parts. Ask again for a part whose upload failed.
+     *
+     * @return the preSigned URL for every requested part number
+     */
+    @PostMapping("/upload/multipart/parts")
+    public ResponseEntity<MultipartPartUrlsResponse> getUploadPartUrls(
+            @Valid @RequestBody MultipartPartUrlsRequest request) {
+        log.info("Request to sign {} part URLs for upload {}", request.getPartNumbers().size(), request.getUploadId());
+        if (!request.getS3Key().startsWith(MusicTrackService.TRACK_KEY_PREFIX)) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
-        UploadUrlResponse uploadUrl = musicTrackService.getUploadUrl(artistName, songName);
-        log.info("Generated upload URL successfully for key: {}", uploadUrl.s3Key());
-        return new ResponseEntity<>(uploadUrl, HttpStatus.OK);
+        MultipartPartUrlsResponse response = new MultipartPartUrlsResponse(musicTrackService.getUploadPartUrls(
+                request.getS3Key(), request.getUploadId(), request.getPartNumbers()));
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @PostMapping("/upload/multipart/complete")
+    public ResponseEntity<Void> completeMultipartUpload(@Valid @RequestBody MultipartCompleteRequest request) {
+        log.info("Request to complete multipart upload {} with {} parts", request.getUploadId(),
+                request.getParts().size());
+        if (!request.getS3Key().startsWith(MusicTrackService.TRACK_KEY_PREFIX)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Map<Integer, String> parts = new HashMap<>();
+        request.getParts().forEach(part -> parts.put(part.getPartNumber(), part.getEtag()));
+        try {
+            musicTrackService.completeMultipartUpload(request.getS3Key(), request.getUploadId(), parts);
+        } catch (NoSuchUploadException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (S3Exception e) {
+            // e.g. InvalidPart or EntityTooSmall: the client can re-upload parts and try again
+            log.warn("Could not complete multipart upload {}: {}", request.getUploadId(), e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        log.info("Multipart upload completed for key: {}", request.getS3Key());
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @DeleteMapping("/upload/multipart")
+    public ResponseEntity<Void> abortMultipartUpload(@RequestParam String s3Key, @RequestParam String uploadId) {
+        log.info("Request to abort multipart upload {} for key: {}", uploadId, s3Key);
+        if (!s3Key.startsWith(MusicTrackService.TRACK_KEY_PREFIX)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            musicTrackService.abortMultipartUpload(s3Key, uploadId);
+        } catch (NoSuchUploadException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
     @PostMapping("/metadata")
-    public ResponseEntity<MusicTrack> uploadMetadata(@Valid @RequestBody MusicTrackRequest musicTrackRequest) {
+    public CompletableFuture<ResponseEntity<MusicTrack>> uploadMetadata(@Valid @RequestBody MusicTrackRequest musicTrackRequest) {
         log.info("Request to save metadata for song: {}", musicTrackRequest.getSongName());
         log.debug("Payload: {}", musicTrackRequest);
         MusicTrack musicTrackToSave = MusicTrack.builder()
@@ -53,9 +175,86 @@ public class MusicTrackController {
                 .duration(musicTrackRequest.getDuration())
                 .build();
 
-        MusicTrack addMusicTrack = musicTrackService.addMusicTrack(musicTrackToSave);
-        log.info("Metadata saved successfully for songId: {}", addMusicTrack.getS3Key());
-        return new ResponseEntity<>(addMusicTrack, HttpStatus.CREATED);
+        return musicTrackService.addMusicTrack(musicTrackToSave).thenApply(addMusicTrack -> {
+            log.info("Metadata saved successfully for songId: {}", addMusicTrack.getS3Key());
+            trendingService.recordUpload(addMusicTrack.getS3Key());
+            return new ResponseEntity<>(addMusicTrack, HttpStatus.CREATED);
+        });
+    }
+
+    /**
+     * Imports many tracks at once from a JSON array or an NDJSON stream.
+     *
+     * @return per-item results plus totals and throughput
+     */
+    @PostMapping(value = "/metadata/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkIngestResponse> uploadMetadataBulk(InputStream body) throws IOException {
+        log.info("Request to bulk save metadata");
+        BulkIngestResponse response = musicTrackIngestService.ingest(body);
+        log.info("Bulk metadata saved: {} created, {} duplicate, {} invalid, {} failed", response.getCreated(),
+                response.getDuplicate(), response.getInvalid(), response.getFailed());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Streams the whole catalog as NDJSON, one track per line, written as the Scan
+     * returns pages. Gzip-compressed when the client accepts it.
+     *
+     * @param fields attributes to include, e.g. {@code fields=artistName,songName}; all by default
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportCatalog(@RequestParam(required = false) List<String> fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) throws IOException {
+        log.info("Request to export catalog with fields={}", fields);
+        List<String> unknownFields = TrackField.unknown(fields);
+        if (!unknownFields.isEmpty()) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Unknown fields: " + unknownFields);
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        boolean gzip = acceptsGzip(acceptEncoding);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            // syncFlush so each flush pushes the rows compressed so far to the client
+            out = new GZIPOutputStream(out, 8192, true);
+        }
+        musicTrackExportService.export(out, TrackField.select(fields, List.of(TrackField.values())));
+        if (gzip) {
+            ((GZIPOutputStream) out).finish();
+        }
+    }
+
+    /**
+     * The most played tracks of the last hour or so, served from memory.
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingTrack>> getTrending(
+            @RequestParam(required = false, defaultValue = "20") int limit) {
+        log.debug("Request to get {} trending tracks", limit);
+        return ResponseEntity.ok(trendingService.getTrending(limit));
+    }
+
+    /**
+     * Artists and songs whose name starts with {@code prefix}, ignoring case, most
+     * played first. Meant for a search box: served from memory, not by a Scan.
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<Completion>> autocomplete(@RequestParam(required = false) String prefix,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        log.debug("Request to autocomplete prefix={}, limit={}", prefix, limit);
+        if (prefix == null || prefix.isBlank() || limit <= 0) {
+            return ResponseEntity.ok(List.of());
+        }
+        return ResponseEntity.ok(musicTrackService.autocomplete(prefix, Math.min(limit, MAX_AUTOCOMPLETE_LIMIT)));
     }
 
     @GetMapping("/{songId}")
@@ -66,28 +265,191 @@ public class MusicTrackController {
         return new ResponseEntity<>(musicTrack, HttpStatus.OK);
     }
 
+    /**
+     * Listing pages are written by {@link TrackJsonWriter} rather than the message
+     * converter, gzip-compressed when the client accepts it.
+     *
+     * @param fields attributes to include, e.g. {@code fields=artistName,songName}; all but the
+     *               lowercase search copies by default
+     */
     @GetMapping
-    public ResponseEntity<PaginatedResponse> getAllSongs(
+    public CompletableFuture<ResponseEntity<byte[]>> getAllSongs(
             @RequestParam(required = false, defaultValue = "20") int limit,
             @RequestParam(required = false) String nextToken,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false, defaultValue = "false") boolean includeStreamUrls,
+            @RequestParam(required = false) List<String> fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         log.info("Request to get all songs with limit={}, nextToken={}, search={}", limit, nextToken, search);
+        if (!isPageLimit(limit) || !TrackField.unknown(fields).isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        List<TrackField> selected = TrackField.select(fields, TrackField.LISTED);
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        String etag = catalogEtagService.etag("all", limit, nextToken, search, includeStreamUrls, selected, gzip);
+        return conditionalPage(ifNoneMatch, etag, selected, gzip, () -> musicTrackService.getAllSongs(limit,
+                nextToken, search, includeStreamUrls, selected).thenApply(response -> {
+            log.info("Returned {} songs, nextToken present: {}", response.getItems().size(),
+                    response.getNextToken() != null);
+            return response;
+        }));
+    }
+
+    /**
+     * One artist's songs in songName order, read with a DynamoDB Query.
+     *
+     * @param songPrefix only songs whose name starts with it (case-sensitive)
+     */
+    @GetMapping("/artist/{artistName}")
+    public CompletableFuture<ResponseEntity<byte[]>> getArtistSongs(@PathVariable String artistName,
+            @RequestParam(required = false) String songPrefix,
+            @RequestParam(required = false, defaultValue = "20") int limit,
+            @RequestParam(required = false) String nextToken,
+            @RequestParam(required = false, defaultValue = "false") boolean includeStreamUrls,
+            @RequestParam(required = false) List<String> fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Request to get songs of artist={} with songPrefix={}, limit={}", artistName, songPrefix, limit);
+        if (!isPageLimit(limit) || !TrackField.unknown(fields).isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        List<TrackField> selected = TrackField.select(fields, TrackField.LISTED);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = catalogEtagService.etag("artist", artistName, songPrefix, limit, nextToken, includeStreamUrls,
+                selected, gzip);
+        return conditionalPage(ifNoneMatch, etag, selected, gzip, () -> musicTrackService.getArtistSongs(artistName,
+                songPrefix, limit, nextToken, includeStreamUrls, selected));
+    }
 
-        PaginatedResponse response = musicTrackService.getAllSongs(limit, nextToken, search);
+    /**
+     * The whole catalog ordered by a listing index.
+     *
+     * @param by {@code uploadedAt} or {@code duration}
+     * @param order {@code asc} or {@code desc}
+     */
+    @GetMapping("/sorted")
+    public CompletableFuture<ResponseEntity<byte[]>> getSortedSongs(
+            @RequestParam(required = false, defaultValue = "uploadedAt") String by,
+            @RequestParam(required = false, defaultValue = "desc") String order,
+            @RequestParam(required = false, defaultValue = "20") int limit,
+            @RequestParam(required = false) String nextToken,
+            @RequestParam(required = false, defaultValue = "false") boolean includeStreamUrls,
+            @RequestParam(required = false) List<String> fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Request to get songs sorted by {} {}, limit={}", by, order, limit);
+        TrackOrder trackOrder = TrackOrder.fromAttribute(by);
+        if (trackOrder == null || !(order.equals("asc") || order.equals("desc")) || !isPageLimit(limit)
+                || !TrackField.unknown(fields).isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        List<TrackField> selected = TrackField.select(fields, TrackField.LISTED);
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = catalogEtagService.etag("sorted", by, order, limit, nextToken, includeStreamUrls, selected,
+                gzip);
+        return conditionalPage(ifNoneMatch, etag, selected, gzip, () -> musicTrackService.getSortedSongs(trackOrder,
+                order.equals("asc"), limit, nextToken, includeStreamUrls, selected));
+    }
 
-        log.info("Returned {} songs, nextToken present: {}", response.getItems().size(),
-                response.getNextToken() != null);
+    private static boolean isPageLimit(int limit) {
+        return limit >= 1 && limit <= MAX_PAGE_LIMIT;
+    }
 
-        return ResponseEntity.ok(response);
+    // a client that already has this version of the page gets a 304 without the page being read
+    private CompletableFuture<ResponseEntity<byte[]>> conditionalPage(String ifNoneMatch, String etag,
+            List<TrackField> fields, boolean gzip, Supplier<CompletableFuture<PaginatedResponse>> page) {
+        if (catalogEtagService.matches(ifNoneMatch, etag)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(catalogEtagService.cacheControl())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build());
+        }
+        return page.get().thenApply(response -> {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(etag)
+                    .cacheControl(catalogEtagService.cacheControl())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            try {
+                return builder.body(trackJsonWriter.writePage(response, fields, gzip));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     /**
+     * Whether to gzip a response, per the request's Accept-Encoding. Gzip is refused
+     * when its q-value is 0 or below that of {@code identity}; {@code *} stands for
+     * either one when it isn't listed.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double identity = -1;
+        double any = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.length() > 2 && param.substring(0, 2).equalsIgnoreCase("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case "gzip", "x-gzip" -> gzip = Math.max(gzip, q);
+                case "identity" -> identity = q;
+                case "*" -> any = q;
+                default -> {
+                }
+            }
+        }
+        if (gzip < 0) {
+            gzip = Math.max(any, 0);
+        }
+        if (identity < 0) {
+            // identity is acceptable unless excluded, but an unlisted one carries no preference
+            identity = Math.max(any, 0);
+        }
+        return gzip > 0 && gzip >= identity;
+    }
+
+    /**
+     * Adds tracks saved before the listing indexes existed to them, and moves
+     * tracks to their listing shard.
      *
+     * @return the number of tracks updated
+     */
+    @AdminOnly
+    @PostMapping("/sorted/backfill")
+    public ResponseEntity<Long> backfillListingAttributes() {
+        log.info("Request to backfill listing attributes");
+        return ResponseEntity.ok(musicTrackService.backfillListingAttributes());
+    }
+
+    /**
+     *
+     * @param format {@code hls} for an HLS playlist with presigned segment URLs instead
      * @return String - the preSigned URL to stream the song
      */
     @GetMapping("/stream")
-    public ResponseEntity<String> streamSong(@RequestParam String key) {
-        log.info("Request to stream song with key: {}", key);
+    public ResponseEntity<String> streamSong(@RequestParam String key,
+            @RequestParam(required = false, defaultValue = "mp3") String format) {
+        log.info("Request to stream song with key: {}, format: {}", key, format);
 
         try {
             key = URLDecoder.decode(key, "UTF-8");
@@ -97,11 +459,61 @@ public class MusicTrackController {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
+        if ("hls".equalsIgnoreCase(format)) {
+            String playlist = musicTrackService.getHlsPlaylist(key);
+            if (playlist == null) {
+                log.info("No HLS playlist for key: {}", key);
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            playCountService.record(key);
+            trendingService.recordPlay(key);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(HlsService.PLAYLIST_CONTENT_TYPE))
+                    .body(playlist);
+        }
+
         String streamUrl = musicTrackService.getStreamUrl(key);
+        playCountService.record(key);
+        trendingService.recordPlay(key);
         log.debug("Stream URL generated successfully");
         return new ResponseEntity<>(streamUrl, HttpStatus.OK);
     }
 
+    /**
+     * Cuts the track into HLS segments now, e.g. for tracks uploaded before segmentation was enabled.
+     *
+     * @return the number of segments written
+     */
+    @AdminOnly
+    @PostMapping("/stream/hls")
+    public ResponseEntity<Integer> segmentSong(@RequestParam String key) {
+        log.info("Request to segment song with key: {}", key);
+        int segments;
+        try {
+            segments = musicTrackService.segmentTrack(key);
+        } catch (NoSuchKeyException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (IOException e) {
+            log.warn("Could not segment song with key: {}: {}", key, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        log.info("Segmented song into {} segments", segments);
+        return new ResponseEntity<>(segments, HttpStatus.CREATED);
+    }
+
+    /**
+     * Presigns stream URLs for a whole playlist or prefetch queue in one round trip.
+     *
+     * @return the preSigned URL for every requested key
+     */
+    @PostMapping("/stream/batch")
+    public ResponseEntity<StreamUrlBatchResponse> streamSongs(@Valid @RequestBody StreamUrlBatchRequest request) {
+        log.info("Request to stream {} songs", request.getKeys().size());
+        StreamUrlBatchResponse response = new StreamUrlBatchResponse(musicTrackService.getStreamUrls(request.getKeys()));
+        log.debug("Stream URLs generated successfully");
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     @DeleteMapping("/{songId}")
     public ResponseEntity<Void> deleteSong(@PathVariable String songId) {
         log.info("Request to delete song with ID: {}", songId);
@@ -0,0 +1,109 @@
+package com.musify.api.controller;
+
+import com.musify.api.service.PlayCountService;
+import com.musify.api.service.StreamProxyService;
+import com.musify.api.service.TrackFileCache;
+import com.musify.api.service.TrendingService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.*;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/musictrack/stream")
+@ConditionalOnProperty(name = "musify.stream.proxy.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class StreamProxyController {
+
+    private final StreamProxyService streamProxyService;
+    private final PlayCountService playCountService;
+    private final TrendingService trendingService;
+
+    /**
+     * Streams the track bytes through this server, honouring a single {@code Range}
+     * ({@code bytes=start-end}, {@code bytes=start-} or {@code bytes=-suffix}).
+     * Multi-range requests get the whole track.
+     */
+    @GetMapping("/proxy")
+    public void proxySong(@RequestParam String key,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            HttpServletResponse response) throws IOException {
+        log.debug("Request to proxy song with key: {}, range: {}", key, rangeHeader);
+
+        TrackFileCache.OpenFile file;
+        try {
+            file = streamProxyService.open(key);
+        } catch (NoSuchKeyException e) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "No such track: " + key);
+            return;
+        }
+        // the channel stays readable even if the file is evicted while we send it
+        try (file) {
+            send(key, file, rangeHeader, response);
+        }
+    }
+
+    private void send(String key, TrackFileCache.OpenFile file, String rangeHeader,
+            HttpServletResponse response) throws IOException {
+        long length = file.length();
+        long start = 0;
+        long end = length - 1;
+        HttpStatus status = HttpStatus.OK;
+        if (rangeHeader != null) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    status = HttpStatus.PARTIAL_CONTENT;
+                }
+            } catch (IllegalArgumentException e) {
+                status = HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
+            }
+            if (status == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE || start >= length || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+
+        // players fetch a track in several ranges; count the one from the start
+        if (start == 0) {
+            playCountService.record(key);
+            trendingService.recordPlay(key);
+        }
+        long count = end - start + 1;
+        response.setStatus(status.value());
+        response.setContentType(MediaTypeFactory.getMediaType(key)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentLengthLong(count);
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        long sent = 0;
+        while (sent < count) {
+            long n = file.channel().transferTo(start + sent, count - sent, out);
+            if (n <= 0) {
+                break;
+            }
+            sent += n;
+        }
+        streamProxyService.recordBytesServed(sent);
+    }
+}
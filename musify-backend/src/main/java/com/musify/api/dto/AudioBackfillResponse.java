@@ -0,0 +1,19 @@
+package com.musify.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AudioBackfillResponse {
+    private long scanned;
+    private long updated;
+    private long skipped;
+    private long failed;
+    private long elapsedMillis;
+    private double tracksPerSecond;
+}
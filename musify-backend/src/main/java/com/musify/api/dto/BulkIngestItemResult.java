@@ -0,0 +1,11 @@
+package com.musify.api.dto;
+
+import java.util.List;
+
+public record BulkIngestItemResult(int index, String artistName, String songName, Status status,
+                                   List<String> messages) {
+
+    public enum Status {
+        CREATED, DUPLICATE, INVALID, FAILED
+    }
+}
@@ -0,0 +1,23 @@
+package com.musify.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkIngestResponse {
+    private int received;
+    private int created;
+    private int duplicate;
+    private int invalid;
+    private int failed;
+    private long elapsedMillis;
+    private double itemsPerSecond;
+    private List<BulkIngestItemResult> results;
+}
@@ -0,0 +1,14 @@
+package com.musify.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * An autocomplete suggestion: an artist, or one of an artist's songs.
+ *
+ * @param songName null when the artist's name is the completion
+ * @param weight   plays of the song, or of all the artist's songs
+ */
+public record Completion(String artistName, @JsonInclude(JsonInclude.Include.NON_NULL) String songName,
+                         long weight) {
+
+}
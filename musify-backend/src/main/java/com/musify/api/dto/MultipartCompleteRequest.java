@@ -0,0 +1,33 @@
+package com.musify.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MultipartCompleteRequest {
+
+    @NotBlank(message = "S3 key is required")
+    private String s3Key;
+
+    @NotBlank(message = "Upload ID is required")
+    private String uploadId;
+
+    @NotEmpty(message = "At least one part is required")
+    private List<@Valid Part> parts;
+
+    @Data
+    public static class Part {
+        @NotNull(message = "Part number is required")
+        private Integer partNumber;
+
+        // the ETag header S3 returned for the part's PUT
+        @NotBlank(message = "ETag is required")
+        private String etag;
+    }
+
+}
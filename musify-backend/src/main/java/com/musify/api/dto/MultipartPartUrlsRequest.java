@@ -0,0 +1,29 @@
+package com.musify.api.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MultipartPartUrlsRequest {
+    public static final int MAX_PARTS = 100;
+
+    @NotBlank(message = "S3 key is required")
+    private String s3Key;
+
+    @NotBlank(message = "Upload ID is required")
+    private String uploadId;
+
+    // S3 numbers parts 1 to 10000
+    @NotEmpty(message = "At least one part number is required")
+    @Size(max = MAX_PARTS, message = "At most " + MAX_PARTS + " part URLs can be signed per request")
+    private List<@NotNull @Min(value = 1, message = "Part numbers start at 1")
+            @Max(value = 10000, message = "Part numbers end at 10000") Integer> partNumbers;
+
+}
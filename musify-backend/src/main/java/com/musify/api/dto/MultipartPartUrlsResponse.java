@@ -0,0 +1,10 @@
+package com.musify.api.dto;
+
+import java.util.Map;
+
+/**
+ * @param urls presigned PUT URL by part number
+ */
+public record MultipartPartUrlsResponse(Map<Integer, String> urls) {
+
+}
@@ -0,0 +1,5 @@
+package com.musify.api.dto;
+
+public record MultipartUploadResponse(String s3Key, String uploadId) {
+
+}
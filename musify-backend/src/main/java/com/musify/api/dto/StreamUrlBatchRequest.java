@@ -0,0 +1,18 @@
+package com.musify.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class StreamUrlBatchRequest {
+    public static final int MAX_KEYS = 100;
+
+    @NotEmpty(message = "At least one key is required")
+    @Size(max = MAX_KEYS, message = "At most " + MAX_KEYS + " keys can be signed per request")
+    private List<@NotBlank(message = "Keys must not be blank") String> keys;
+
+}
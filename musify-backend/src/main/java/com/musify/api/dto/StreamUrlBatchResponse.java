@@ -0,0 +1,7 @@
+package com.musify.api.dto;
+
+import java.util.Map;
+
+public record StreamUrlBatchResponse(Map<String, String> urls) {
+
+}
@@ -0,0 +1,9 @@
+package com.musify.api.dto;
+
+/**
+ * @param score plays (and weighted uploads) in the trending window, estimated: it
+ *              may overcount slightly but never undercounts
+ */
+public record TrendingTrack(String artistName, String songName, String s3Key, long score) {
+
+}
@@ -0,0 +1,22 @@
+package com.musify.api.exception;
+
+import java.time.Duration;
+
+/**
+ * A backend call was turned away by its bulkhead, or the backend throttled it.
+ * Answered with 503 and {@code Retry-After}, see {@link GlobalExceptionHandler}.
+ */
+public class OverloadedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public OverloadedException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
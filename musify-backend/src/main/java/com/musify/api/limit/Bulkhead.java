@@ -0,0 +1,118 @@
+package com.musify.api.limit;
+
+import com.musify.api.exception.OverloadedException;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Admits calls to one backend up to the limit of its {@link GradientLimiter} and
+ * turns the rest away with {@link OverloadedException} rather than letting them
+ * wait. A call the backend throttled or that timed out fails with the same
+ * exception, so the caller sheds it the same way.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final GradientLimiter limiter;
+    private final Duration retryAfter;
+
+    public Bulkhead(String name, GradientLimiter limiter, Duration retryAfter) {
+        this.name = name;
+        this.limiter = limiter;
+        this.retryAfter = retryAfter;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        acquire();
+        long start = System.nanoTime();
+        boolean overload = false;
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            overload = isOverload(e);
+            throw overload ? overloaded(e) : e;
+        } finally {
+            limiter.release(System.nanoTime() - start, overload);
+        }
+    }
+
+    public void run(Runnable call) {
+        call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * The permit is held until the returned future completes. A rejection is
+     * thrown rather than returned as a failed future, so nothing further is started.
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> call) {
+        acquire();
+        long start = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> done = new CompletableFuture<>();
+        result.whenComplete((value, error) -> {
+            boolean overload = error != null && isOverload(error);
+            limiter.release(System.nanoTime() - start, overload);
+            if (error == null) {
+                done.complete(value);
+            } else {
+                done.completeExceptionally(overload ? overloaded(error) : error);
+            }
+        });
+        return done;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public GradientLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * @return true if {@code error} means the backend is throttling or too slow to answer
+     */
+    public static boolean isOverload(Throwable error) {
+        Throwable cause = unwrap(error);
+        return cause instanceof OverloadedException
+                || cause instanceof AwsServiceException aws && aws.isThrottlingException()
+                || cause instanceof ApiCallTimeoutException
+                || cause instanceof ApiCallAttemptTimeoutException;
+    }
+
+    private void acquire() {
+        if (!limiter.tryAcquire()) {
+            throw new OverloadedException("Too many concurrent " + name + " calls", retryAfter, null);
+        }
+    }
+
+    private OverloadedException overloaded(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof OverloadedException overloaded) {
+            return overloaded;
+        }
+        return new OverloadedException("Backend overloaded during a " + name + " call: " + cause.getMessage(),
+                retryAfter, cause);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
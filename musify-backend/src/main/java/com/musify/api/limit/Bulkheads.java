@@ -0,0 +1,112 @@
+package com.musify.api.limit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * One bulkhead per kind of backend call, so a burst of slow searches can't use up
+ * the concurrency that writes and point reads need. Each limit starts at
+ * {@code musify.bulkhead.initial-limit} and then follows that kind's latency.
+ */
+@Component
+@RequiredArgsConstructor
+public class Bulkheads {
+
+    private final MeterRegistry meterRegistry;
+
+    // off: no call is turned away, but throttling still fails fast with a 503
+    @Value("${musify.bulkhead.enabled:true}")
+    private boolean enabled;
+
+    @Value("${musify.bulkhead.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${musify.bulkhead.min-limit:2}")
+    private int minLimit;
+
+    // see musify.aws.dynamodb.max-connections
+    @Value("${musify.bulkhead.max-limit:50}")
+    private int maxLimit;
+
+    // how much slower than its usual latency a backend may get before the limit comes down
+    @Value("${musify.bulkhead.tolerance:1.5}")
+    private double tolerance;
+
+    @Value("${musify.bulkhead.retry-after:PT1S}")
+    private Duration retryAfter;
+
+    private Bulkhead write;
+    private Bulkhead search;
+    private Bulkhead read;
+    private Bulkhead s3;
+
+    @PostConstruct
+    public void init() {
+        write = bulkhead("write");
+        search = bulkhead("search");
+        read = bulkhead("read");
+        s3 = bulkhead("s3");
+    }
+
+    /**
+     * Puts, updates, deletes and batch writes.
+     */
+    public Bulkhead write() {
+        return write;
+    }
+
+    /**
+     * Listing Scans and Queries, and the BatchGetItem behind an index search.
+     */
+    public Bulkhead search() {
+        return search;
+    }
+
+    /**
+     * GetItem by key, after the lookup cache, and the key check before a bulk import.
+     */
+    public Bulkhead read() {
+        return read;
+    }
+
+    /**
+     * S3 calls made while serving a request, other than presigning.
+     */
+    public Bulkhead s3() {
+        return s3;
+    }
+
+    public List<Bulkhead> all() {
+        return List.of(write, search, read, s3);
+    }
+
+    private Bulkhead bulkhead(String name) {
+        GradientLimiter limiter = enabled
+                ? new GradientLimiter(initialLimit, minLimit, maxLimit, tolerance)
+                : new GradientLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, tolerance);
+        Gauge.builder("musify.bulkhead.limit", limiter, GradientLimiter::getLimit)
+                .description("Concurrent calls the bulkhead currently admits")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("musify.bulkhead.in-flight", limiter, GradientLimiter::getInFlight)
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("musify.bulkhead.rejected", limiter, GradientLimiter::getRejected)
+                .description("Calls turned away because the bulkhead was full")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("musify.bulkhead.dropped", limiter, GradientLimiter::getDropped)
+                .description("Calls the backend throttled or that timed out")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        return new Bulkhead(name, limiter, retryAfter);
+    }
+}
@@ -0,0 +1,117 @@
+package com.musify.api.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrency limit that follows observed latency, after Netflix's Gradient2
+ * limiter. A slow moving average of call latency is the baseline and a fast one
+ * is the current latency. While the current latency stays within
+ * {@code tolerance} times the baseline the limit grows by about sqrt(limit) per
+ * call. Once calls slow down it shrinks in proportion, by at most half per call.
+ * A call that was throttled or timed out cuts the limit by 10%. Callers over the
+ * limit are turned away instead of queued.
+ */
+public class GradientLimiter {
+
+    // sample windows of the fast and slow latency averages
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+    private static final double LONG_ALPHA = 2.0 / (500 + 1);
+    // share of each new estimate taken into the limit
+    private static final double SMOOTHING = 0.2;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile int currentLimit;
+
+    // guarded by this
+    private double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    public GradientLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.currentLimit = (int) limit;
+    }
+
+    /**
+     * @return true if the call may go ahead; it must then be ended with {@link #release}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= currentLimit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param rttNanos how long the call took
+     * @param overload the call was throttled or timed out
+     */
+    public void release(long rttNanos, boolean overload) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (overload) {
+            dropped.increment();
+        }
+        synchronized (this) {
+            if (overload) {
+                // the backend said so outright, no need to smooth it
+                setLimit(limit * DROP_BACKOFF);
+                return;
+            }
+            if (longRtt == 0) {
+                shortRtt = rttNanos;
+                longRtt = rttNanos;
+            }
+            shortRtt += SHORT_ALPHA * (rttNanos - shortRtt);
+            longRtt += LONG_ALPHA * (shortRtt - longRtt);
+            // after a slow period the baseline would stay high for a long time; pull it back down
+            if (longRtt / shortRtt > 2) {
+                longRtt *= 0.95;
+            }
+            // too few calls to tell whether more would be slower
+            if (inFlightBefore < limit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+            double newLimit = limit * gradient + Math.sqrt(limit);
+            setLimit(limit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+        }
+    }
+
+    private void setLimit(double newLimit) {
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        currentLimit = (int) limit;
+    }
+
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,42 @@
+package com.musify.api.metrics;
+
+import io.micrometer.core.instrument.step.StepRegistryConfig;
+
+import java.util.List;
+
+/**
+ * Settings for {@link EmfMeterRegistry}, read from {@code musify.metrics.emf.*}.
+ */
+public interface EmfConfig extends StepRegistryConfig {
+
+    @Override
+    default String prefix() {
+        return "musify.metrics.emf";
+    }
+
+    /**
+     * CloudWatch namespace the metrics are published under.
+     */
+    default String namespace() {
+        String namespace = get(prefix() + ".namespace");
+        return namespace != null ? namespace : "Musify";
+    }
+
+    /**
+     * Publish when {@link EmfMeterRegistry#flush} is called, with what was recorded
+     * since the last call, instead of every step from a background thread. For
+     * Lambda, where that thread is frozen between invocations.
+     */
+    default boolean perInvocation() {
+        return Boolean.parseBoolean(get(prefix() + ".per-invocation"));
+    }
+
+    /**
+     * Only meters whose name starts with one of these are published; JVM and
+     * process meters would otherwise add dozens of lines per step.
+     */
+    default List<String> includePrefixes() {
+        String prefixes = get(prefix() + ".include-prefixes");
+        return prefixes != null ? List.of(prefixes.split("\\s*,\\s*")) : List.of("musify.", "http.server.requests");
+    }
+}
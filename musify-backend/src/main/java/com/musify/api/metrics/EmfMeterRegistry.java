@@ -0,0 +1,217 @@
+package com.musify.api.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.step.StepMeterRegistry;
+import io.micrometer.core.instrument.util.NamedThreadFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Publishes meters as CloudWatch Embedded Metric Format lines on stdout. On
+ * Lambda, CloudWatch Logs turns those lines into metrics with no API calls from
+ * the function. Meters with the same tags share one line; each tag becomes a
+ * dimension. Timers publish count, sum and max in milliseconds plus any
+ * configured percentiles. Meters that saw nothing during the step are left out.
+ * <p>
+ * With {@link EmfConfig#perInvocation()} nothing is published in the background.
+ * The registry's step clock then moves one step per {@link #flush} instead of with
+ * time. Each flush publishes exactly what was recorded since the previous one,
+ * however long the process was frozen in between. A step meter that misses a whole
+ * step would otherwise roll over to zero.
+ */
+public class EmfMeterRegistry extends StepMeterRegistry {
+
+    // EMF allows at most 100 metrics per document
+    private static final int MAX_METRICS_PER_LINE = 100;
+
+    private final EmfConfig config;
+    private final Consumer<String> sink;
+    // real time for the documents' timestamps; the registry's clock may be a FlushClock
+    private final Clock wallClock;
+    private final FlushClock flushClock;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private record Datum(double value, String unit) {
+    }
+
+    /**
+     * @return a registry writing to stdout, already publishing in the background
+     *         unless it is in per-invocation mode
+     */
+    public static EmfMeterRegistry create(EmfConfig config, Clock clock) {
+        EmfMeterRegistry registry = new EmfMeterRegistry(config, clock, System.out::println);
+        if (registry.flushClock == null) {
+            registry.start(new NamedThreadFactory("emf-metrics-publisher"));
+        }
+        return registry;
+    }
+
+    // publishes only when asked to; see create
+    EmfMeterRegistry(EmfConfig config, Clock clock, Consumer<String> sink) {
+        this(config, clock, config.perInvocation() ? new FlushClock(config.step().toMillis(), clock) : null, sink);
+    }
+
+    private EmfMeterRegistry(EmfConfig config, Clock clock, FlushClock flushClock, Consumer<String> sink) {
+        super(config, flushClock != null ? flushClock : clock);
+        this.config = config;
+        this.sink = sink;
+        this.wallClock = clock;
+        this.flushClock = flushClock;
+    }
+
+    /**
+     * Publishes what was recorded since the last flush, in per-invocation mode. Call
+     * it after each invocation has been handled.
+     */
+    public void flush() {
+        if (flushClock == null || isClosed()) {
+            return;
+        }
+        flushClock.advance();
+        publish();
+    }
+
+    @Override
+    public void close() {
+        if (flushClock != null) {
+            flush();
+            // closing publishes the step before the clock's, which must not be the one just flushed
+            flushClock.advance();
+        }
+        super.close();
+    }
+
+    @Override
+    protected void publish() {
+        long timestamp = wallClock.wallTime();
+        Map<List<Tag>, Map<String, Datum>> lines = new LinkedHashMap<>();
+        for (Meter meter : getMeters()) {
+            String name = meter.getId().getName();
+            // percentile gauges are left out: their values go out with the timer or summary they belong to
+            if (meter.getId().syntheticAssociation() != null
+                    || config.includePrefixes().stream().noneMatch(name::startsWith)) {
+                continue;
+            }
+            Map<String, Datum> metrics = lines.computeIfAbsent(meter.getId().getTags(), tags -> new LinkedHashMap<>());
+            meter.use(
+                    gauge -> add(metrics, name, gauge.value(), "None"),
+                    counter -> addCount(metrics, name, counter.count()),
+                    timer -> addSnapshot(metrics, name, timer.takeSnapshot(), "Milliseconds"),
+                    summary -> addSnapshot(metrics, name, summary.takeSnapshot(),
+                            "bytes".equals(meter.getId().getBaseUnit()) ? "Bytes" : "None"),
+                    longTaskTimer -> add(metrics, name + ".active", longTaskTimer.activeTasks(), "Count"),
+                    timeGauge -> add(metrics, name, timeGauge.value(TimeUnit.MILLISECONDS), "Milliseconds"),
+                    functionCounter -> addCount(metrics, name, functionCounter.count()),
+                    functionTimer -> {
+                        if (functionTimer.count() > 0) {
+                            add(metrics, name + ".count", functionTimer.count(), "Count");
+                            add(metrics, name + ".sum", functionTimer.totalTime(TimeUnit.MILLISECONDS), "Milliseconds");
+                        }
+                    },
+                    other -> {
+                    });
+        }
+
+        lines.forEach((tags, metrics) -> {
+            List<Map.Entry<String, Datum>> entries = new ArrayList<>(metrics.entrySet());
+            for (int from = 0; from < entries.size(); from += MAX_METRICS_PER_LINE) {
+                sink.accept(document(timestamp, tags,
+                        entries.subList(from, Math.min(entries.size(), from + MAX_METRICS_PER_LINE))));
+            }
+        });
+    }
+
+    @Override
+    protected TimeUnit getBaseTimeUnit() {
+        return TimeUnit.MILLISECONDS;
+    }
+
+    private static void add(Map<String, Datum> metrics, String name, double value, String unit) {
+        if (Double.isFinite(value)) {
+            metrics.put(name, new Datum(value, unit));
+        }
+    }
+
+    private static void addCount(Map<String, Datum> metrics, String name, double count) {
+        if (count > 0) {
+            add(metrics, name, count, "Count");
+        }
+    }
+
+    private static void addSnapshot(Map<String, Datum> metrics, String name, HistogramSnapshot snapshot, String unit) {
+        if (snapshot.count() == 0) {
+            return;
+        }
+        boolean time = "Milliseconds".equals(unit);
+        add(metrics, name + ".count", snapshot.count(), "Count");
+        add(metrics, name + ".sum", time ? snapshot.total(TimeUnit.MILLISECONDS) : snapshot.total(), unit);
+        add(metrics, name + ".max", time ? snapshot.max(TimeUnit.MILLISECONDS) : snapshot.max(), unit);
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            // 0.99 -> p99, 0.999 -> p99.9
+            double p = Math.round(percentile.percentile() * 1000) / 10.0;
+            String suffix = ".p" + (p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p));
+            add(metrics, name + suffix, time ? percentile.value(TimeUnit.MILLISECONDS) : percentile.value(), unit);
+        }
+    }
+
+    private String document(long timestamp, List<Tag> tags, List<Map.Entry<String, Datum>> metrics) {
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode aws = root.putObject("_aws");
+        aws.put("Timestamp", timestamp);
+        ObjectNode directive = aws.putArray("CloudWatchMetrics").addObject();
+        directive.put("Namespace", config.namespace());
+        ArrayNode dimensions = directive.putArray("Dimensions").addArray();
+        for (Tag tag : tags) {
+            dimensions.add(tag.getKey());
+            root.put(tag.getKey(), tag.getValue());
+        }
+        ArrayNode definitions = directive.putArray("Metrics");
+        for (Map.Entry<String, Datum> metric : metrics) {
+            definitions.addObject().put("Name", metric.getKey()).put("Unit", metric.getValue().unit());
+            root.put(metric.getKey(), metric.getValue().value());
+        }
+        return root.toString();
+    }
+
+    /**
+     * Wall time that only moves, by one step, when {@link #advance} is called;
+     * monotonic time stays real so timers still measure durations.
+     */
+    private static final class FlushClock implements Clock {
+        private final long stepMillis;
+        private final Clock clock;
+        private final AtomicLong steps = new AtomicLong(1);
+
+        FlushClock(long stepMillis, Clock clock) {
+            this.stepMillis = stepMillis;
+            this.clock = clock;
+        }
+
+        void advance() {
+            steps.incrementAndGet();
+        }
+
+        @Override
+        public long wallTime() {
+            return steps.get() * stepMillis;
+        }
+
+        @Override
+        public long monotonicTime() {
+            return clock.monotonicTime();
+        }
+    }
+}
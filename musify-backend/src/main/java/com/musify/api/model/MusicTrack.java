@@ -1,25 +1,49 @@
 package com.musify.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbIgnore;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondarySortKey;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
 
 @DynamoDbBean // similar to entity in JPA
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 public class MusicTrack {
+    // global secondary indexes for catalog-wide listings, see MusicTrackRepository.findSorted
+    public static final String INDEX_BY_UPLOAD_TIME = "byUploadTime";
+    public static final String INDEX_BY_DURATION = "byDuration";
+    // index partitions the catalog is spread over, so writes aren't capped by a single partition;
+    // changing it moves tracks between partitions, so run the listing backfill after
+    public static final int LISTING_SHARDS = 4;
+
     private String artistName; // partition key
     private String songName; // sort key
     private String artistNameLower; // for case-insensitive search
     private String songNameLower; // for case-insensitive search
     private String s3Key;
     private Integer duration;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long uploadedAt; // epoch millis, set when the metadata is first saved
+    private String listingKey; // listingKey(artistName, songName) once saved; partition key of both listing indexes
+    // read from the MP3 headers after upload, see AudioMetadataService
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer bitrate; // kbps, average for VBR
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer sampleRate; // Hz
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long playCount; // added to in batches, see PlayCountService
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String streamUrl; // not stored, filled in when the client asks for inline stream URLs
 
     @DynamoDbPartitionKey
     public String getArtistName() {
@@ -31,4 +55,36 @@ public class MusicTrack {
         return songName;
     }
 
+    @DynamoDbSecondarySortKey(indexNames = INDEX_BY_DURATION)
+    public Integer getDuration() {
+        return duration;
+    }
+
+    @DynamoDbSecondarySortKey(indexNames = INDEX_BY_UPLOAD_TIME)
+    public Long getUploadedAt() {
+        return uploadedAt;
+    }
+
+    @JsonIgnore
+    @DynamoDbSecondaryPartitionKey(indexNames = {INDEX_BY_UPLOAD_TIME, INDEX_BY_DURATION})
+    public String getListingKey() {
+        return listingKey;
+    }
+
+    @DynamoDbIgnore
+    public String getStreamUrl() {
+        return streamUrl;
+    }
+
+    public static String listingKey(int shard) {
+        return "track#" + shard;
+    }
+
+    /**
+     * The listing partition of a track, fixed by its key so rewrites keep it in place.
+     */
+    public static String listingKey(String artistName, String songName) {
+        return listingKey(Math.floorMod((artistName + '\u0000' + songName).hashCode(), LISTING_SHARDS));
+    }
+
 }
@@ -0,0 +1,78 @@
+package com.musify.api.model;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Track attributes a client can select with {@code ?fields=}. The name is both the
+ * JSON property and the DynamoDB attribute, so a selection is also the Scan or
+ * Query projection.
+ */
+public enum TrackField {
+    ARTIST_NAME("artistName", MusicTrack::getArtistName),
+    SONG_NAME("songName", MusicTrack::getSongName),
+    S3_KEY("s3Key", MusicTrack::getS3Key),
+    DURATION("duration", MusicTrack::getDuration),
+    BITRATE("bitrate", MusicTrack::getBitrate),
+    SAMPLE_RATE("sampleRate", MusicTrack::getSampleRate),
+    UPLOADED_AT("uploadedAt", MusicTrack::getUploadedAt),
+    PLAY_COUNT("playCount", MusicTrack::getPlayCount),
+    ARTIST_NAME_LOWER("artistNameLower", MusicTrack::getArtistNameLower),
+    SONG_NAME_LOWER("songNameLower", MusicTrack::getSongNameLower);
+
+    // what listings return without ?fields=; the lowercase copies only exist for the search filter
+    public static final List<TrackField> LISTED = List.of(
+            ARTIST_NAME, SONG_NAME, S3_KEY, DURATION, BITRATE, SAMPLE_RATE, UPLOADED_AT, PLAY_COUNT);
+
+    private final String fieldName;
+    private final Function<MusicTrack, Object> getter;
+
+    TrackField(String fieldName, Function<MusicTrack, Object> getter) {
+        this.fieldName = fieldName;
+        this.getter = getter;
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    /**
+     * @return the value, null if the track doesn't have it or it wasn't read
+     */
+    public Object get(MusicTrack track) {
+        return getter.apply(track);
+    }
+
+    /**
+     * @return the field called {@code fieldName}, or null if there is none
+     */
+    public static TrackField fromName(String fieldName) {
+        for (TrackField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the names in {@code fieldNames} that are not fields
+     */
+    public static List<String> unknown(List<String> fieldNames) {
+        if (fieldNames == null) {
+            return List.of();
+        }
+        return fieldNames.stream().filter(name -> fromName(name) == null).toList();
+    }
+
+    /**
+     * @param fieldNames known field names, e.g. from {@code ?fields=}
+     * @return those fields in the given order, or {@code defaults} if none were named
+     */
+    public static List<TrackField> select(List<String> fieldNames, List<TrackField> defaults) {
+        if (fieldNames == null || fieldNames.isEmpty()) {
+            return defaults;
+        }
+        return fieldNames.stream().map(TrackField::fromName).distinct().toList();
+    }
+}
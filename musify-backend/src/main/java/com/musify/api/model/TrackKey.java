@@ -0,0 +1,41 @@
+package com.musify.api.model;
+
+/**
+ * A track's key, as encoded in the S3 key of its audio file:
+ * {@code tracks/<artistName>/<songName>.mp3}. The key is split at its last slash,
+ * so an artist name may contain slashes (e.g. AC/DC) but a song name may not.
+ */
+public record TrackKey(String artistName, String songName) {
+
+    public static final String PREFIX = "tracks/";
+    private static final String SUFFIX = ".mp3";
+
+    /**
+     * @return whether {@code s3Key} is a track's audio file, and not e.g. one of its HLS segments
+     */
+    public static boolean isTrackFile(String s3Key) {
+        if (!s3Key.startsWith(PREFIX) || !s3Key.endsWith(SUFFIX)) {
+            return false;
+        }
+        int slash = s3Key.lastIndexOf('/');
+        // segments live under tracks/<artist>/<song>.hls/
+        return slash >= PREFIX.length() && slash < s3Key.length() - SUFFIX.length()
+                && s3Key.indexOf(".hls/", PREFIX.length()) < 0;
+    }
+
+    /**
+     * @return the track the audio file belongs to, or null if {@code s3Key} isn't one
+     */
+    public static TrackKey fromS3Key(String s3Key) {
+        if (!isTrackFile(s3Key)) {
+            return null;
+        }
+        int slash = s3Key.lastIndexOf('/');
+        return new TrackKey(s3Key.substring(PREFIX.length(), slash),
+                s3Key.substring(slash + 1, s3Key.length() - SUFFIX.length()));
+    }
+
+    public String toS3Key() {
+        return PREFIX + artistName + "/" + songName + SUFFIX;
+    }
+}
@@ -1,85 +1,512 @@
 package com.musify.api.repository;
 
 import com.musify.api.dto.PaginatedResponse;
+import com.musify.api.exception.OverloadedException;
+import com.musify.api.limit.Bulkheads;
 import com.musify.api.model.MusicTrack;
+import com.musify.api.dto.Completion;
+import com.musify.api.search.AutocompleteIndex;
+import com.musify.api.search.TrackSearchIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncIndex;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
 import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.UpdateItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Repository
 @RequiredArgsConstructor
 @Slf4j
 public class MusicTrackRepository {
+    // BatchGetItem accepts at most 100 keys per call, BatchWriteItem 25 items
+    private static final int BATCH_GET_LIMIT = 100;
+    private static final int BATCH_WRITE_LIMIT = 25;
+
     private final DynamoDbEnhancedClient dynamoDbEnhancedClient;
+    private final TrackSearchIndex searchIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    // only available with musify.aws.async=true, see AwsConfig
+    private final ObjectProvider<DynamoDbEnhancedAsyncClient> dynamoDbEnhancedAsyncClientProvider;
+    private final MeterRegistry meterRegistry;
+    private final Bulkheads bulkheads;
+    // for UpdateItem ADD, which the enhanced client can't express
+    private final DynamoDbClient dynamoDbClient;
     private DynamoDbTable<MusicTrack> musicTrackTable;
+    private DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient;
+    private DynamoDbAsyncTable<MusicTrack> musicTrackAsyncTable;
+
+    // the index only sees writes made by this container, so rebuild it from the table now and then
+    @Value("${musify.search.index.max-age:PT15M}")
+    private Duration searchIndexMaxAge;
+
+    // off: searches run as filtered Scans, with no table-wide read on a cold start
+    @Value("${musify.search.index.enabled:true}")
+    private boolean searchIndexEnabled;
+
+    // like the search index, only sees this container's writes
+    @Value("${musify.autocomplete.max-age:PT15M}")
+    private Duration autocompleteMaxAge;
+
+    // a filtered listing stops reading after this much read capacity or time, even with few matches
+    @Value("${musify.scan.fill.capacity-budget:100}")
+    private double scanFillCapacityBudget;
+
+    @Value("${musify.scan.fill.time-budget:PT2S}")
+    private Duration scanFillTimeBudget;
+
+    @Value("${musify.scan.fill.max-page-size:1000}")
+    private int scanFillMaxPageSize;
+
+    // segment readers mostly wait on DynamoDB, which is what virtual threads are for
+    @Value("${musify.scan.parallel.virtual-threads:true}")
+    private boolean parallelScanVirtualThreads;
+
+    @Value("${musify.scan.parallel.segments:8}")
+    private int parallelScanSegments;
+
+    @Value("${musify.lookup-cache.max-size:10000}")
+    private int lookupCacheMaxSize;
+
+    @Value("${musify.lookup-cache.ttl:PT5M}")
+    private Duration lookupCacheTtl;
+
+    // short, so a song created by another container is seen soon
+    @Value("${musify.lookup-cache.negative-ttl:PT30S}")
+    private Duration lookupCacheNegativeTtl;
+
+    private TrackLookupCache lookupCache;
+
+    // set while a background load of the search index runs, so stale searches start only one
+    private final AtomicBoolean searchIndexLoading = new AtomicBoolean();
+    // not synchronized: a virtual thread waiting on the scan inside a monitor pins its
+    // carrier, and with one carrier the segment readers could never run
+    private final ReentrantLock autocompleteLoadLock = new ReentrantLock();
+
+    // bumped after every write this container makes, see getCatalogVersion
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    private final Map<String, Timer> callTimers = new ConcurrentHashMap<>();
+    private Counter scannedItems;
+    private Counter returnedItems;
+    private Counter scanCapacity;
+    private Counter parallelScanCapacity;
+    private Counter queryCapacity;
+    private DistributionSummary scanPages;
+
+    @Value("${musify.batch-write.concurrency:8}")
+    private int batchWriteConcurrency;
+
+    @Value("${musify.batch-write.max-attempts:8}")
+    private int batchWriteMaxAttempts;
     private static final Logger logger = LoggerFactory.getLogger(MusicTrackRepository.class);
 
 
     @PostConstruct
     public void init() {
         musicTrackTable = dynamoDbEnhancedClient.table("MusicTrack", TableSchema.fromBean(MusicTrack.class));
+        lookupCache = new TrackLookupCache(lookupCacheMaxSize, lookupCacheTtl, lookupCacheNegativeTtl,
+                Clock.systemUTC());
+        FunctionCounter.builder("musify.cache.gets", lookupCache, cache -> cache.stats().hits())
+                .tags("cache", "track-lookup", "result", "hit")
+                .register(meterRegistry);
+        // cached "doesn't exist" answers
+        FunctionCounter.builder("musify.cache.gets", lookupCache, cache -> cache.stats().negativeHits())
+                .tags("cache", "track-lookup", "result", "negative-hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("musify.cache.gets", lookupCache, cache -> cache.stats().misses())
+                .tags("cache", "track-lookup", "result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("musify.cache.evictions", lookupCache, cache -> cache.stats().evictions())
+                .tag("cache", "track-lookup")
+                .register(meterRegistry);
+        Gauge.builder("musify.cache.size", lookupCache, cache -> cache.stats().size())
+                .tag("cache", "track-lookup")
+                .register(meterRegistry);
+        scannedItems = Counter.builder("musify.dynamodb.scan.items").tag("kind", "scanned")
+                .description("Items read by listing Scans").register(meterRegistry);
+        returnedItems = Counter.builder("musify.dynamodb.scan.items").tag("kind", "returned")
+                .description("Items returned by listing Scans after the filter").register(meterRegistry);
+        scanCapacity = Counter.builder("musify.dynamodb.consumed.capacity").tag("operation", "findAll")
+                .baseUnit("units").register(meterRegistry);
+        parallelScanCapacity = Counter.builder("musify.dynamodb.consumed.capacity").tag("operation", "parallelScan")
+                .baseUnit("units").register(meterRegistry);
+        queryCapacity = Counter.builder("musify.dynamodb.consumed.capacity").tag("operation", "query")
+                .baseUnit("units").register(meterRegistry);
+        scanPages = DistributionSummary.builder("musify.dynamodb.scan.pages")
+                .description("Scan pages read to fill one listing page").register(meterRegistry);
+        dynamoDbEnhancedAsyncClient = dynamoDbEnhancedAsyncClientProvider.getIfAvailable();
+        if (dynamoDbEnhancedAsyncClient != null) {
+            musicTrackAsyncTable = dynamoDbEnhancedAsyncClient.table("MusicTrack",
+                    TableSchema.fromBean(MusicTrack.class));
+        }
+    }
+
+    /*
+     * The *Async methods below use the async client when it is configured and
+     * otherwise run the blocking call and return a completed future, so callers
+     * don't need to know which mode is active.
+     */
+
+    public CompletableFuture<MusicTrack> saveAsync(MusicTrack musicTrack) {
+        if (musicTrackAsyncTable == null) {
+            return CompletableFuture.completedFuture(save(musicTrack));
+        }
+        long start = System.nanoTime();
+        normalize(musicTrack);
+        return recordWhenDone("save", start, bulkheads.write().callAsync(
+                () -> musicTrackAsyncTable.putItem(musicTrack)).thenApply(ignored -> {
+            catalogVersion.incrementAndGet();
+            lookupCache.invalidate(musicTrack.getArtistName(), musicTrack.getSongName());
+            searchIndex.put(musicTrack.getArtistName(), musicTrack.getSongName(),
+                    musicTrack.getArtistNameLower(), musicTrack.getSongNameLower());
+            autocompleteIndex.put(musicTrack.getArtistName(), musicTrack.getSongName(), plays(musicTrack));
+            return musicTrack;
+        }));
     }
 
     public MusicTrack save(MusicTrack musicTrack) {
-        if (musicTrack.getArtistName() != null) {
-            musicTrack.setArtistNameLower(musicTrack.getArtistName().toLowerCase());
+        long start = System.nanoTime();
+        try {
+            normalize(musicTrack);
+            bulkheads.write().run(() -> musicTrackTable.putItem(musicTrack));
+            catalogVersion.incrementAndGet();
+            lookupCache.invalidate(musicTrack.getArtistName(), musicTrack.getSongName());
+            searchIndex.put(musicTrack.getArtistName(), musicTrack.getSongName(),
+                    musicTrack.getArtistNameLower(), musicTrack.getSongNameLower());
+            autocompleteIndex.put(musicTrack.getArtistName(), musicTrack.getSongName(), plays(musicTrack));
+            return musicTrack;
+        } finally {
+            record("save", start);
         }
-        if (musicTrack.getSongName() != null) {
-            musicTrack.setSongNameLower(musicTrack.getSongName().toLowerCase());
+    }
+
+    /**
+     * Writes tracks with BatchWriteItem, 25 per call and up to
+     * {@code musify.batch-write.concurrency} calls in flight. UnprocessedItems are
+     * retried with exponential backoff and full jitter.
+     *
+     * @return the tracks that were still unprocessed after the last attempt
+     */
+    public List<MusicTrack> saveAll(List<MusicTrack> musicTracks) {
+        long start = System.nanoTime();
+        try {
+            musicTracks.forEach(this::normalize);
+            List<List<MusicTrack>> batches = new ArrayList<>();
+            for (int from = 0; from < musicTracks.size(); from += BATCH_WRITE_LIMIT) {
+                batches.add(musicTracks.subList(from, Math.min(musicTracks.size(), from + BATCH_WRITE_LIMIT)));
+            }
+
+            List<MusicTrack> failed = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(
+                    Math.max(1, Math.min(batchWriteConcurrency, batches.size())), Thread.ofVirtual().factory())) {
+                List<Future<List<MusicTrack>>> futures = batches.stream()
+                        .map(batch -> executor.submit(() -> writeBatch(batch)))
+                        .toList();
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        failed.addAll(futures.get(i).get());
+                    } catch (ExecutionException e) {
+                        log.error("Batch write failed: {}", e.getCause().getMessage(), e.getCause());
+                        failed.addAll(batches.get(i));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Batch write interrupted", e);
+                    }
+                }
+            }
+
+            catalogVersion.incrementAndGet();
+            // unprocessed items come back as new objects, so match them by key
+            Set<String> failedKeys = new HashSet<>();
+            failed.forEach(track -> failedKeys.add(track.getArtistName() + "|" + track.getSongName()));
+            for (MusicTrack track : musicTracks) {
+                // unprocessed puts may still have been applied on an earlier attempt
+                lookupCache.invalidate(track.getArtistName(), track.getSongName());
+                if (!failedKeys.contains(track.getArtistName() + "|" + track.getSongName())) {
+                    searchIndex.put(track.getArtistName(), track.getSongName(),
+                            track.getArtistNameLower(), track.getSongNameLower());
+                    autocompleteIndex.put(track.getArtistName(), track.getSongName(), plays(track));
+                }
+            }
+            return failed;
+        } finally {
+            record("saveAll", start);
         }
-        musicTrackTable.putItem(musicTrack);
-        return musicTrack;
+    }
+
+    /**
+     * Reads the given tracks' keys with BatchGetItem, 100 per call.
+     *
+     * @return the tracks already in the table, as stored
+     */
+    public List<MusicTrack> findExisting(List<MusicTrack> musicTracks) {
+        long start = System.nanoTime();
+        try {
+            List<MusicTrack> existing = new ArrayList<>();
+            for (int from = 0; from < musicTracks.size(); from += BATCH_GET_LIMIT) {
+                ReadBatch.Builder<MusicTrack> batch = ReadBatch.builder(MusicTrack.class)
+                        .mappedTableResource(musicTrackTable);
+                for (MusicTrack track : musicTracks.subList(from,
+                        Math.min(musicTracks.size(), from + BATCH_GET_LIMIT))) {
+                    batch.addGetItem(Key.builder().partitionValue(track.getArtistName())
+                            .sortValue(track.getSongName()).build());
+                }
+                ReadBatch readBatch = batch.build();
+                // the result pages resend UnprocessedKeys until none are left
+                bulkheads.read().run(() -> dynamoDbEnhancedClient.batchGetItem(r -> r.readBatches(readBatch))
+                        .resultsForTable(musicTrackTable)
+                        .forEach(existing::add));
+            }
+            return existing;
+        } finally {
+            record("findExisting", start);
+        }
+    }
+
+    private List<MusicTrack> writeBatch(List<MusicTrack> batch) throws InterruptedException {
+        List<MusicTrack> pending = batch;
+        for (int attempt = 0; attempt < batchWriteMaxAttempts && !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                long cap = Math.min(2_000, 50L << attempt);
+                Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+            }
+            WriteBatch.Builder<MusicTrack> writeBatch = WriteBatch.builder(MusicTrack.class)
+                    .mappedTableResource(musicTrackTable);
+            pending.forEach(writeBatch::addPutItem);
+            WriteBatch request = writeBatch.build();
+            BatchWriteResult result = bulkheads.write().call(
+                    () -> dynamoDbEnhancedClient.batchWriteItem(r -> r.writeBatches(request)));
+            List<MusicTrack> unprocessed = result.unprocessedPutItemsForTable(musicTrackTable);
+            if (!unprocessed.isEmpty()) {
+                log.debug("{} of {} items unprocessed on attempt {}", unprocessed.size(), pending.size(), attempt + 1);
+            }
+            pending = unprocessed;
+        }
+        return pending;
     }
 
     public MusicTrack findByPartitionKeyAndSortKey(String artistName, String songName) {
+        long start = System.nanoTime();
+        try {
+            final String finalArtistName = artistName.trim();
+            final String finalSongName = songName.trim();
+            return lookupCache.get(finalArtistName, finalSongName, () -> bulkheads.read().call(
+                    () -> musicTrackTable.getItem(
+                            r -> r.key(k -> k.partitionValue(finalArtistName).sortValue(finalSongName)))));
+        } finally {
+            record("findByKey", start);
+        }
+    }
+
+    public CompletableFuture<MusicTrack> findByPartitionKeyAndSortKeyAsync(String artistName, String songName) {
+        if (musicTrackAsyncTable == null) {
+            return CompletableFuture.completedFuture(findByPartitionKeyAndSortKey(artistName, songName));
+        }
+        long start = System.nanoTime();
         final String finalArtistName = artistName.trim();
         final String finalSongName = songName.trim();
-        return musicTrackTable.getItem(r -> r.key(k -> k.partitionValue(finalArtistName).sortValue(finalSongName)));
+        return recordWhenDone("findByKey", start, lookupCache.getAsync(finalArtistName, finalSongName,
+                () -> bulkheads.read().callAsync(() -> musicTrackAsyncTable.getItem(
+                        r -> r.key(k -> k.partitionValue(finalArtistName).sortValue(finalSongName))))));
     }
 
-    public PaginatedResponse findAll(int limit, String nextToken, String searchQuery) {
-        log.info("Fetching songs from DynamoDB...");
-        List<MusicTrack> items = new ArrayList<>();
-        String newNextToken = null;
+    public CompletableFuture<Boolean> existsAsync(String artistName, String songName) {
+        return findByPartitionKeyAndSortKeyAsync(artistName, songName).thenApply(Objects::nonNull);
+    }
+
+    /**
+     * Changes whenever this container writes to the table or reloads the search
+     * index; writes made by other containers don't change it. It is bumped after
+     * the write completes, so a read started at some version sees every write
+     * counted in it, and may see newer ones.
+     */
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    /**
+     * @param attributesToProject attributes to read; null reads the whole item. Searches
+     *                            answered from the index read whole items: the enhanced
+     *                            client's BatchGetItem has no projection.
+     */
+    public PaginatedResponse findAll(int limit, String nextToken, String searchQuery,
+                                     List<String> attributesToProject) {
+        long start = System.nanoTime();
         try {
-        ScanEnhancedRequest.Builder requestBuilder = ScanEnhancedRequest.builder().limit(limit);
+            if (searchIndexEnabled && searchQuery != null && !searchQuery.isBlank()) {
+                try {
+                    return search(limit, nextToken, searchQuery);
+                } catch (Exception e) {
+                    // a Scan would only add to the load
+                    rethrowIfOverloaded(e);
+                    log.warn("Search index unavailable, falling back to Scan: {}", e.getMessage());
+                }
+            }
+            return scanPage(limit, nextToken, searchQuery, attributesToProject);
+        } finally {
+            record("findAll", start);
+        }
+    }
 
-        // 1. Handle Pagination (NextToken)
-        if (nextToken != null && !nextToken.isEmpty()) {
+    public CompletableFuture<PaginatedResponse> findAllAsync(int limit, String nextToken, String searchQuery,
+                                                             List<String> attributesToProject) {
+        if (musicTrackAsyncTable == null) {
+            return CompletableFuture.completedFuture(findAll(limit, nextToken, searchQuery, attributesToProject));
+        }
+        long start = System.nanoTime();
+        if (searchIndexEnabled && searchQuery != null && !searchQuery.isBlank()) {
             try {
-                // Decode Base64 -> JSON String -> Map<String, AttributeValue>
-                // For simplicity in this demo, we'll assume nextToken is PartitionKey#SortKey
-                // string
-                // format for now?
-                // No, better to try to reconstruct the key.
-                // Since our PK is artistName and SK is songName, we need both.
-                // Let's rely on a simple custom format: "ArtistName|SongName" encoded in Base64
-
-                String decoded = new String(Base64.getDecoder().decode(nextToken));
-                String[] parts = decoded.split("\\|", 2);
-                if (parts.length == 2) {
-                    Map<String, AttributeValue> startKey = new HashMap<>();
-                    startKey.put("artistName", AttributeValue.builder().s(parts[0]).build());
-                    startKey.put("songName", AttributeValue.builder().s(parts[1]).build());
-                    requestBuilder.exclusiveStartKey(startKey);
-                }
+                return recordWhenDone("findAll", start, searchAsync(limit, nextToken, searchQuery)
+                        .exceptionallyCompose(e -> {
+                            rethrowIfOverloaded(e);
+                            log.warn("Search index unavailable, falling back to Scan: {}", e.getMessage());
+                            return scanPageAsync(limit, nextToken, searchQuery, attributesToProject);
+                        }));
             } catch (Exception e) {
-                // ignore invalid token
+                rethrowIfOverloaded(e);
+                log.warn("Search index unavailable, falling back to Scan: {}", e.getMessage());
             }
         }
+        return recordWhenDone("findAll", start, scanPageAsync(limit, nextToken, searchQuery, attributesToProject));
+    }
 
+    private PaginatedResponse scanPage(int limit, String nextToken, String searchQuery,
+                                       List<String> attributesToProject) {
+        log.info("Fetching songs from DynamoDB...");
+        ScanPageFiller filler = newScanPageFiller(limit, nextToken);
+        try {
+            Page<MusicTrack> page;
+            do {
+                // scan() keeps following LastEvaluatedKey; each request is built here so its Limit can change
+                ScanEnhancedRequest request = scanRequest(filler, searchQuery, attributesToProject);
+                page = bulkheads.search().call(() -> musicTrackTable.scan(request).iterator().next());
+                recordScanPage(page);
+            } while (filler.add(page));
+        } catch (Exception e) {
+            rethrowIfOverloaded(e);
+            log.error(e.getMessage(), e);
+        }
+        return scanPageResponse(filler);
+    }
+
+    private CompletableFuture<PaginatedResponse> scanPageAsync(int limit, String nextToken, String searchQuery,
+                                                               List<String> attributesToProject) {
+        log.info("Fetching songs from DynamoDB...");
+        ScanPageFiller filler = newScanPageFiller(limit, nextToken);
+        return scanPagesAsync(filler, searchQuery, attributesToProject)
+                .exceptionally(e -> {
+                    rethrowIfOverloaded(e);
+                    log.error(e.getMessage(), e);
+                    return null;
+                })
+                .thenApply(ignored -> scanPageResponse(filler));
+    }
+
+    private CompletableFuture<Void> scanPagesAsync(ScanPageFiller filler, String searchQuery,
+                                                   List<String> attributesToProject) {
+        AtomicReference<Page<MusicTrack>> firstPage = new AtomicReference<>();
+        try {
+            ScanEnhancedRequest request = scanRequest(filler, searchQuery, attributesToProject);
+            return bulkheads.search().callAsync(() -> musicTrackAsyncTable.scan(request)
+                            .limit(1)
+                            .subscribe(firstPage::set))
+                    .thenCompose(ignored -> {
+                        Page<MusicTrack> page = firstPage.get();
+                        if (page == null) {
+                            return CompletableFuture.completedFuture(null);
+                        }
+                        recordScanPage(page);
+                        return filler.add(page)
+                                ? scanPagesAsync(filler, searchQuery, attributesToProject)
+                                : CompletableFuture.completedFuture(null);
+                    });
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private ScanPageFiller newScanPageFiller(int limit, String nextToken) {
+        return new ScanPageFiller(limit, PageTokens.decodeScanKey(nextToken), scanFillMaxPageSize,
+                scanFillCapacityBudget, scanFillTimeBudget, Clock.systemUTC());
+    }
+
+    private PaginatedResponse scanPageResponse(ScanPageFiller filler) {
+        scanPages.record(filler.pages());
+        if (filler.pages() > 1) {
+            log.debug("Filled listing page from {} Scan pages using {} capacity units{}", filler.pages(),
+                    filler.consumedCapacity(), filler.budgetSpent() ? " (budget spent)" : "");
+        }
+        return filler.response();
+    }
+
+    private ScanEnhancedRequest scanRequest(ScanPageFiller filler, String searchQuery,
+                                           List<String> attributesToProject) {
+        ScanEnhancedRequest.Builder requestBuilder = ScanEnhancedRequest.builder()
+                .limit(filler.pageSize())
+                .attributesToProject(attributesToProject)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+
+        // 1. Handle Pagination (NextToken)
+        if (filler.startKey() != null) {
+            requestBuilder.exclusiveStartKey(filler.startKey());
+        }
         // 2. Handle Search Filter
         if (searchQuery != null && !searchQuery.isEmpty()) {
             String query = searchQuery.trim().toLowerCase();
@@ -90,52 +517,640 @@ public class MusicTrackRepository {
                     .build();
             requestBuilder.filterExpression(expression);
         }
+        return requestBuilder.build();
+    }
 
-        // 3. Execute Scan (Iterate over ONE page)
-        /*
-         * Note: scan() returns an iterable. We want just the first page of results
-         * relative to the start key.
-         */
-        Iterator<Page<MusicTrack>> iterator = musicTrackTable.scan(requestBuilder.build()).iterator();
-
-
+    /**
+     * One artist's songs in songName order, read with a Query on the partition key,
+     * so the read cost follows the page size rather than the table size.
+     *
+     * @param songPrefix if set, only songs whose name starts with it (case-sensitive)
+     */
+    public PaginatedResponse findByArtist(String artistName, String songPrefix, int limit, String nextToken,
+                                          List<String> attributesToProject) {
+        long start = System.nanoTime();
+        try {
+            QueryEnhancedRequest request = artistQuery(artistName, songPrefix, limit, nextToken, attributesToProject);
+            Page<MusicTrack> page = bulkheads.search().call(() -> musicTrackTable.query(request).iterator().next());
+            recordQueryPage(page);
+            return new PaginatedResponse(new ArrayList<>(page.items()),
+                    PageTokens.encodeScanKey(page.lastEvaluatedKey()));
+        } catch (Exception e) {
+            rethrowIfOverloaded(e);
+            log.error(e.getMessage(), e);
+            return new PaginatedResponse(new ArrayList<>(), null);
+        } finally {
+            record("findByArtist", start);
+        }
+    }
 
-        if (iterator.hasNext()) {
-            Page<MusicTrack> page = iterator.next();
-            items.addAll(page.items());
+    public CompletableFuture<PaginatedResponse> findByArtistAsync(String artistName, String songPrefix, int limit,
+                                                                  String nextToken, List<String> attributesToProject) {
+        if (musicTrackAsyncTable == null) {
+            return CompletableFuture.completedFuture(findByArtist(artistName, songPrefix, limit, nextToken,
+                    attributesToProject));
+        }
+        long start = System.nanoTime();
+        return recordWhenDone("findByArtist", start, firstPageAsync(() -> musicTrackAsyncTable.query(
+                        artistQuery(artistName, songPrefix, limit, nextToken, attributesToProject)),
+                PageTokens::encodeScanKey));
+    }
 
-            Map<String, AttributeValue> lastKey = page.lastEvaluatedKey();
-            if (lastKey != null && !lastKey.isEmpty()) {
-                AttributeValue artistAttr = lastKey.get("artistName");
-                AttributeValue songAttr = lastKey.get("songName");
-                if (artistAttr != null && songAttr != null) {
-                    String rawToken = artistAttr.s() + "|" + songAttr.s();
-                    newNextToken = Base64.getEncoder().encodeToString(rawToken.getBytes());
+    /**
+     * The whole catalog ordered by upload time or duration, read from that order's
+     * global secondary index. The shards of the index are queried at once and
+     * merged, see {@link ShardedListing}. Tracks without the sort attribute are not
+     * in the index and don't appear.
+     */
+    public PaginatedResponse findSorted(TrackOrder order, boolean ascending, int limit, String nextToken,
+                                        List<String> attributesToProject) {
+        long start = System.nanoTime();
+        ShardedListing listing = new ShardedListing(order, ascending, limit, nextToken);
+        try {
+            DynamoDbIndex<MusicTrack> index = musicTrackTable.index(order.indexName());
+            List<CompletableFuture<Page<MusicTrack>>> calls = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int shard : listing.shards()) {
+                    QueryEnhancedRequest request = listingQuery(listing, shard, order, ascending, limit,
+                            attributesToProject);
+                    calls.add(CompletableFuture.supplyAsync(() -> bulkheads.search().call(
+                            () -> index.query(request).iterator().next()), executor));
                 }
             }
+            List<Page<MusicTrack>> pages = calls.stream().map(CompletableFuture::join).toList();
+            pages.forEach(this::recordQueryPage);
+            return listing.merge(pages);
+        } catch (Exception e) {
+            rethrowIfOverloaded(e);
+            log.error(e.getMessage(), e);
+            return new PaginatedResponse(new ArrayList<>(), null);
+        } finally {
+            record("findSorted", start);
+        }
+    }
+
+    public CompletableFuture<PaginatedResponse> findSortedAsync(TrackOrder order, boolean ascending, int limit,
+                                                                String nextToken, List<String> attributesToProject) {
+        if (musicTrackAsyncTable == null) {
+            return CompletableFuture.completedFuture(findSorted(order, ascending, limit, nextToken,
+                    attributesToProject));
+        }
+        long start = System.nanoTime();
+        ShardedListing listing = new ShardedListing(order, ascending, limit, nextToken);
+        DynamoDbAsyncIndex<MusicTrack> index = musicTrackAsyncTable.index(order.indexName());
+        try {
+            List<CompletableFuture<Page<MusicTrack>>> calls = new ArrayList<>();
+            for (int shard : listing.shards()) {
+                QueryEnhancedRequest request = listingQuery(listing, shard, order, ascending, limit,
+                        attributesToProject);
+                AtomicReference<Page<MusicTrack>> firstPage = new AtomicReference<>();
+                calls.add(bulkheads.search().callAsync(() -> index.query(request).limit(1).subscribe(firstPage::set))
+                        .thenApply(ignored -> firstPage.get() != null ? firstPage.get() : Page.builder(MusicTrack.class).items(List.of()).build()));
+            }
+            return recordWhenDone("findSorted", start, CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new))
+                    .thenApply(ignored -> {
+                        List<Page<MusicTrack>> pages = calls.stream().map(CompletableFuture::join).toList();
+                        pages.forEach(this::recordQueryPage);
+                        return listing.merge(pages);
+                    })
+                    .exceptionally(e -> {
+                        rethrowIfOverloaded(e);
+                        log.error(e.getMessage(), e);
+                        return new PaginatedResponse(new ArrayList<>(), null);
+                    }));
+        } catch (Exception e) {
+            rethrowIfOverloaded(e);
+            log.error(e.getMessage(), e);
+            return CompletableFuture.completedFuture(new PaginatedResponse(new ArrayList<>(), null));
+        }
+    }
+
+    private QueryEnhancedRequest artistQuery(String artistName, String songPrefix, int limit, String nextToken,
+                                             List<String> attributesToProject) {
+        String artist = artistName.trim();
+        QueryConditional conditional = songPrefix == null || songPrefix.isBlank()
+                ? QueryConditional.keyEqualTo(k -> k.partitionValue(artist))
+                : QueryConditional.sortBeginsWith(k -> k.partitionValue(artist).sortValue(songPrefix.trim()));
+        QueryEnhancedRequest.Builder requestBuilder = QueryEnhancedRequest.builder()
+                .queryConditional(conditional)
+                .limit(limit)
+                .attributesToProject(attributesToProject)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        Map<String, AttributeValue> startKey = PageTokens.decodeScanKey(nextToken);
+        // a token from another artist's listing would be rejected by DynamoDB
+        if (startKey != null && artist.equals(startKey.get("artistName").s())) {
+            requestBuilder.exclusiveStartKey(startKey);
+        }
+        return requestBuilder.build();
+    }
+
+    private QueryEnhancedRequest listingQuery(ShardedListing listing, int shard, TrackOrder order, boolean ascending,
+                                              int limit, List<String> attributesToProject) {
+        List<String> attributes = attributesToProject;
+        // the merge orders by the sort attribute
+        if (attributes != null && !attributes.contains(order.attribute())) {
+            attributes = new ArrayList<>(attributes);
+            attributes.add(order.attribute());
         }
+        QueryEnhancedRequest.Builder requestBuilder = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(MusicTrack.listingKey(shard))))
+                .scanIndexForward(ascending)
+                .limit(limit)
+                .attributesToProject(attributes)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        Map<String, AttributeValue> startKey = listing.startKey(shard);
+        if (startKey != null) {
+            requestBuilder.exclusiveStartKey(startKey);
+        }
+        return requestBuilder.build();
+    }
+
+    private CompletableFuture<PaginatedResponse> firstPageAsync(
+            Supplier<SdkPublisher<Page<MusicTrack>>> query, Function<Map<String, AttributeValue>, String> tokenEncoder) {
+        AtomicReference<Page<MusicTrack>> firstPage = new AtomicReference<>();
+        try {
+            return bulkheads.search().callAsync(() -> query.get()
+                            .limit(1)
+                            .subscribe(firstPage::set))
+                    .thenApply(ignored -> {
+                        Page<MusicTrack> page = firstPage.get();
+                        if (page == null) {
+                            return new PaginatedResponse(new ArrayList<>(), null);
+                        }
+                        recordQueryPage(page);
+                        return new PaginatedResponse(new ArrayList<>(page.items()),
+                                tokenEncoder.apply(page.lastEvaluatedKey()));
+                    })
+                    .exceptionally(e -> {
+                        rethrowIfOverloaded(e);
+                        log.error(e.getMessage(), e);
+                        return new PaginatedResponse(new ArrayList<>(), null);
+                    });
         } catch (Exception e) {
+            rethrowIfOverloaded(e);
             log.error(e.getMessage(), e);
+            return CompletableFuture.completedFuture(new PaginatedResponse(new ArrayList<>(), null));
+        }
+    }
+
+    /**
+     * Sets the listing attributes on tracks saved before the listing indexes
+     * existed, so they appear in {@link #findSorted}. Their upload time is unknown,
+     * so it is set to now.
+     *
+     * @return the number of tracks updated
+     */
+    public long backfillListingAttributes() {
+        long now = System.currentTimeMillis();
+        long[] updated = {0};
+        ParallelScanRequest request = ParallelScanRequest.builder()
+                .totalSegments(parallelScanSegments)
+                .attributesToProject(List.of("artistName", "songName", "listingKey", "uploadedAt"))
+                .build();
+        parallelScan(request, track -> {
+            String listingKey = MusicTrack.listingKey(track.getArtistName(), track.getSongName());
+            if (listingKey.equals(track.getListingKey()) && track.getUploadedAt() != null) {
+                return;
+            }
+            MusicTrack update = MusicTrack.builder()
+                    .artistName(track.getArtistName())
+                    .songName(track.getSongName())
+                    .listingKey(listingKey)
+                    .uploadedAt(track.getUploadedAt() != null ? track.getUploadedAt() : now)
+                    .build();
+            try {
+                musicTrackTable.updateItem(UpdateItemEnhancedRequest.builder(MusicTrack.class)
+                        .item(update)
+                        .ignoreNulls(true)
+                        .conditionExpression(Expression.builder().expression("attribute_exists(artistName)").build())
+                        .build());
+                catalogVersion.incrementAndGet();
+                lookupCache.invalidate(track.getArtistName(), track.getSongName());
+                updated[0]++;
+            } catch (ConditionalCheckFailedException e) {
+                // deleted since the scan read it
+            }
+        });
+        log.info("Set listing attributes on {} tracks", updated[0]);
+        return updated[0];
+    }
+
+    /**
+     * Answers a search from the in-memory trigram index and loads the page with a
+     * single BatchGetItem. The token is the last hit returned (see {@link PageTokens}),
+     * so paging stays stable while tracks are added or removed.
+     */
+    private PaginatedResponse search(int limit, String nextToken, String searchQuery) {
+        SearchPage page = searchIndexPage(limit, nextToken, searchQuery);
+        List<MusicTrack> items = batchGet(page.hits());
+        log.info("Search '{}' matched {} songs from index", searchQuery, items.size());
+        return new PaginatedResponse(items, page.nextToken());
+    }
+
+    private CompletableFuture<PaginatedResponse> searchAsync(int limit, String nextToken, String searchQuery) {
+        SearchPage page = searchIndexPage(limit, nextToken, searchQuery);
+        return batchGetAsync(page.hits()).thenApply(items -> {
+            log.info("Search '{}' matched {} songs from index", searchQuery, items.size());
+            return new PaginatedResponse(items, page.nextToken());
+        });
+    }
+
+    private record SearchPage(List<TrackSearchIndex.Hit> hits, String nextToken) {
+    }
+
+    private SearchPage searchIndexPage(int limit, String nextToken, String searchQuery) {
+        ensureSearchIndexLoaded();
+
+        TrackSearchIndex.Hit after = PageTokens.decodeSearchCursor(nextToken);
+        int pageLimit = Math.min(limit, TrackSearchIndex.MAX_LIMIT);
+        List<TrackSearchIndex.Hit> hits = searchIndex.search(searchQuery, after, pageLimit);
+        boolean hasMore = hits.size() > pageLimit;
+        if (hasMore) {
+            hits = hits.subList(0, pageLimit);
+        }
+        return new SearchPage(hits, hasMore ? PageTokens.encodeSearchCursor(hits.get(hits.size() - 1)) : null);
+    }
+
+    private List<MusicTrack> batchGet(List<TrackSearchIndex.Hit> hits) {
+        Map<String, MusicTrack> found = new HashMap<>();
+        for (int from = 0; from < hits.size(); from += BATCH_GET_LIMIT) {
+            ReadBatch.Builder<MusicTrack> batch = ReadBatch.builder(MusicTrack.class)
+                    .mappedTableResource(musicTrackTable);
+            for (TrackSearchIndex.Hit hit : hits.subList(from, Math.min(hits.size(), from + BATCH_GET_LIMIT))) {
+                batch.addGetItem(Key.builder().partitionValue(hit.artistName()).sortValue(hit.songName()).build());
+            }
+            ReadBatch readBatch = batch.build();
+            bulkheads.search().run(() -> dynamoDbEnhancedClient.batchGetItem(r -> r.readBatches(readBatch))
+                    .resultsForTable(musicTrackTable)
+                    .forEach(track -> found.put(track.getArtistName() + "|" + track.getSongName(), track)));
+        }
+        return inHitOrder(hits, found);
+    }
+
+    // all BatchGetItem calls for the page are sent at once
+    private CompletableFuture<List<MusicTrack>> batchGetAsync(List<TrackSearchIndex.Hit> hits) {
+        Map<String, MusicTrack> found = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (int from = 0; from < hits.size(); from += BATCH_GET_LIMIT) {
+            ReadBatch.Builder<MusicTrack> batch = ReadBatch.builder(MusicTrack.class)
+                    .mappedTableResource(musicTrackAsyncTable);
+            for (TrackSearchIndex.Hit hit : hits.subList(from, Math.min(hits.size(), from + BATCH_GET_LIMIT))) {
+                batch.addGetItem(Key.builder().partitionValue(hit.artistName()).sortValue(hit.songName()).build());
+            }
+            ReadBatch readBatch = batch.build();
+            calls.add(bulkheads.search().callAsync(() -> dynamoDbEnhancedAsyncClient
+                    .batchGetItem(r -> r.readBatches(readBatch))
+                    .resultsForTable(musicTrackAsyncTable)
+                    .subscribe(track -> found.put(track.getArtistName() + "|" + track.getSongName(), track))));
+        }
+        return CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> inHitOrder(hits, found));
+    }
+
+    private List<MusicTrack> inHitOrder(List<TrackSearchIndex.Hit> hits, Map<String, MusicTrack> found) {
+        List<MusicTrack> items = new ArrayList<>(hits.size());
+        for (TrackSearchIndex.Hit hit : hits) {
+            MusicTrack track = found.get(hit.artistName() + "|" + hit.songName());
+            if (track != null) {
+                items.add(track);
+            } else {
+                // deleted by another container since the index was built
+                searchIndex.remove(hit.artistName(), hit.songName());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Starts a background reload once the index is older than
+     * {@code musify.search.index.max-age}, and keeps answering from the old one
+     * meanwhile. Throws before the first load has finished, so the caller falls
+     * back to a Scan.
+     */
+    private void ensureSearchIndexLoaded() {
+        Instant loadedAt = searchIndex.getLoadedAt();
+        if (loadedAt == null || !loadedAt.plus(searchIndexMaxAge).isAfter(Instant.now())) {
+            loadSearchIndexInBackground();
+        }
+        if (loadedAt == null) {
+            throw new IllegalStateException("Search index is still loading");
+        }
+    }
+
+    // loads at startup, so the first searches needn't fall back to a Scan
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSearchIndexOnStartup() {
+        if (searchIndexEnabled) {
+            loadSearchIndexInBackground();
+        }
+    }
+
+    private void loadSearchIndexInBackground() {
+        if (!searchIndexLoading.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("search-index-load").start(() -> {
+            try {
+                loadSearchIndex();
+            } catch (Exception e) {
+                log.warn("Search index load failed, keeping the current one: {}", e.getMessage());
+            } finally {
+                searchIndexLoading.set(false);
+            }
+        });
+    }
+
+    private void loadSearchIndex() {
+        log.info("Loading search index from DynamoDB...");
+        ParallelScanRequest request = ParallelScanRequest.builder()
+                .totalSegments(parallelScanSegments)
+                .attributesToProject(List.of("artistName", "songName", "artistNameLower", "songNameLower"))
+                .build();
+        // writes made while the Scan runs are recorded and applied to the new index
+        TrackSearchIndex.Loader loader = searchIndex.startRebuild();
+        try {
+            bulkheads.search().run(() -> parallelScan(request, track -> loader.add(track.getArtistName(),
+                    track.getSongName(), track.getArtistNameLower(), track.getSongNameLower())));
+        } catch (RuntimeException e) {
+            searchIndex.cancelRebuild();
+            throw e;
+        }
+        searchIndex.replaceAll(loader);
+        // the reload can bring in writes from other containers
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * Artists and songs whose name starts with {@code prefix}, most played first,
+     * from an index built by a Scan on the first call and every
+     * {@code musify.autocomplete.max-age} after.
+     */
+    public List<Completion> autocomplete(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            ensureAutocompleteLoaded();
+            return autocompleteIndex.complete(prefix, limit);
+        } finally {
+            record("autocomplete", start);
         }
+    }
+
+    private void ensureAutocompleteLoaded() {
+        autocompleteLoadLock.lock();
+        try {
+            Instant loadedAt = autocompleteIndex.getLoadedAt();
+            if (loadedAt != null && loadedAt.plus(autocompleteMaxAge).isAfter(Instant.now())) {
+                return;
+            }
+            log.info("Loading autocomplete index from DynamoDB...");
+            AutocompleteIndex.Loader loader = new AutocompleteIndex.Loader();
+            ParallelScanRequest request = ParallelScanRequest.builder()
+                    .totalSegments(parallelScanSegments)
+                    .attributesToProject(List.of("artistName", "songName", "playCount"))
+                    .build();
+            parallelScan(request, track -> loader.add(track.getArtistName(), track.getSongName(), plays(track)));
+            autocompleteIndex.replaceAll(loader);
+            log.info("Autocomplete index loaded: {}", autocompleteIndex.stats());
+        } finally {
+            autocompleteLoadLock.unlock();
+        }
+    }
 
-        return new PaginatedResponse(items, newNextToken);
+    private static long plays(MusicTrack track) {
+        return track.getPlayCount() == null ? 0 : track.getPlayCount();
+    }
+
+    /**
+     * Reads the whole table with a segmented parallel Scan and hands every item to
+     * {@code consumer} on the calling thread. Segment readers block once
+     * {@code queueCapacity} items are waiting, so a slow consumer throttles the scan
+     * instead of filling the heap. The capacity budget is checked after each page,
+     * so it can be overshot by at most one page per segment.
+     */
+    public ParallelScanResult parallelScan(ParallelScanRequest request, Consumer<MusicTrack> consumer) {
+        long start = System.nanoTime();
+        int segments = request.getTotalSegments();
+        BlockingQueue<MusicTrack> queue = new ArrayBlockingQueue<>(request.getQueueCapacity());
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicBoolean budgetExhausted = new AtomicBoolean();
+        DoubleAdder consumedCapacity = new DoubleAdder();
+        LongAdder scannedCount = new LongAdder();
+        long itemCount = 0;
+
+        try (ExecutorService executor = parallelScanVirtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(segments)) {
+            List<Future<?>> readers = new ArrayList<>(segments);
+            for (int segment = 0; segment < segments; segment++) {
+                int currentSegment = segment;
+                readers.add(executor.submit(() -> {
+                    scanSegment(request, currentSegment, queue, stop, budgetExhausted, consumedCapacity,
+                            scannedCount);
+                    return null;
+                }));
+            }
+
+            try {
+                while (true) {
+                    MusicTrack next = queue.poll(50, TimeUnit.MILLISECONDS);
+                    if (next != null) {
+                        consumer.accept(next);
+                        itemCount++;
+                    } else if (readers.stream().allMatch(Future::isDone) && queue.isEmpty()) {
+                        break;
+                    }
+                }
+                for (Future<?> reader : readers) {
+                    reader.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Parallel scan interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Parallel scan failed: " + e.getCause().getMessage(), e.getCause());
+            } finally {
+                // lets blocked readers give up if the consumer or a reader failed
+                stop.set(true);
+            }
+        }
+
+        ParallelScanResult result = new ParallelScanResult(itemCount, scannedCount.sum(), consumedCapacity.sum(),
+                budgetExhausted.get(), Duration.ofNanos(System.nanoTime() - start));
+        record("parallelScan", start);
+        parallelScanCapacity.increment(result.consumedCapacity());
+        log.info("Parallel scan over {} segments finished: {}", segments, result);
+        return result;
+    }
+
+    private void scanSegment(ParallelScanRequest request, int segment, BlockingQueue<MusicTrack> queue,
+                             AtomicBoolean stop, AtomicBoolean budgetExhausted, DoubleAdder consumedCapacity,
+                             LongAdder scannedCount) throws InterruptedException {
+        ScanEnhancedRequest.Builder requestBuilder = ScanEnhancedRequest.builder()
+                .segment(segment)
+                .totalSegments(request.getTotalSegments())
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        if (request.getAttributesToProject() != null) {
+            requestBuilder.attributesToProject(request.getAttributesToProject());
+        }
+
+        for (Page<MusicTrack> page : musicTrackTable.scan(requestBuilder.build())) {
+            if (page.consumedCapacity() != null && page.consumedCapacity().capacityUnits() != null) {
+                consumedCapacity.add(page.consumedCapacity().capacityUnits());
+            }
+            if (page.scannedCount() != null) {
+                scannedCount.add(page.scannedCount());
+            }
+            for (MusicTrack item : page.items()) {
+                while (!queue.offer(item, 50, TimeUnit.MILLISECONDS)) {
+                    if (stop.get()) {
+                        return;
+                    }
+                }
+            }
+            if (request.getCapacityBudget() != null && consumedCapacity.sum() >= request.getCapacityBudget()) {
+                budgetExhausted.set(true);
+                stop.set(true);
+                return;
+            }
+            if (stop.get()) {
+                return;
+            }
+        }
     }
 
     public void deleteSongByPartitionAndSortKey(String artistName, String songName) {
         final String finalArtistName = artistName.trim().toLowerCase();
         final String finalSongName = songName.trim().toLowerCase();
-        musicTrackTable.deleteItem(k -> k.key(k1 -> k1.partitionValue(finalArtistName).sortValue(finalSongName)));
+        bulkheads.write().run(() -> musicTrackTable.deleteItem(
+                k -> k.key(k1 -> k1.partitionValue(finalArtistName).sortValue(finalSongName))));
+        catalogVersion.incrementAndGet();
+        searchIndex.remove(finalArtistName, finalSongName);
+        autocompleteIndex.remove(finalArtistName, finalSongName);
+        lookupCache.invalidate(finalArtistName, finalSongName);
+        lookupCache.invalidate(artistName, songName);
     }
 
     public MusicTrack updateSong(MusicTrack musicTrack) {
+        normalize(musicTrack);
+        bulkheads.write().run(() -> musicTrackTable.putItem(musicTrack));
+        catalogVersion.incrementAndGet();
+        lookupCache.invalidate(musicTrack.getArtistName(), musicTrack.getSongName());
+        searchIndex.put(musicTrack.getArtistName(), musicTrack.getSongName(),
+                musicTrack.getArtistNameLower(), musicTrack.getSongNameLower());
+        autocompleteIndex.put(musicTrack.getArtistName(), musicTrack.getSongName(), plays(musicTrack));
+        return musicTrack;
+    }
+
+    /**
+     * Writes duration, bitrate and sample rate onto an existing track without
+     * touching its other attributes.
+     *
+     * @return false if the track no longer exists
+     */
+    public boolean updateAudioInfo(String artistName, String songName, int duration, int bitrate, int sampleRate) {
+        long start = System.nanoTime();
+        MusicTrack update = MusicTrack.builder()
+                .artistName(artistName)
+                .songName(songName)
+                .duration(duration)
+                .bitrate(bitrate)
+                .sampleRate(sampleRate)
+                .build();
+        try {
+            bulkheads.write().run(() -> musicTrackTable.updateItem(UpdateItemEnhancedRequest.builder(MusicTrack.class)
+                    .item(update)
+                    .ignoreNulls(true)
+                    .conditionExpression(Expression.builder().expression("attribute_exists(artistName)").build())
+                    .build()));
+            catalogVersion.incrementAndGet();
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        } finally {
+            lookupCache.invalidate(artistName, songName);
+            record("updateAudioInfo", start);
+        }
+    }
+
+    /**
+     * Adds {@code plays} to the track's play count. DynamoDB applies ADD atomically,
+     * so counts flushed by several containers add up. Doesn't change the catalog
+     * version or the lookup cache: play counts may lag on cached reads.
+     *
+     * @return false if the track doesn't exist
+     */
+    public boolean addPlayCount(String artistName, String songName, long plays) {
+        long start = System.nanoTime();
+        try {
+            bulkheads.write().run(() -> dynamoDbClient.updateItem(r -> r.tableName("MusicTrack")
+                    .key(Map.of("artistName", AttributeValue.fromS(artistName),
+                            "songName", AttributeValue.fromS(songName)))
+                    .updateExpression("ADD playCount :plays")
+                    .conditionExpression("attribute_exists(artistName)")
+                    .expressionAttributeValues(Map.of(":plays", AttributeValue.fromN(Long.toString(plays))))));
+            autocompleteIndex.addPlays(artistName, songName, plays);
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        } finally {
+            record("addPlayCount", start);
+        }
+    }
+
+    private void record(String method, long startNanos) {
+        callTimers.computeIfAbsent(method, m -> Timer.builder("musify.repository.calls")
+                        .description("MusicTrackRepository calls, lookup cache hits included")
+                        .tag("method", m)
+                        .register(meterRegistry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /*
+     * Listing reads answer an empty page when DynamoDB fails, but not when a
+     * bulkhead shed the call: the client should back off and retry, and an empty
+     * page would get an ETag and be cached.
+     */
+    private static void rethrowIfOverloaded(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof OverloadedException overloaded) {
+            throw overloaded;
+        }
+    }
+
+    private <T> CompletableFuture<T> recordWhenDone(String method, long startNanos, CompletableFuture<T> call) {
+        return call.whenComplete((result, error) -> record(method, startNanos));
+    }
+
+    // how much a listing page had to read to return what it did; the gap is what the filter threw away
+    private void recordScanPage(Page<MusicTrack> page) {
+        if (page.scannedCount() != null) {
+            scannedItems.increment(page.scannedCount());
+        }
+        returnedItems.increment(page.items().size());
+        if (page.consumedCapacity() != null && page.consumedCapacity().capacityUnits() != null) {
+            scanCapacity.increment(page.consumedCapacity().capacityUnits());
+        }
+    }
+
+    private void recordQueryPage(Page<MusicTrack> page) {
+        if (page.consumedCapacity() != null && page.consumedCapacity().capacityUnits() != null) {
+            queryCapacity.increment(page.consumedCapacity().capacityUnits());
+        }
+    }
+
+    private void normalize(MusicTrack musicTrack) {
+        if (musicTrack.getArtistName() != null && musicTrack.getSongName() != null) {
+            musicTrack.setListingKey(MusicTrack.listingKey(musicTrack.getArtistName(), musicTrack.getSongName()));
+        }
+        if (musicTrack.getUploadedAt() == null) {
+            musicTrack.setUploadedAt(System.currentTimeMillis());
+        }
         if (musicTrack.getArtistName() != null) {
             musicTrack.setArtistNameLower(musicTrack.getArtistName().toLowerCase());
         }
         if (musicTrack.getSongName() != null) {
             musicTrack.setSongNameLower(musicTrack.getSongName().toLowerCase());
         }
-        musicTrackTable.putItem(musicTrack);
-        return musicTrack;
     }
 
     public boolean exists(String artistName, String songName) {
@@ -0,0 +1,146 @@
+package com.musify.api.repository;
+
+import com.musify.api.model.MusicTrack;
+import com.musify.api.search.TrackSearchIndex;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes and decodes the opaque nextToken handed to clients.
+ * Scan tokens are "ArtistName|SongName" in Base64 (the LastEvaluatedKey);
+ * search tokens are "score|ArtistName|SongName", the last hit returned;
+ * listing tokens hold, for each listing shard, "sortValue|ArtistName|SongName" of
+ * the last track taken from it in Base64, "" before the first or "-" once it has
+ * no more, joined by ",".
+ * Invalid tokens decode to null, which restarts from the first page.
+ */
+public final class PageTokens {
+
+    public static final String SHARD_START = "";
+    public static final String SHARD_DONE = "-";
+
+    private PageTokens() {
+    }
+
+    public static String encodeScanKey(Map<String, AttributeValue> lastKey) {
+        if (lastKey == null || lastKey.isEmpty()) {
+            return null;
+        }
+        AttributeValue artistAttr = lastKey.get("artistName");
+        AttributeValue songAttr = lastKey.get("songName");
+        if (artistAttr == null || songAttr == null) {
+            return null;
+        }
+        return encode(artistAttr.s() + "|" + songAttr.s());
+    }
+
+    public static Map<String, AttributeValue> decodeScanKey(String token) {
+        String decoded = decode(token);
+        if (decoded == null) {
+            return null;
+        }
+        String[] parts = decoded.split("\\|", 2);
+        if (parts.length != 2) {
+            return null;
+        }
+        Map<String, AttributeValue> startKey = new HashMap<>();
+        startKey.put("artistName", AttributeValue.builder().s(parts[0]).build());
+        startKey.put("songName", AttributeValue.builder().s(parts[1]).build());
+        return startKey;
+    }
+
+    /**
+     * @return null once every shard is done
+     */
+    public static String encodeListingCursor(List<String> shardTokens) {
+        if (shardTokens.stream().allMatch(SHARD_DONE::equals)) {
+            return null;
+        }
+        return encode(String.join(",", shardTokens));
+    }
+
+    /**
+     * @return a token per shard; all {@link #SHARD_START} for no token or one
+     *         written for a different number of shards
+     */
+    public static List<String> decodeListingCursor(String token, int shards) {
+        String decoded = decode(token);
+        // -1 keeps trailing empty tokens
+        String[] parts = decoded == null ? new String[0] : decoded.split(",", -1);
+        if (parts.length != shards) {
+            return new ArrayList<>(Collections.nCopies(shards, SHARD_START));
+        }
+        return new ArrayList<>(List.of(parts));
+    }
+
+    public static String encodeListingKey(MusicTrack track, TrackOrder order) {
+        return encode(order.sortValue(track) + "|" + track.getArtistName() + "|" + track.getSongName());
+    }
+
+    /**
+     * @param listingKey the shard the token was taken from
+     */
+    public static Map<String, AttributeValue> decodeListingKey(String token, TrackOrder order, String listingKey) {
+        String decoded = decode(token);
+        if (decoded == null) {
+            return null;
+        }
+        String[] parts = decoded.split("\\|", 3);
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        Map<String, AttributeValue> startKey = new HashMap<>();
+        startKey.put("listingKey", AttributeValue.builder().s(listingKey).build());
+        startKey.put(order.attribute(), AttributeValue.builder().n(parts[0]).build());
+        startKey.put("artistName", AttributeValue.builder().s(parts[1]).build());
+        startKey.put("songName", AttributeValue.builder().s(parts[2]).build());
+        return startKey;
+    }
+
+    public static String encodeSearchCursor(TrackSearchIndex.Hit hit) {
+        return encode(hit.score() + "|" + hit.artistName() + "|" + hit.songName());
+    }
+
+    public static TrackSearchIndex.Hit decodeSearchCursor(String token) {
+        String decoded = decode(token);
+        if (decoded == null) {
+            return null;
+        }
+        String[] parts = decoded.split("\\|", 3);
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new TrackSearchIndex.Hit(Integer.parseInt(parts[0]), parts[1], parts[2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String encode(String raw) {
+        return Base64.getEncoder().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
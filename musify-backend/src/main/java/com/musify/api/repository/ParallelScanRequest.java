@@ -0,0 +1,24 @@
+package com.musify.api.repository;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Options for {@link MusicTrackRepository#parallelScan}.
+ */
+@Data
+@Builder
+public class ParallelScanRequest {
+    // number of Scan segments read concurrently (DynamoDB TotalSegments)
+    @Builder.Default
+    private int totalSegments = 4;
+    // attributes to read; null reads the whole item
+    private List<String> attributesToProject;
+    // stop once this many read capacity units were consumed; null means no limit
+    private Double capacityBudget;
+    // items buffered between the segment readers and the consumer before readers block
+    @Builder.Default
+    private int queueCapacity = 1000;
+}
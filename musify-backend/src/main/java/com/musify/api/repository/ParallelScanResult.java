@@ -0,0 +1,8 @@
+package com.musify.api.repository;
+
+import java.time.Duration;
+
+public record ParallelScanResult(long itemCount, long scannedCount, double consumedCapacity,
+                                 boolean budgetExhausted, Duration elapsed) {
+
+}
@@ -0,0 +1,133 @@
+package com.musify.api.repository;
+
+import com.musify.api.dto.PaginatedResponse;
+import com.musify.api.model.MusicTrack;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects one response page from as many Scan pages as it takes. DynamoDB applies
+ * Limit before the filter, so a single filtered Scan page often returns few or no
+ * matches. This keeps reading until {@code limit} matches are collected, the table
+ * ends, or the read capacity or time budget is spent. Pages are sequential (each
+ * starts at the previous LastEvaluatedKey), so instead of prefetching, later pages
+ * ask for more items according to the match rate seen so far. When a page brings
+ * more matches than needed, the cursor is the key of the last item returned, so the
+ * next call resumes right after it and nothing is skipped.
+ */
+public class ScanPageFiller {
+
+    // read a bit more than the match rate predicts, so one more page is usually enough
+    private static final double READ_AHEAD = 1.25;
+
+    private final int limit;
+    private final int maxPageSize;
+    private final double capacityBudget;
+    private final Instant deadline;
+    private final Clock clock;
+    private final List<MusicTrack> items;
+
+    private Map<String, AttributeValue> startKey;
+    private int pageSize;
+    private long scanned;
+    private long matched;
+    private double consumedCapacity;
+    private int pages;
+
+    public ScanPageFiller(int limit, Map<String, AttributeValue> startKey, int maxPageSize, double capacityBudget,
+                          Duration timeBudget, Clock clock) {
+        this.limit = limit;
+        this.startKey = startKey;
+        this.maxPageSize = Math.max(limit, maxPageSize);
+        this.capacityBudget = capacityBudget;
+        this.clock = clock;
+        this.deadline = clock.instant().plus(timeBudget);
+        this.items = new ArrayList<>(Math.min(limit, maxPageSize));
+        this.pageSize = limit;
+    }
+
+    /**
+     * @return the ExclusiveStartKey for the next Scan request, null for the start of the table
+     */
+    public Map<String, AttributeValue> startKey() {
+        return startKey;
+    }
+
+    /**
+     * @return the Limit for the next Scan request
+     */
+    public int pageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Takes the matches of one Scan page.
+     *
+     * @return true if another page should be read
+     */
+    public boolean add(Page<MusicTrack> page) {
+        pages++;
+        if (page.consumedCapacity() != null && page.consumedCapacity().capacityUnits() != null) {
+            consumedCapacity += page.consumedCapacity().capacityUnits();
+        }
+        scanned += page.scannedCount() != null ? page.scannedCount() : pageSize;
+        matched += page.items().size();
+
+        List<MusicTrack> pageItems = page.items();
+        int needed = limit - items.size();
+        if (pageItems.size() > needed) {
+            items.addAll(pageItems.subList(0, needed));
+            startKey = keyOf(items.get(items.size() - 1));
+            return false;
+        }
+        items.addAll(pageItems);
+        // everything up to LastEvaluatedKey was read, so resuming there skips nothing that matches
+        startKey = page.lastEvaluatedKey() == null || page.lastEvaluatedKey().isEmpty()
+                ? null : page.lastEvaluatedKey();
+        if (startKey == null || items.size() == limit || budgetSpent()) {
+            return false;
+        }
+        pageSize = nextPageSize(limit - items.size());
+        return true;
+    }
+
+    public boolean budgetSpent() {
+        return consumedCapacity >= capacityBudget || !clock.instant().isBefore(deadline);
+    }
+
+    public int pages() {
+        return pages;
+    }
+
+    public double consumedCapacity() {
+        return consumedCapacity;
+    }
+
+    /**
+     * The matches collected so far. Until a page has been read there is no cursor,
+     * so a failed first read looks like an empty last page, as a single Scan did.
+     */
+    public PaginatedResponse response() {
+        return new PaginatedResponse(items, pages == 0 ? null : PageTokens.encodeScanKey(startKey));
+    }
+
+    private int nextPageSize(int remaining) {
+        // no match yet says little about the rate, so just grow the page
+        long estimate = matched == 0
+                ? (long) pageSize * 4
+                : (long) Math.ceil(remaining * ((double) scanned / matched) * READ_AHEAD);
+        return (int) Math.max(limit, Math.min(maxPageSize, estimate));
+    }
+
+    private static Map<String, AttributeValue> keyOf(MusicTrack track) {
+        return Map.of("artistName", AttributeValue.builder().s(track.getArtistName()).build(),
+                "songName", AttributeValue.builder().s(track.getSongName()).build());
+    }
+}
@@ -0,0 +1,107 @@
+package com.musify.api.repository;
+
+import com.musify.api.dto.PaginatedResponse;
+import com.musify.api.model.MusicTrack;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a catalog-wide listing, merged from the listing index's shards.
+ * Tracks are spread over {@link MusicTrack#LISTING_SHARDS} index partitions, so
+ * every shard that still has tracks is queried for up to {@code limit} of them in
+ * index order, and the pages are merged. The cursor keeps the last track taken
+ * from each shard, so each shard resumes right after it, as a single Query would.
+ * A shard page cut short by DynamoDB's 1 MB cap bounds the merge: nothing that
+ * sorts after its last track is taken, because its next tracks could come first.
+ */
+public class ShardedListing {
+
+    private final TrackOrder order;
+    private final int limit;
+    private final Comparator<MusicTrack> comparator;
+    // per shard: a listing key token, PageTokens.SHARD_START or PageTokens.SHARD_DONE
+    private final List<String> cursor;
+
+    private record Candidate(MusicTrack track, int shard) {
+    }
+
+    public ShardedListing(TrackOrder order, boolean ascending, int limit, String nextToken) {
+        this.order = order;
+        this.limit = limit;
+        // the index orders ties on the sort value by the table key
+        Comparator<MusicTrack> indexOrder = Comparator.comparing(order::sortValue)
+                .thenComparing(MusicTrack::getArtistName)
+                .thenComparing(MusicTrack::getSongName);
+        this.comparator = ascending ? indexOrder : indexOrder.reversed();
+        this.cursor = PageTokens.decodeListingCursor(nextToken, MusicTrack.LISTING_SHARDS);
+    }
+
+    /**
+     * @return the shards that may have more tracks
+     */
+    public List<Integer> shards() {
+        List<Integer> shards = new ArrayList<>();
+        for (int shard = 0; shard < cursor.size(); shard++) {
+            if (!PageTokens.SHARD_DONE.equals(cursor.get(shard))) {
+                shards.add(shard);
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * @return the ExclusiveStartKey for the shard's Query, null for its first track
+     */
+    public Map<String, AttributeValue> startKey(int shard) {
+        return PageTokens.decodeListingKey(cursor.get(shard), order, MusicTrack.listingKey(shard));
+    }
+
+    /**
+     * @param pages one Query page for each of {@link #shards()}, in that order
+     */
+    public PaginatedResponse merge(List<Page<MusicTrack>> pages) {
+        List<Integer> shards = shards();
+        MusicTrack bound = null;
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < pages.size(); i++) {
+            List<MusicTrack> items = pages.get(i).items();
+            for (MusicTrack track : items) {
+                candidates.add(new Candidate(track, shards.get(i)));
+            }
+            if (hasMore(pages.get(i)) && !items.isEmpty()) {
+                MusicTrack last = items.get(items.size() - 1);
+                if (bound == null || comparator.compare(last, bound) < 0) {
+                    bound = last;
+                }
+            }
+        }
+        candidates.sort(Comparator.comparing(Candidate::track, comparator));
+
+        List<MusicTrack> items = new ArrayList<>(Math.min(limit, candidates.size()));
+        int[] taken = new int[cursor.size()];
+        for (Candidate candidate : candidates) {
+            if (items.size() == limit || bound != null && comparator.compare(candidate.track(), bound) > 0) {
+                break;
+            }
+            items.add(candidate.track());
+            taken[candidate.shard()]++;
+            cursor.set(candidate.shard(), PageTokens.encodeListingKey(candidate.track(), order));
+        }
+        for (int i = 0; i < pages.size(); i++) {
+            int shard = shards.get(i);
+            if (!hasMore(pages.get(i)) && taken[shard] == pages.get(i).items().size()) {
+                cursor.set(shard, PageTokens.SHARD_DONE);
+            }
+        }
+        return new PaginatedResponse(items, PageTokens.encodeListingCursor(cursor));
+    }
+
+    private static boolean hasMore(Page<MusicTrack> page) {
+        return page.lastEvaluatedKey() != null && !page.lastEvaluatedKey().isEmpty();
+    }
+}
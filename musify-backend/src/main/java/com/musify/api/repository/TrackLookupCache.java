@@ -0,0 +1,118 @@
+package com.musify.api.repository;
+
+import com.musify.api.model.MusicTrack;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU read-through cache for artist/song point lookups. Misses are cached
+ * too (with a shorter TTL), so repeated duplicate checks for songs that don't
+ * exist yet stay off DynamoDB. Any invalidation bumps a generation counter, and a
+ * value loaded before that bump is not stored, so a load racing a write can't put
+ * the old item back.
+ */
+public class TrackLookupCache {
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final Clock clock;
+    private final Map<String, CachedTrack> entries;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // track == null means "known not to exist"
+    private record CachedTrack(MusicTrack track, Instant expiresAt) {
+    }
+
+    public record Stats(long hits, long negativeHits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long total = hits + negativeHits + misses;
+            return total == 0 ? 0.0 : (double) (hits + negativeHits) / total;
+        }
+    }
+
+    public TrackLookupCache(int maxSize, Duration ttl, Duration negativeTtl, Clock clock) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedTrack> eldest) {
+                if (size() > TrackLookupCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public MusicTrack get(String artistName, String songName, Supplier<MusicTrack> loader) {
+        return getAsync(artistName, songName, () -> CompletableFuture.completedFuture(loader.get())).join();
+    }
+
+    /**
+     * Same as {@link #get} for a loader that completes later, e.g. the async DynamoDB client.
+     */
+    public CompletableFuture<MusicTrack> getAsync(String artistName, String songName,
+                                                  Supplier<CompletableFuture<MusicTrack>> loader) {
+        String key = key(artistName, songName);
+        Instant now = clock.instant();
+        long loadGeneration;
+        synchronized (entries) {
+            CachedTrack cached = entries.get(key);
+            if (cached != null) {
+                if (cached.expiresAt().isAfter(now)) {
+                    (cached.track() != null ? hits : negativeHits).increment();
+                    return CompletableFuture.completedFuture(cached.track());
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+            loadGeneration = generation.get();
+        }
+        misses.increment();
+        return loader.get().thenApply(track -> {
+            synchronized (entries) {
+                if (generation.get() == loadGeneration) {
+                    entries.put(key, new CachedTrack(track, now.plus(track != null ? ttl : negativeTtl)));
+                }
+            }
+            return track;
+        });
+    }
+
+    public void invalidate(String artistName, String songName) {
+        if (artistName == null || songName == null) {
+            return;
+        }
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(key(artistName, songName));
+        }
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.sum(), negativeHits.sum(), misses.sum(), evictions.sum(), entries.size());
+        }
+    }
+
+    private static String key(String artistName, String songName) {
+        return artistName.trim() + '\u0000' + songName.trim();
+    }
+}
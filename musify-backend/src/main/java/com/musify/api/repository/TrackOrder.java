@@ -0,0 +1,53 @@
+package com.musify.api.repository;
+
+import com.musify.api.model.MusicTrack;
+
+/**
+ * Catalog-wide orders served by a global secondary index, see
+ * {@link MusicTrackRepository#findSorted}.
+ */
+public enum TrackOrder {
+    UPLOADED_AT("uploadedAt", MusicTrack.INDEX_BY_UPLOAD_TIME),
+    DURATION("duration", MusicTrack.INDEX_BY_DURATION);
+
+    private final String attribute;
+    private final String indexName;
+
+    TrackOrder(String attribute, String indexName) {
+        this.attribute = attribute;
+        this.indexName = indexName;
+    }
+
+    /**
+     * The sort key attribute, which is also the name clients use in {@code ?by=}.
+     */
+    public String attribute() {
+        return attribute;
+    }
+
+    public String indexName() {
+        return indexName;
+    }
+
+    /**
+     * @return the track's value of the sort attribute, null if it has none
+     */
+    public Long sortValue(MusicTrack track) {
+        return switch (this) {
+            case UPLOADED_AT -> track.getUploadedAt();
+            case DURATION -> track.getDuration() == null ? null : track.getDuration().longValue();
+        };
+    }
+
+    /**
+     * @return the order sorting on {@code attribute}, or null if there is none
+     */
+    public static TrackOrder fromAttribute(String attribute) {
+        for (TrackOrder order : values()) {
+            if (order.attribute.equals(attribute)) {
+                return order;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,318 @@
+package com.musify.api.search;
+
+import com.musify.api.dto.Completion;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix completion over artist and song names, weighted by plays.
+ * <p>
+ * The names live in two {@link CompletionDictionary CompletionDictionaries},
+ * built from a pass over the catalog: artists weighted by the plays of all their
+ * songs, and songs pointing at their artist. Plays and removals change weights in
+ * place. Names added afterwards wait in small sorted maps until there are more
+ * than 1/16 as many as built names, and then everything is rebuilt into new
+ * dictionaries. Artists whose songs were all removed disappear at that point.
+ */
+@Component
+public class AutocompleteIndex {
+
+    private static final int MIN_PENDING_BEFORE_REBUILD = 1024;
+
+    private static final Comparator<Completion> ORDER = Comparator.comparingLong(Completion::weight).reversed()
+            .thenComparing(completion -> completion.songName() != null)
+            .thenComparing(completion -> completion.songName() == null ? "" : completion.songName(),
+                    String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Completion::artistName, String.CASE_INSENSITIVE_ORDER);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private CompletionDictionary artists = CompletionDictionary.empty();
+    // payload: the artist's ordinal in artists
+    private CompletionDictionary songs = CompletionDictionary.empty();
+    // added since the dictionaries were built; songs by song key + '\0' + artist key
+    private final TreeMap<String, Pending> pendingArtists = new TreeMap<>();
+    private final TreeMap<String, Pending> pendingSongs = new TreeMap<>();
+    private volatile Instant loadedAt;
+
+    /**
+     * @param bytes held by the built dictionaries
+     */
+    public record Stats(int names, int pending, long bytes) {
+    }
+
+    private static final class Pending {
+        final String artistName;
+        final String songName;
+        long weight;
+
+        Pending(String artistName, String songName, long weight) {
+            this.artistName = artistName;
+            this.songName = songName;
+            this.weight = weight;
+        }
+    }
+
+    public boolean isLoaded() {
+        return loadedAt != null;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(artists.size() + songs.size(), pendingArtists.size() + pendingSongs.size(),
+                    artists.sizeInBytes() + songs.sizeInBytes());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces everything with what {@code loader} was given.
+     */
+    public void replaceAll(Loader loader) {
+        CompletionDictionary[] built = loader.build();
+        lock.writeLock().lock();
+        try {
+            artists = built[0];
+            songs = built[1];
+            pendingArtists.clear();
+            pendingSongs.clear();
+            loadedAt = Instant.now();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} artists and songs whose name starts with
+     *         {@code prefix}, ignoring case, most played first
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        String key = prefix.toLowerCase();
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        List<Completion> completions = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int ordinal : artists.top(keyBytes, limit)) {
+                completions.add(new Completion(artists.name(ordinal).display(), null, artists.weight(ordinal)));
+            }
+            for (int ordinal : songs.top(keyBytes, limit)) {
+                CompletionDictionary.Name song = songs.name(ordinal);
+                completions.add(new Completion(artists.name(song.payload()).display(), song.display(),
+                        songs.weight(ordinal)));
+            }
+            for (Map.Entry<String, Pending> entry : pendingArtists.tailMap(key).entrySet()) {
+                if (!entry.getKey().startsWith(key)) {
+                    break;
+                }
+                completions.add(new Completion(entry.getValue().artistName, null, entry.getValue().weight));
+            }
+            for (Map.Entry<String, Pending> entry : pendingSongs.tailMap(key).entrySet()) {
+                if (!entry.getKey().startsWith(key)) {
+                    break;
+                }
+                Pending song = entry.getValue();
+                completions.add(new Completion(song.artistName, song.songName, song.weight));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        completions.sort(ORDER);
+        return completions.size() > limit ? completions.subList(0, limit) : completions;
+    }
+
+    /**
+     * Adds a song, or sets its weight if it's already there. Ignored until the
+     * index is loaded.
+     */
+    public void put(String artistName, String songName, long plays) {
+        if (!isLoaded()) {
+            return;
+        }
+        String artistKey = artistName.toLowerCase();
+        String songKey = songName.toLowerCase();
+        lock.writeLock().lock();
+        try {
+            int artist = artists.find(artistKey.getBytes(StandardCharsets.UTF_8), CompletionDictionary.ANY_PAYLOAD);
+            int song = findSong(artist, songKey);
+            if (song >= 0) {
+                int old = songs.weight(song);
+                songs.setWeight(song, clamp(plays));
+                addArtistWeight(artist, artistKey, plays - Math.max(0, old));
+                return;
+            }
+            Pending pending = pendingSongs.get(songKey + '\0' + artistKey);
+            long old = 0;
+            if (pending == null) {
+                pendingSongs.put(songKey + '\0' + artistKey, new Pending(artistName, songName, plays));
+            } else {
+                old = pending.weight;
+                pending.weight = plays;
+            }
+            if (artist < 0) {
+                pendingArtists.computeIfAbsent(artistKey, key -> new Pending(artistName, null, 0));
+            }
+            addArtistWeight(artist, artistKey, plays - old);
+            if (pendingSongs.size() > Math.max(MIN_PENDING_BEFORE_REBUILD, songs.size() / 16)) {
+                rebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String artistName, String songName) {
+        if (!isLoaded()) {
+            return;
+        }
+        String artistKey = artistName.toLowerCase();
+        String songKey = songName.toLowerCase();
+        lock.writeLock().lock();
+        try {
+            int artist = artists.find(artistKey.getBytes(StandardCharsets.UTF_8), CompletionDictionary.ANY_PAYLOAD);
+            int song = findSong(artist, songKey);
+            if (song >= 0 && songs.weight(song) >= 0) {
+                addArtistWeight(artist, artistKey, -songs.weight(song));
+                songs.setWeight(song, -1);
+                return;
+            }
+            Pending pending = pendingSongs.remove(songKey + '\0' + artistKey);
+            if (pending != null) {
+                addArtistWeight(artist, artistKey, -pending.weight);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addPlays(String artistName, String songName, long plays) {
+        if (!isLoaded()) {
+            return;
+        }
+        String artistKey = artistName.toLowerCase();
+        String songKey = songName.toLowerCase();
+        lock.writeLock().lock();
+        try {
+            int artist = artists.find(artistKey.getBytes(StandardCharsets.UTF_8), CompletionDictionary.ANY_PAYLOAD);
+            int song = findSong(artist, songKey);
+            if (song >= 0 && songs.weight(song) >= 0) {
+                songs.setWeight(song, clamp(songs.weight(song) + plays));
+                addArtistWeight(artist, artistKey, plays);
+                return;
+            }
+            Pending pending = pendingSongs.get(songKey + '\0' + artistKey);
+            if (pending != null) {
+                pending.weight += plays;
+                addArtistWeight(artist, artistKey, plays);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int findSong(int artist, String songKey) {
+        return artist < 0 ? -1 : songs.find(songKey.getBytes(StandardCharsets.UTF_8), artist);
+    }
+
+    private void addArtistWeight(int artist, String artistKey, long delta) {
+        if (artist >= 0) {
+            artists.setWeight(artist, clamp(artists.weight(artist) + delta));
+        } else {
+            Pending pending = pendingArtists.get(artistKey);
+            if (pending != null) {
+                pending.weight = Math.max(0, pending.weight + delta);
+            }
+        }
+    }
+
+    // under the write lock
+    private void rebuild() {
+        Loader loader = new Loader();
+        String[] artistNames = new String[artists.size()];
+        int[] next = {0};
+        artists.forEach((name, weight) -> artistNames[next[0]++] = name.display());
+        songs.forEach((name, weight) -> {
+            if (weight >= 0) {
+                loader.add(artistNames[name.payload()], name.display(), weight);
+            }
+        });
+        pendingSongs.values().forEach(song -> loader.add(song.artistName, song.songName, song.weight));
+        CompletionDictionary[] built = loader.build();
+        artists = built[0];
+        songs = built[1];
+        pendingArtists.clear();
+        pendingSongs.clear();
+    }
+
+    private static int clamp(long weight) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, weight));
+    }
+
+    /**
+     * Collects the catalog for {@link #replaceAll}, one track at a time.
+     */
+    public static final class Loader {
+
+        private final Map<String, Row> artists = new HashMap<>();
+        private final List<Row> songs = new ArrayList<>();
+
+        private static final class Row {
+            final String key;
+            final byte[] keyBytes;
+            final String name;
+            final Row artist;
+            long weight;
+            int ordinal;
+
+            Row(String name, Row artist) {
+                this.key = name.toLowerCase();
+                this.keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                this.name = name;
+                this.artist = artist;
+            }
+        }
+
+        public void add(String artistName, String songName, long plays) {
+            Row artist = artists.computeIfAbsent(artistName.toLowerCase(), key -> new Row(artistName, null));
+            artist.weight += plays;
+            Row song = new Row(songName, artist);
+            song.weight = plays;
+            songs.add(song);
+        }
+
+        CompletionDictionary[] build() {
+            List<Row> sortedArtists = new ArrayList<>(artists.values());
+            sortedArtists.sort((a, b) -> Arrays.compareUnsigned(a.keyBytes, b.keyBytes));
+            CompletionDictionary.Builder artistDictionary = new CompletionDictionary.Builder();
+            for (int i = 0; i < sortedArtists.size(); i++) {
+                Row artist = sortedArtists.get(i);
+                artist.ordinal = i;
+                artistDictionary.add(artist.key, artist.keyBytes, artist.name, 0, clamp(artist.weight));
+            }
+            songs.sort((a, b) -> {
+                int compare = Arrays.compareUnsigned(a.keyBytes, b.keyBytes);
+                return compare != 0 ? compare : Integer.compare(a.artist.ordinal, b.artist.ordinal);
+            });
+            CompletionDictionary.Builder songDictionary = new CompletionDictionary.Builder();
+            for (Row song : songs) {
+                songDictionary.add(song.key, song.keyBytes, song.name, song.artist.ordinal, clamp(song.weight));
+            }
+            return new CompletionDictionary[]{artistDictionary.build(), songDictionary.build()};
+        }
+    }
+}
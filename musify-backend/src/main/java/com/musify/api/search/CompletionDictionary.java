@@ -0,0 +1,466 @@
+package com.musify.api.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Names sorted by their lowercase UTF-8 bytes and stored front-coded in blocks
+ * of {@value #BLOCK_SIZE}: each name keeps only the bytes it doesn't share with
+ * the one before, and the first of a block is stored whole so a lookup can
+ * binary-search the blocks. The original casing is kept as the positions of
+ * uppercase letters, and each name has an int payload.
+ * <p>
+ * Weights live apart from the encoded names so they can change in place, and a
+ * tree of each block's highest weight lets {@link #top} walk to the heaviest
+ * names under a prefix without looking at the rest. A negative weight marks a
+ * removed name. Not thread-safe.
+ */
+final class CompletionDictionary {
+
+    static final int BLOCK_SIZE = 16;
+    static final int ANY_PAYLOAD = -1;
+
+    private final byte[] data;
+    private final int[] blockOffsets;
+    private final int[] weights;
+    // highest weight under each node; leaf i (a block) is node leaves + i, node n's children 2n and 2n + 1
+    private final int[] tree;
+    private final int leaves;
+    private final int size;
+
+    /**
+     * A decoded name.
+     */
+    record Name(String key, String display, int payload) {
+    }
+
+    private CompletionDictionary(byte[] data, int[] blockOffsets, int[] weights, int size) {
+        this.data = data;
+        this.blockOffsets = blockOffsets;
+        this.weights = weights;
+        this.size = size;
+        this.leaves = Integer.highestOneBit(Math.max(1, blockOffsets.length - 1)) << 1;
+        this.tree = new int[2 * leaves];
+        Arrays.fill(tree, -1);
+        for (int block = 0; block < blockOffsets.length; block++) {
+            tree[leaves + block] = blockMax(block);
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    static CompletionDictionary empty() {
+        return new Builder().build();
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return bytes held by the dictionary's arrays
+     */
+    long sizeInBytes() {
+        return data.length + 4L * (blockOffsets.length + weights.length + tree.length);
+    }
+
+    int weight(int ordinal) {
+        return weights[ordinal];
+    }
+
+    void setWeight(int ordinal, int weight) {
+        weights[ordinal] = weight;
+        int node = leaves + ordinal / BLOCK_SIZE;
+        tree[node] = blockMax(ordinal / BLOCK_SIZE);
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * @param payload the payload the name must have, or {@link #ANY_PAYLOAD}
+     * @return the ordinal of the name whose key is exactly {@code key}, or -1
+     */
+    int find(byte[] key, int payload) {
+        Cursor cursor = new Cursor();
+        int ordinal = search(key, false, cursor);
+        if (ordinal == size) {
+            return -1;
+        }
+        cursor.seekBefore(ordinal);
+        for (; ordinal < size; ordinal++) {
+            cursor.next();
+            if (cursor.keyLength != key.length || compareTruncated(cursor.key, cursor.keyLength, key) != 0) {
+                return -1;
+            }
+            if (payload == ANY_PAYLOAD || cursor.payload == payload) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    Name name(int ordinal) {
+        Cursor cursor = new Cursor();
+        cursor.seekBefore(ordinal);
+        cursor.next();
+        return cursor.name();
+    }
+
+    /**
+     * Visits every name in order with its weight, removed ones included.
+     */
+    void forEach(NameVisitor visitor) {
+        Cursor cursor = new Cursor();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (ordinal % BLOCK_SIZE == 0) {
+                cursor.seek(ordinal / BLOCK_SIZE);
+            }
+            cursor.next();
+            visitor.visit(cursor.name(), weights[ordinal]);
+        }
+    }
+
+    interface NameVisitor {
+        void visit(Name name, int weight);
+    }
+
+    /**
+     * @return the ordinals of up to {@code k} names starting with {@code prefix},
+     *         heaviest first and in key order among equal weights
+     */
+    int[] top(byte[] prefix, int k) {
+        Cursor cursor = new Cursor();
+        int from = search(prefix, false, cursor);
+        int to = search(prefix, true, cursor);
+        if (from >= to || k <= 0) {
+            return new int[0];
+        }
+        // best first: a node stands for the names under it, at their highest weight
+        LongHeap heap = new LongHeap();
+        int l = leaves + from / BLOCK_SIZE;
+        int r = leaves + (to - 1) / BLOCK_SIZE + 1;
+        while (l < r) {
+            if ((l & 1) == 1) {
+                pushNode(heap, l++);
+            }
+            if ((r & 1) == 1) {
+                pushNode(heap, --r);
+            }
+            l >>>= 1;
+            r >>>= 1;
+        }
+        int[] found = new int[k];
+        int count = 0;
+        while (count < k && !heap.isEmpty()) {
+            long item = heap.pop();
+            int id = Integer.MAX_VALUE - (int) (item & 0x7FFFFFFFL);
+            if ((item & 0x80000000L) == 0) {
+                found[count++] = id;
+                continue;
+            }
+            // walk down to the block holding the node's heaviest name, leaving the other side for later
+            while (id < leaves) {
+                int heavier = tree[2 * id] >= tree[2 * id + 1] ? 2 * id : 2 * id + 1;
+                pushNode(heap, heavier ^ 1);
+                id = heavier;
+            }
+            int block = id - leaves;
+            int end = Math.min(to, (block + 1) * BLOCK_SIZE);
+            for (int ordinal = Math.max(from, block * BLOCK_SIZE); ordinal < end; ordinal++) {
+                if (weights[ordinal] >= 0) {
+                    heap.push(priority(weights[ordinal], false, ordinal));
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private void pushNode(LongHeap heap, int node) {
+        if (tree[node] >= 0) {
+            heap.push(priority(tree[node], true, node));
+        }
+    }
+
+    // heaviest first; at equal weight a node before a name, since it may hold an equal name that sorts earlier
+    private static long priority(int weight, boolean node, int id) {
+        return (long) weight << 32 | (node ? 0x80000000L : 0) | (Integer.MAX_VALUE - id);
+    }
+
+    private int blockMax(int block) {
+        int max = -1;
+        int end = Math.min(size, (block + 1) * BLOCK_SIZE);
+        for (int ordinal = block * BLOCK_SIZE; ordinal < end; ordinal++) {
+            max = Math.max(max, weights[ordinal]);
+        }
+        return max;
+    }
+
+    /**
+     * @param after false for the first name not sorting before {@code prefix}; true
+     *              for the first sorting after every name that starts with it
+     */
+    private int search(byte[] prefix, boolean after, Cursor cursor) {
+        // the first block whose first name is past the target; the answer is in the block before
+        int low = 0;
+        int high = blockOffsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            cursor.seek(mid);
+            cursor.next();
+            if (isPast(cursor, prefix, after)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        if (low == 0) {
+            return 0;
+        }
+        int block = low - 1;
+        cursor.seek(block);
+        int end = Math.min(size, low * BLOCK_SIZE);
+        for (int ordinal = block * BLOCK_SIZE; ordinal < end; ordinal++) {
+            cursor.next();
+            if (isPast(cursor, prefix, after)) {
+                return ordinal;
+            }
+        }
+        return end;
+    }
+
+    private static boolean isPast(Cursor cursor, byte[] prefix, boolean after) {
+        int compare = compareTruncated(cursor.key, cursor.keyLength, prefix);
+        return after ? compare > 0 : compare >= 0;
+    }
+
+    // compares the key cut to the prefix's length with the prefix
+    private static int compareTruncated(byte[] key, int keyLength, byte[] prefix) {
+        int length = Math.min(keyLength, prefix.length);
+        int compare = Arrays.compareUnsigned(key, 0, length, prefix, 0, length);
+        if (compare != 0) {
+            return compare;
+        }
+        return keyLength >= prefix.length ? 0 : -1;
+    }
+
+    /**
+     * Reads names one after another from the start of a block.
+     */
+    private final class Cursor {
+        int position;
+        byte[] key = new byte[64];
+        int keyLength;
+        int payload;
+        int displayStart;
+
+        void seek(int block) {
+            position = blockOffsets[block];
+            keyLength = 0;
+        }
+
+        // so that next() reads the name at ordinal
+        void seekBefore(int ordinal) {
+            seek(ordinal / BLOCK_SIZE);
+            for (int i = ordinal / BLOCK_SIZE * BLOCK_SIZE; i < ordinal; i++) {
+                next();
+            }
+        }
+
+        void next() {
+            int shared = readVarint();
+            int suffix = readVarint();
+            if (shared + suffix > key.length) {
+                key = Arrays.copyOf(key, Math.max(2 * key.length, shared + suffix));
+            }
+            System.arraycopy(data, position, key, shared, suffix);
+            position += suffix;
+            keyLength = shared + suffix;
+            payload = readVarint();
+            displayStart = position;
+            int casing = readVarint();
+            if ((casing & 1) == 1) {
+                position += casing >>> 1;
+            } else {
+                for (int i = casing >>> 1; i > 0; i--) {
+                    readVarint();
+                }
+            }
+        }
+
+        Name name() {
+            String keyString = new String(key, 0, keyLength, StandardCharsets.UTF_8);
+            int saved = position;
+            position = displayStart;
+            int casing = readVarint();
+            String display;
+            if ((casing & 1) == 1) {
+                display = new String(data, position, casing >>> 1, StandardCharsets.UTF_8);
+            } else {
+                char[] chars = keyString.toCharArray();
+                int index = 0;
+                for (int i = casing >>> 1; i > 0; i--) {
+                    index += readVarint();
+                    chars[index] = Character.toUpperCase(chars[index]);
+                }
+                display = new String(chars);
+            }
+            position = saved;
+            return new Name(keyString, display, payload);
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes names in key order, and payload order among equal keys.
+     */
+    static final class Builder {
+        private byte[] data = new byte[1024];
+        private int length;
+        private int[] blockOffsets = new int[16];
+        private int[] weights = new int[256];
+        private int size;
+        private byte[] previous = new byte[0];
+
+        /**
+         * @param key     {@code display} lowercased
+         * @param keyBytes {@code key} as UTF-8
+         */
+        void add(String key, byte[] keyBytes, String display, int payload, int weight) {
+            int shared = 0;
+            if (size % BLOCK_SIZE == 0) {
+                if (size / BLOCK_SIZE == blockOffsets.length) {
+                    blockOffsets = Arrays.copyOf(blockOffsets, 2 * blockOffsets.length);
+                }
+                blockOffsets[size / BLOCK_SIZE] = length;
+            } else {
+                int max = Math.min(previous.length, keyBytes.length);
+                while (shared < max && previous[shared] == keyBytes[shared]) {
+                    shared++;
+                }
+            }
+            writeVarint(shared);
+            writeVarint(keyBytes.length - shared);
+            write(keyBytes, shared, keyBytes.length - shared);
+            writeVarint(payload);
+            writeCasing(key, display);
+            if (size == weights.length) {
+                weights = Arrays.copyOf(weights, 2 * weights.length);
+            }
+            weights[size++] = weight;
+            previous = keyBytes;
+        }
+
+        CompletionDictionary build() {
+            int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            return new CompletionDictionary(Arrays.copyOf(data, length), Arrays.copyOf(blockOffsets, blocks),
+                    Arrays.copyOf(weights, size), size);
+        }
+
+        // the uppercase positions if that's all that tells display from key, otherwise display whole
+        private void writeCasing(String key, String display) {
+            int uppercase = 0;
+            boolean caseOnly = key.length() == display.length();
+            for (int i = 0; caseOnly && i < key.length(); i++) {
+                char k = key.charAt(i);
+                char d = display.charAt(i);
+                if (k != d) {
+                    caseOnly = Character.toUpperCase(k) == d;
+                    uppercase++;
+                }
+            }
+            if (!caseOnly) {
+                byte[] bytes = display.getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes.length << 1 | 1);
+                write(bytes, 0, bytes.length);
+                return;
+            }
+            writeVarint(uppercase << 1);
+            int last = 0;
+            for (int i = 0; i < key.length(); i++) {
+                if (key.charAt(i) != display.charAt(i)) {
+                    writeVarint(i - last);
+                    last = i;
+                }
+            }
+        }
+
+        private void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        private void write(byte[] bytes, int offset, int count) {
+            ensure(count);
+            System.arraycopy(bytes, offset, data, length, count);
+            length += count;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(2 * data.length, length + extra));
+            }
+        }
+    }
+
+    /**
+     * A binary max-heap of longs, so the search allocates no boxes.
+     */
+    private static final class LongHeap {
+        private long[] items = new long[32];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(long item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, 2 * size);
+            }
+            int index = size++;
+            while (index > 0 && items[(index - 1) >>> 1] < item) {
+                items[index] = items[(index - 1) >>> 1];
+                index = (index - 1) >>> 1;
+            }
+            items[index] = item;
+        }
+
+        long pop() {
+            long top = items[0];
+            long last = items[--size];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && items[child + 1] > items[child]) {
+                    child++;
+                }
+                if (items[child] <= last) {
+                    break;
+                }
+                items[index] = items[child];
+                index = child;
+            }
+            items[index] = last;
+            return top;
+        }
+    }
+}
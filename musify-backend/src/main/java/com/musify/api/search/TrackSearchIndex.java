@@ -0,0 +1,357 @@
+package com.musify.api.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over artistNameLower / songNameLower.
+ * <p>
+ * A query of three or more characters is answered by intersecting the posting
+ * lists of its trigrams and then checking the candidates with a real
+ * {@code contains}, so results match the old Scan filter exactly. Shorter
+ * queries fall back to a linear pass over the (in-memory) entries.
+ * Results are ordered by score, then artistName, then songName, which gives
+ * cursors that stay valid while the index changes underneath them.
+ * <p>
+ * A rebuild fills a new index from a {@link Loader} while searches keep using
+ * the current one. Puts and removes made in the meantime are recorded and
+ * applied to the new index when it is swapped in.
+ */
+@Component
+@Slf4j
+public class TrackSearchIndex {
+
+    public static final int SCORE_EXACT = 100;
+    public static final int SCORE_PREFIX = 80;
+    public static final int SCORE_WORD_PREFIX = 60;
+    public static final int SCORE_CONTAINS = 40;
+
+    // larger limits are lowered to this, so the kept hits stay a page, not a table
+    public static final int MAX_LIMIT = 1000;
+
+    private static final Comparator<Hit> ORDER = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparing(Hit::artistName)
+            .thenComparing(Hit::songName);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Tables tables = new Tables();
+    // writes since startRebuild, null when no rebuild is running
+    private List<Write> writesDuringRebuild;
+    private volatile Instant loadedAt;
+
+    /**
+     * A ranked match. Also used as the cursor for the next page.
+     */
+    public record Hit(int score, String artistName, String songName) {
+    }
+
+    private record Entry(String artistName, String songName, String artistNameLower, String songNameLower,
+                         long[] trigrams) {
+    }
+
+    // a put, or a remove when the lower-case names are null
+    private record Write(String artistName, String songName, String artistNameLower, String songNameLower,
+                         boolean remove) {
+    }
+
+    /**
+     * Collects the catalog for {@link #replaceAll}, one track at a time, on one thread.
+     */
+    public static final class Loader {
+        private final Tables tables = new Tables();
+
+        public void add(String artistName, String songName, String artistNameLower, String songNameLower) {
+            if (artistName != null && songName != null) {
+                tables.put(artistName, songName, artistNameLower, songNameLower);
+            }
+        }
+    }
+
+    public boolean isLoaded() {
+        return loadedAt != null;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return tables.idsByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Starts recording puts and removes for the rebuild that fills the returned
+     * loader. Call it before reading the catalog, so a write the read misses is
+     * still in the new index. A rebuild still running is abandoned.
+     */
+    public Loader startRebuild() {
+        lock.writeLock().lock();
+        try {
+            writesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new Loader();
+    }
+
+    /**
+     * Stops recording after a rebuild failed. The current index stays in use.
+     */
+    public void cancelRebuild() {
+        lock.writeLock().lock();
+        try {
+            writesDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Swaps in the index {@code loader} built, with the writes made since
+     * {@link #startRebuild} applied to it.
+     */
+    public void replaceAll(Loader loader) {
+        lock.writeLock().lock();
+        try {
+            int replayed = 0;
+            if (writesDuringRebuild != null) {
+                for (Write write : writesDuringRebuild) {
+                    if (write.remove()) {
+                        loader.tables.remove(key(write.artistName(), write.songName()));
+                    } else {
+                        loader.tables.put(write.artistName(), write.songName(), write.artistNameLower(),
+                                write.songNameLower());
+                    }
+                }
+                replayed = writesDuringRebuild.size();
+                writesDuringRebuild = null;
+            }
+            tables = loader.tables;
+            loadedAt = Instant.now();
+            log.info("Search index rebuilt with {} tracks and {} trigrams, {} writes replayed",
+                    tables.idsByKey.size(), tables.postings.size(), replayed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops everything and rebuilds the index from {@code rows} of artistName,
+     * songName, artistNameLower and songNameLower.
+     */
+    public void replaceAll(Iterable<String[]> rows) {
+        Loader loader = startRebuild();
+        for (String[] row : rows) {
+            loader.add(row[0], row[1], row[2], row[3]);
+        }
+        replaceAll(loader);
+    }
+
+    public void put(String artistName, String songName, String artistNameLower, String songNameLower) {
+        if (artistName == null || songName == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            tables.put(artistName, songName, artistNameLower, songNameLower);
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.add(new Write(artistName, songName, artistNameLower, songNameLower, false));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String artistName, String songName) {
+        if (artistName == null || songName == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            tables.remove(key(artistName, songName));
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.add(new Write(artistName, songName, null, null, true));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} hits strictly after {@code after} in ranking order.
+     * One extra hit is returned when more results exist, so the caller can decide
+     * whether to hand out a cursor. A limit over {@link #MAX_LIMIT} counts as
+     * {@link #MAX_LIMIT}.
+     */
+    public List<Hit> search(String query, Hit after, int limit) {
+        String q = query.trim().toLowerCase();
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        limit = Math.min(limit, MAX_LIMIT);
+        // keep the best limit + 1 hits; the head of the queue is the worst one kept
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, ORDER.reversed());
+        lock.readLock().lock();
+        try {
+            Tables current = tables;
+            if (q.length() < 3) {
+                for (int id = 0; id < current.entries.size(); id++) {
+                    offer(best, current.entries.get(id), q, after, limit + 1);
+                }
+            } else {
+                for (int id : current.candidates(q)) {
+                    offer(best, current.entries.get(id), q, after, limit + 1);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(ORDER);
+        return hits;
+    }
+
+    static int score(String field, String query) {
+        if (field == null) {
+            return 0;
+        }
+        int pos = field.indexOf(query);
+        if (pos < 0) {
+            return 0;
+        }
+        if (pos == 0) {
+            return field.length() == query.length() ? SCORE_EXACT : SCORE_PREFIX;
+        }
+        if (field.contains(" " + query)) {
+            return SCORE_WORD_PREFIX;
+        }
+        return SCORE_CONTAINS;
+    }
+
+    private void offer(PriorityQueue<Hit> best, Entry entry, String q, Hit after, int capacity) {
+        if (entry == null) {
+            return;
+        }
+        int score = Math.max(score(entry.songNameLower(), q), score(entry.artistNameLower(), q));
+        if (score == 0) {
+            return;
+        }
+        Hit hit = new Hit(score, entry.artistName(), entry.songName());
+        if (after != null && ORDER.compare(hit, after) <= 0) {
+            return;
+        }
+        if (best.size() < capacity) {
+            best.add(hit);
+        } else if (ORDER.compare(hit, best.peek()) < 0) {
+            best.poll();
+            best.add(hit);
+        }
+    }
+
+    private static String key(String artistName, String songName) {
+        return artistName + '\u0000' + songName;
+    }
+
+    static long[] trigrams(String s) {
+        if (s == null || s.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[s.length() - 2];
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            grams[i] = ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private static long[] union(long[] a, long[] b) {
+        long[] all = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, all, a.length, b.length);
+        return Arrays.stream(all).distinct().toArray();
+    }
+
+    /**
+     * The index proper. Guarded by the index's lock once it's in use.
+     */
+    private static final class Tables {
+        private final Map<String, Integer> idsByKey = new HashMap<>();
+        private final List<Entry> entries = new ArrayList<>();
+        private final Deque<Integer> freeIds = new ArrayDeque<>();
+        private final Map<Long, PostingList> postings = new HashMap<>();
+
+        List<Integer> candidates(String q) {
+            long[] grams = trigrams(q);
+            List<PostingList> lists = new ArrayList<>(grams.length);
+            for (long gram : grams) {
+                PostingList list = postings.get(gram);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+            PostingList smallest = lists.get(0);
+            List<Integer> result = new ArrayList<>(smallest.size());
+            outer:
+            for (int i = 0; i < smallest.size(); i++) {
+                int id = smallest.get(i);
+                for (int j = 1; j < lists.size(); j++) {
+                    if (!lists.get(j).contains(id)) {
+                        continue outer;
+                    }
+                }
+                result.add(id);
+            }
+            return result;
+        }
+
+        void put(String artistName, String songName, String artistNameLower, String songNameLower) {
+            String artistLower = artistNameLower != null ? artistNameLower : artistName.toLowerCase();
+            String songLower = songNameLower != null ? songNameLower : songName.toLowerCase();
+            String key = key(artistName, songName);
+            remove(key);
+
+            long[] grams = union(trigrams(artistLower), trigrams(songLower));
+            Entry entry = new Entry(artistName, songName, artistLower, songLower, grams);
+            int id;
+            if (freeIds.isEmpty()) {
+                id = entries.size();
+                entries.add(entry);
+            } else {
+                id = freeIds.pop();
+                entries.set(id, entry);
+            }
+            idsByKey.put(key, id);
+            for (long gram : grams) {
+                postings.computeIfAbsent(gram, g -> new PostingList()).add(id);
+            }
+        }
+
+        void remove(String key) {
+            Integer id = idsByKey.remove(key);
+            if (id == null) {
+                return;
+            }
+            Entry entry = entries.set(id, null);
+            for (long gram : entry.trigrams()) {
+                PostingList list = postings.get(gram);
+                if (list != null) {
+                    list.remove(id);
+                    if (list.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            freeIds.push(id);
+        }
+    }
+}
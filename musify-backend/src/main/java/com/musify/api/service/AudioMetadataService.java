@@ -0,0 +1,208 @@
+package com.musify.api.service;
+
+import com.musify.api.audio.AudioInfo;
+import com.musify.api.audio.Mp3InfoReader;
+import com.musify.api.dto.AudioBackfillResponse;
+import com.musify.api.model.MusicTrack;
+import com.musify.api.repository.MusicTrackRepository;
+import com.musify.api.repository.ParallelScanRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reads duration, bitrate and sample rate from the uploaded MP3 itself with a
+ * few ranged GETs of at most {@link Mp3InfoReader#BUFFER_SIZE} bytes each,
+ * instead of trusting the duration the client sends.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AudioMetadataService {
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    // read the headers while saving metadata; the client's duration is kept if that fails
+    @Value("${musify.audio-metadata.extract-on-save:true}")
+    private boolean extractOnSave;
+
+    // each backfill worker has two ranged GETs in flight at most, so this is mostly S3 latency hiding
+    @Value("${musify.audio-metadata.backfill-concurrency:8}")
+    private int backfillConcurrency;
+
+    private final S3Client s3Client;
+    private final MusicTrackRepository musicTrackRepository;
+
+    // one read buffer per backfill worker, reused for every track it handles
+    private final ThreadLocal<byte[]> workerBuffer = ThreadLocal.withInitial(() -> new byte[Mp3InfoReader.BUFFER_SIZE]);
+
+    private ExecutorService backfillExecutor;
+
+    @PostConstruct
+    public void init() {
+        backfillExecutor = Executors.newFixedThreadPool(backfillConcurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdown();
+    }
+
+    public AudioInfo extract(String s3Key) throws IOException {
+        return extract(s3Key, new byte[Mp3InfoReader.BUFFER_SIZE]);
+    }
+
+    /**
+     * Fills in duration, bitrate and sample rate on a track that is about to be
+     * saved. Best effort: a missing object or unreadable file leaves the track as it is.
+     */
+    public void enrichOnSave(MusicTrack musicTrack) {
+        if (!extractOnSave || musicTrack.getS3Key() == null) {
+            return;
+        }
+        try {
+            AudioInfo info = extract(musicTrack.getS3Key());
+            musicTrack.setDuration(info.durationSeconds());
+            musicTrack.setBitrate(info.bitrateKbps());
+            musicTrack.setSampleRate(info.sampleRate());
+        } catch (IOException | SdkException e) {
+            log.warn("Could not read audio headers of {}, keeping the client's duration: {}",
+                    musicTrack.getS3Key(), e.getMessage());
+        }
+    }
+
+    /**
+     * Re-reads the headers of one stored track and writes the result back.
+     *
+     * @return the audio info, or null if the track doesn't exist
+     */
+    public AudioInfo extractAndSave(String artistName, String songName) throws IOException {
+        MusicTrack track = musicTrackRepository.findByPartitionKeyAndSortKey(artistName, songName);
+        if (track == null || track.getS3Key() == null) {
+            return null;
+        }
+        AudioInfo info = extract(track.getS3Key());
+        if (!musicTrackRepository.updateAudioInfo(track.getArtistName(), track.getSongName(),
+                info.durationSeconds(), info.bitrateKbps(), info.sampleRate())) {
+            return null;
+        }
+        return info;
+    }
+
+    /**
+     * Reads the headers of every track in the catalog and writes duration, bitrate
+     * and sample rate back. The Scan only projects the key attributes, and at most
+     * {@code backfillConcurrency} tracks are in flight at once.
+     *
+     * @param onlyMissing skip tracks that already have a bitrate
+     */
+    public AudioBackfillResponse backfill(boolean onlyMissing) {
+        long start = System.nanoTime();
+        LongAdder scanned = new LongAdder();
+        LongAdder updated = new LongAdder();
+        LongAdder skipped = new LongAdder();
+        LongAdder failed = new LongAdder();
+        Semaphore inFlight = new Semaphore(backfillConcurrency);
+
+        ParallelScanRequest request = ParallelScanRequest.builder()
+                .attributesToProject(List.of("artistName", "songName", "s3Key", "bitrate"))
+                .build();
+        musicTrackRepository.parallelScan(request, track -> {
+            scanned.increment();
+            if (track.getS3Key() == null || onlyMissing && track.getBitrate() != null) {
+                skipped.increment();
+                return;
+            }
+            inFlight.acquireUninterruptibly();
+            backfillExecutor.execute(() -> {
+                try {
+                    AudioInfo info = extract(track.getS3Key(), workerBuffer.get());
+                    if (musicTrackRepository.updateAudioInfo(track.getArtistName(), track.getSongName(),
+                            info.durationSeconds(), info.bitrateKbps(), info.sampleRate())) {
+                        updated.increment();
+                    } else {
+                        skipped.increment();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Audio backfill failed for {}: {}", track.getS3Key(), e.getMessage());
+                    failed.increment();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        });
+        // wait for the last tracks still in flight
+        inFlight.acquireUninterruptibly(backfillConcurrency);
+        inFlight.release(backfillConcurrency);
+
+        long elapsedNanos = System.nanoTime() - start;
+        AudioBackfillResponse response = AudioBackfillResponse.builder()
+                .scanned(scanned.sum())
+                .updated(updated.sum())
+                .skipped(skipped.sum())
+                .failed(failed.sum())
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .tracksPerSecond(elapsedNanos == 0 ? 0 : updated.sum() * 1e9 / elapsedNanos)
+                .build();
+        log.info("Audio backfill finished: {}", response);
+        return response;
+    }
+
+    private AudioInfo extract(String s3Key, byte[] buf) throws IOException {
+        return Mp3InfoReader.read(new S3RangeSource(s3Key), buf);
+    }
+
+    /**
+     * Ranged GETs against one object; the total size comes from the first response's Content-Range.
+     */
+    private class S3RangeSource implements Mp3InfoReader.RangeSource {
+
+        private final String key;
+        private long size = -1;
+
+        S3RangeSource(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public int read(long position, byte[] buf, int length) throws IOException {
+            String range = "bytes=" + position + "-" + (position + length - 1);
+            try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(
+                    r -> r.bucket(bucketName).key(key).range(range))) {
+                if (size < 0) {
+                    size = totalSize(in.response());
+                }
+                return in.readNBytes(buf, 0, length);
+            }
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        // "bytes 0-16383/4823311"; S3 leaves Content-Range out when the range covers the whole object
+        private static long totalSize(GetObjectResponse response) {
+            String contentRange = response.contentRange();
+            if (contentRange != null && contentRange.lastIndexOf('/') >= 0) {
+                return Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1).trim());
+            }
+            return response.contentLength();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.musify.api.service;
+
+import com.musify.api.repository.MusicTrackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.LongSupplier;
+
+/**
+ * Strong ETags for listing pages, so a client revalidating an unchanged page gets
+ * a 304 without a DynamoDB read. The tag hashes the catalog version with the
+ * request parameters. The version only counts this container's writes, so the
+ * current {@code musify.catalog.etag-window} is hashed in too: writes made through
+ * other containers are seen once the window rolls over.
+ */
+@Service
+public class CatalogEtagService {
+
+    // how long a page may be revalidated as unchanged without a write through this container
+    @Value("${musify.catalog.etag-window:PT1M}")
+    private Duration etagWindow;
+
+    // how long browsers and caches may reuse a page before revalidating
+    @Value("${musify.catalog.cache-max-age:PT0S}")
+    private Duration cacheMaxAge;
+
+    private final LongSupplier catalogVersion;
+    private final Clock clock;
+
+    @Autowired
+    public CatalogEtagService(MusicTrackRepository musicTrackRepository) {
+        this(musicTrackRepository::getCatalogVersion, Clock.systemUTC());
+    }
+
+    CatalogEtagService(LongSupplier catalogVersion, Clock clock) {
+        this.catalogVersion = catalogVersion;
+        this.clock = clock;
+    }
+
+    /**
+     * Computed before the page is read, so the tag is never newer than the body.
+     *
+     * @param request everything that selects the page, e.g. the endpoint, limit, token and search
+     */
+    public String etag(Object... request) {
+        StringBuilder key = new StringBuilder()
+                .append(catalogVersion.getAsLong()).append('\0')
+                .append(clock.millis() / Math.max(1, etagWindow.toMillis()));
+        for (Object part : request) {
+            key.append('\0').append(part);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return '"' + HexFormat.of().formatHex(digest, 0, 16) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param ifNoneMatch the request's If-None-Match header, possibly a list or {@code *}
+     */
+    public boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match uses the weak comparison
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public CacheControl cacheControl() {
+        return CacheControl.maxAge(cacheMaxAge).cachePublic().mustRevalidate();
+    }
+}
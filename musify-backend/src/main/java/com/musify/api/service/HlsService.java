@@ -0,0 +1,148 @@
+package com.musify.api.service;
+
+import com.musify.api.audio.Mp3Segmenter;
+import com.musify.api.limit.Bulkheads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cuts uploaded tracks into HLS segments stored next to the track, and hands
+ * out their playlist with every segment URL presigned. For {@code tracks/A/B.mp3}
+ * the playlist is {@code tracks/A/B.hls/index.m3u8} and the segments are
+ * {@code tracks/A/B.hls/00000.mp3} and so on.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HlsService {
+
+    public static final String PLAYLIST_CONTENT_TYPE = "application/vnd.apple.mpegurl";
+    private static final String PLAYLIST_NAME = "index.m3u8";
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    // segment every track after its metadata is saved
+    @Value("${musify.hls.segment-on-save:false}")
+    private boolean segmentOnSave;
+
+    @Value("${musify.hls.segment-seconds:6}")
+    private double segmentSeconds;
+
+    @Value("${musify.hls.threads:2}")
+    private int threads;
+
+    private final S3Client s3Client;
+    private final S3Service s3Service;
+    private final Bulkheads bulkheads;
+
+    private ExecutorService segmentExecutor;
+
+    @PostConstruct
+    public void init() {
+        segmentExecutor = Executors.newFixedThreadPool(threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        segmentExecutor.shutdown();
+    }
+
+    /**
+     * Queues segmentation of a just-uploaded track if {@code musify.hls.segment-on-save} is on.
+     * Failures are logged; the track stays playable through its plain stream URL.
+     */
+    public void segmentAfterSave(String s3Key) {
+        if (!segmentOnSave || s3Key == null) {
+            return;
+        }
+        segmentExecutor.execute(() -> {
+            try {
+                segment(s3Key);
+            } catch (IOException | RuntimeException e) {
+                log.warn("HLS segmentation failed for {}: {}", s3Key, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Streams the track from S3 through the segmenter, uploading each segment as
+     * it is cut, then writes the playlist.
+     *
+     * @return the number of segments
+     * @throws NoSuchKeyException if the track doesn't exist
+     */
+    public int segment(String s3Key) throws IOException {
+        long start = System.nanoTime();
+        String prefix = prefix(s3Key);
+        List<String> names = new ArrayList<>();
+        List<Mp3Segmenter.Segment> segments;
+        try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(r -> r.bucket(bucketName).key(s3Key))) {
+            segments = Mp3Segmenter.segment(in, segmentSeconds, (segment, data, length) -> {
+                String name = String.format("%05d.mp3", segment.index());
+                s3Client.putObject(r -> r.bucket(bucketName).key(prefix + name).contentType("audio/mpeg"),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(data, 0, length), length));
+                names.add(name);
+            });
+        }
+        // written last, so a playlist only ever points at segments that exist
+        s3Client.putObject(r -> r.bucket(bucketName).key(prefix + PLAYLIST_NAME).contentType(PLAYLIST_CONTENT_TYPE),
+                RequestBody.fromString(Mp3Segmenter.playlist(segments, names), StandardCharsets.UTF_8));
+        log.info("Segmented {} into {} HLS segments in {} ms", s3Key, segments.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return segments.size();
+    }
+
+    /**
+     * Returns the stored playlist with every segment URI replaced by a presigned
+     * GET URL, all signed in one batch.
+     *
+     * @return the playlist, or null if the track hasn't been segmented
+     */
+    public String getPlaylist(String s3Key) {
+        String prefix = prefix(s3Key);
+        String stored;
+        try {
+            stored = bulkheads.s3().call(() -> s3Client.getObjectAsBytes(
+                    r -> r.bucket(bucketName).key(prefix + PLAYLIST_NAME))).asUtf8String();
+        } catch (NoSuchKeyException e) {
+            return null;
+        }
+
+        List<String> lines = stored.lines().toList();
+        List<String> segmentKeys = lines.stream()
+                .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                .map(line -> prefix + line)
+                .toList();
+        Map<String, String> urls = s3Service.presignedGetObjectRequestUrls(segmentKeys);
+        StringBuilder playlist = new StringBuilder(stored.length() + urls.size() * 512);
+        for (String line : lines) {
+            playlist.append(line.isBlank() || line.startsWith("#") ? line : urls.get(prefix + line)).append('\n');
+        }
+        return playlist.toString();
+    }
+
+    private static String prefix(String s3Key) {
+        int extension = s3Key.lastIndexOf('.');
+        String base = extension > s3Key.lastIndexOf('/') ? s3Key.substring(0, extension) : s3Key;
+        return base + ".hls/";
+    }
+}
@@ -0,0 +1,45 @@
+package com.musify.api.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Periodically aborts track uploads that were started but never completed or
+ * aborted, since S3 keeps billing for their parts until then.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MultipartUploadSweeper {
+
+    @Value("${musify.upload.multipart.sweep-enabled:true}")
+    private boolean enabled;
+
+    // an upload still open after this long is treated as abandoned
+    @Value("${musify.upload.multipart.max-age:P1D}")
+    private Duration maxAge;
+
+    private final S3Service s3Service;
+
+    @Scheduled(initialDelayString = "${musify.upload.multipart.sweep-interval:PT1H}",
+            fixedDelayString = "${musify.upload.multipart.sweep-interval:PT1H}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int aborted = s3Service.abortMultipartUploadsInitiatedBefore(MusicTrackService.TRACK_KEY_PREFIX,
+                    Instant.now().minus(maxAge));
+            log.info("Multipart upload sweep aborted {} uploads older than {}", aborted, maxAge);
+        } catch (SdkException e) {
+            log.warn("Multipart upload sweep failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.musify.api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.musify.api.model.TrackField;
+import com.musify.api.repository.MusicTrackRepository;
+import com.musify.api.repository.ParallelScanRequest;
+import com.musify.api.repository.ParallelScanResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Catalog export as NDJSON. Rows are written as the Scan delivers them, one
+ * JSON object per line, and the stream is flushed after the first row and then
+ * every {@code musify.export.flush-every} rows. Nothing is collected, so memory
+ * stays at the scan queue plus the output buffer whatever the catalog size.
+ */
+@Service
+@Slf4j
+public class MusicTrackExportService {
+
+    private final MusicTrackRepository musicTrackRepository;
+    private final TrackJsonWriter trackJsonWriter;
+
+    @Value("${musify.export.segments:4}")
+    private int segments;
+
+    @Value("${musify.export.flush-every:500}")
+    private int flushEvery;
+
+    public MusicTrackExportService(MusicTrackRepository musicTrackRepository, TrackJsonWriter trackJsonWriter) {
+        this.musicTrackRepository = musicTrackRepository;
+        this.trackJsonWriter = trackJsonWriter;
+    }
+
+    /**
+     * Writes every track to {@code out}. A failed write (usually the client going
+     * away) stops the scan and is rethrown.
+     *
+     * @param fields attributes to include, in output order; only these are read
+     */
+    public ParallelScanResult export(OutputStream out, List<TrackField> fields) throws IOException {
+        ParallelScanRequest request = ParallelScanRequest.builder()
+                .totalSegments(segments)
+                .attributesToProject(fields.stream().map(TrackField::fieldName).toList())
+                .build();
+        JsonGenerator generator = trackJsonWriter.createGenerator(out);
+        int[] written = {0};
+        try {
+            ParallelScanResult result = musicTrackRepository.parallelScan(request, track -> {
+                try {
+                    trackJsonWriter.writeTrack(generator, track, fields);
+                    generator.writeRaw('\n');
+                    if (++written[0] == 1 || written[0] % flushEvery == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+            log.info("Exported {} tracks in {} ms", result.itemCount(), result.elapsed().toMillis());
+            return result;
+        } catch (UncheckedIOException e) {
+            log.warn("Export stopped after {} tracks: {}", written[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+}
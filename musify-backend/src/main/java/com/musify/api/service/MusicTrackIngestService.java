@@ -0,0 +1,182 @@
+package com.musify.api.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.musify.api.dto.BulkIngestItemResult;
+import com.musify.api.dto.BulkIngestResponse;
+import com.musify.api.dto.MusicTrackRequest;
+import com.musify.api.model.MusicTrack;
+import com.musify.api.repository.MusicTrackRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Bulk metadata import. Reads a JSON array or NDJSON stream of
+ * {@link MusicTrackRequest} incrementally and writes valid records in chunks
+ * through {@link MusicTrackRepository#saveAll}, so at most one chunk of tracks
+ * is held at a time. The response still lists a result for every record, and every
+ * key is kept to catch duplicates within the payload, so memory grows with the
+ * record count, though by far less than the payload.
+ * <p>
+ * BatchWriteItem has no conditions, so each chunk's keys are read first and
+ * tracks that already exist are reported as duplicates instead of being
+ * overwritten. A track created by someone else between the read and the write
+ * is still overwritten.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MusicTrackIngestService {
+
+    private final MusicTrackRepository musicTrackRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${musify.ingest.chunk-size:500}")
+    private int chunkSize;
+
+    private record PendingTrack(int index, MusicTrack musicTrack) {
+    }
+
+    public BulkIngestResponse ingest(InputStream body) throws IOException {
+        long start = System.nanoTime();
+        List<BulkIngestItemResult> results = new ArrayList<>();
+        Set<String> seenKeys = new HashSet<>();
+        List<PendingTrack> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+
+        // readValues iterates the elements of a root-level array as well as whitespace-separated values
+        try (MappingIterator<MusicTrackRequest> requests = objectMapper.readerFor(MusicTrackRequest.class)
+                .readValues(body)) {
+            while (hasNext(requests, index, results)) {
+                MusicTrackRequest request;
+                try {
+                    request = requests.nextValue();
+                } catch (IOException e) {
+                    results.add(invalid(index, null, List.of("Malformed record, stopped reading: "
+                            + e.getMessage())));
+                    break;
+                }
+
+                List<String> errors = validator.validate(request).stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .toList();
+                if (errors.isEmpty() && !seenKeys.add(request.getArtistName() + "|" + request.getSongName())) {
+                    errors = List.of("Duplicate artist and song name in this request");
+                }
+                if (!errors.isEmpty()) {
+                    results.add(invalid(index, request, errors));
+                } else {
+                    chunk.add(new PendingTrack(index, MusicTrack.builder()
+                            .artistName(request.getArtistName())
+                            .songName(request.getSongName())
+                            .s3Key(request.getS3Key())
+                            .duration(request.getDuration())
+                            .build()));
+                    if (chunk.size() >= chunkSize) {
+                        writeChunk(chunk, results);
+                    }
+                }
+                index++;
+            }
+        }
+        writeChunk(chunk, results);
+
+        results.sort(Comparator.comparingInt(BulkIngestItemResult::index));
+        long elapsedNanos = System.nanoTime() - start;
+        Map<BulkIngestItemResult.Status, Long> counts = new EnumMap<>(BulkIngestItemResult.Status.class);
+        results.forEach(result -> counts.merge(result.status(), 1L, Long::sum));
+        int created = counts.getOrDefault(BulkIngestItemResult.Status.CREATED, 0L).intValue();
+        BulkIngestResponse response = BulkIngestResponse.builder()
+                .received(results.size())
+                .created(created)
+                .duplicate(counts.getOrDefault(BulkIngestItemResult.Status.DUPLICATE, 0L).intValue())
+                .invalid(counts.getOrDefault(BulkIngestItemResult.Status.INVALID, 0L).intValue())
+                .failed(counts.getOrDefault(BulkIngestItemResult.Status.FAILED, 0L).intValue())
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .itemsPerSecond(elapsedNanos == 0 ? 0 : created * 1e9 / elapsedNanos)
+                .results(results)
+                .build();
+        log.info("Bulk ingest finished: received={}, created={}, duplicate={}, invalid={}, failed={}, {} items/s",
+                response.getReceived(), response.getCreated(), response.getDuplicate(), response.getInvalid(),
+                response.getFailed(), Math.round(response.getItemsPerSecond()));
+        return response;
+    }
+
+    private boolean hasNext(MappingIterator<MusicTrackRequest> requests, int index,
+                            List<BulkIngestItemResult> results) {
+        try {
+            return requests.hasNextValue();
+        } catch (IOException e) {
+            results.add(invalid(index, null, List.of("Malformed record, stopped reading: " + e.getMessage())));
+            return false;
+        }
+    }
+
+    private void writeChunk(List<PendingTrack> chunk, List<BulkIngestItemResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<MusicTrack> tracks = chunk.stream().map(PendingTrack::musicTrack).toList();
+        Set<String> existingKeys;
+        try {
+            existingKeys = keys(musicTrackRepository.findExisting(tracks));
+        } catch (RuntimeException e) {
+            log.error("Could not check for existing tracks: {}", e.getMessage(), e);
+            for (PendingTrack pending : chunk) {
+                results.add(result(pending, BulkIngestItemResult.Status.FAILED,
+                        List.of("Could not check whether the song already exists")));
+            }
+            chunk.clear();
+            return;
+        }
+        List<MusicTrack> newTracks = tracks.stream().filter(track -> !existingKeys.contains(key(track))).toList();
+        Set<String> failedKeys = newTracks.isEmpty() ? Set.of() : keys(musicTrackRepository.saveAll(newTracks));
+        for (PendingTrack pending : chunk) {
+            String key = key(pending.musicTrack());
+            if (existingKeys.contains(key)) {
+                results.add(result(pending, BulkIngestItemResult.Status.DUPLICATE,
+                        List.of("Song already exists")));
+            } else if (failedKeys.contains(key)) {
+                results.add(result(pending, BulkIngestItemResult.Status.FAILED,
+                        List.of("Write was not processed after retries")));
+            } else {
+                results.add(result(pending, BulkIngestItemResult.Status.CREATED, List.of()));
+            }
+        }
+        chunk.clear();
+    }
+
+    private static Set<String> keys(List<MusicTrack> tracks) {
+        Set<String> keys = new HashSet<>();
+        tracks.forEach(track -> keys.add(key(track)));
+        return keys;
+    }
+
+    private static String key(MusicTrack track) {
+        return track.getArtistName() + "|" + track.getSongName();
+    }
+
+    private static BulkIngestItemResult result(PendingTrack pending, BulkIngestItemResult.Status status,
+                                               List<String> messages) {
+        MusicTrack track = pending.musicTrack();
+        return new BulkIngestItemResult(pending.index(), track.getArtistName(), track.getSongName(), status,
+                messages);
+    }
+
+    private BulkIngestItemResult invalid(int index, MusicTrackRequest request, List<String> messages) {
+        return new BulkIngestItemResult(index,
+                request != null ? request.getArtistName() : null,
+                request != null ? request.getSongName() : null,
+                BulkIngestItemResult.Status.INVALID, messages);
+    }
+}
@@ -1,25 +1,80 @@
 package com.musify.api.service;
 
 import com.musify.api.repository.MusicTrackRepository;
+import com.musify.api.repository.TrackOrder;
+import com.musify.api.dto.Completion;
+import com.musify.api.dto.MultipartUploadResponse;
 import com.musify.api.dto.UploadUrlResponse;
 import com.musify.api.dto.PaginatedResponse;
 import com.musify.api.exception.DuplicateSongException;
 import com.musify.api.model.MusicTrack;
+import com.musify.api.model.TrackField;
+import com.musify.api.model.TrackKey;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MusicTrackService {
 
+    public static final String TRACK_KEY_PREFIX = TrackKey.PREFIX;
+
     private final MusicTrackRepository musicTrackRepository;
     private final S3Service s3Service;
+    private final AudioMetadataService audioMetadataService;
+    private final HlsService hlsService;
+    private final MeterRegistry meterRegistry;
+
+    // how long a listing page is handed to identical requests after it was read; 0 only shares calls in flight
+    @Value("${musify.listing.coalesce-window:PT1S}")
+    private Duration coalesceWindow;
+
+    private RequestCoalescer<ListingKey, PaginatedResponse> listingCoalescer;
+
+    // the catalog version makes a write through this container start a fresh call
+    private record ListingKey(long catalogVersion, int limit, String nextToken, String searchQuery,
+                              List<String> attributes) {
+    }
+
+    @PostConstruct
+    public void init() {
+        listingCoalescer = new RequestCoalescer<>(coalesceWindow, Clock.systemUTC());
+        FunctionCounter.builder("musify.listing.coalesced", listingCoalescer, c -> c.stats().joined())
+                .tag("source", "in-flight")
+                .description("Listing requests that shared a DynamoDB call already in flight")
+                .register(meterRegistry);
+        FunctionCounter.builder("musify.listing.coalesced", listingCoalescer, c -> c.stats().reused())
+                .tag("source", "recent")
+                .description("Listing requests served a page read within the coalesce window")
+                .register(meterRegistry);
+        FunctionCounter.builder("musify.listing.calls", listingCoalescer, c -> c.stats().calls())
+                .description("Listing requests that read DynamoDB")
+                .register(meterRegistry);
+    }
 
-    public MusicTrack addMusicTrack(MusicTrack musicTrack) {
+    public CompletableFuture<MusicTrack> addMusicTrack(MusicTrack musicTrack) {
         log.info("Adding new music track: {}", musicTrack.getSongName());
-        return musicTrackRepository.save(musicTrack);
+        audioMetadataService.enrichOnSave(musicTrack);
+        return musicTrackRepository.saveAsync(musicTrack).thenApply(saved -> {
+            hlsService.segmentAfterSave(saved.getS3Key());
+            return saved;
+        });
     }
 
     public MusicTrack getSongById(String songId) {
@@ -28,9 +83,71 @@ public class MusicTrackService {
         return null;
     }
 
-    public PaginatedResponse getAllSongs(int limit, String nextToken, String searchQuery) {
+    /**
+     * Concurrent identical requests share one repository call, see {@link RequestCoalescer}.
+     *
+     * @param fields attributes the response will show; only these (plus what paging
+     *               and stream URLs need) are read
+     */
+    public CompletableFuture<PaginatedResponse> getAllSongs(int limit, String nextToken, String searchQuery,
+            boolean includeStreamUrls, List<TrackField> fields) {
         log.debug("Fetching all songs with limit: {}, nextToken: {}, search: {}", limit, nextToken, searchQuery);
-        return musicTrackRepository.findAll(limit, nextToken, searchQuery);
+        List<String> attributes = projection(fields, includeStreamUrls);
+        ListingKey key = new ListingKey(musicTrackRepository.getCatalogVersion(), limit, nextToken, searchQuery,
+                attributes);
+        CompletableFuture<PaginatedResponse> response = listingCoalescer.get(key,
+                () -> musicTrackRepository.findAllAsync(limit, nextToken, searchQuery, attributes));
+        return includeStreamUrls ? response.thenApply(this::withStreamUrls) : response;
+    }
+
+    public List<Completion> autocomplete(String prefix, int limit) {
+        return musicTrackRepository.autocomplete(prefix, limit);
+    }
+
+    public CompletableFuture<PaginatedResponse> getArtistSongs(String artistName, String songPrefix, int limit,
+            String nextToken, boolean includeStreamUrls, List<TrackField> fields) {
+        log.debug("Fetching songs of artist: {}, prefix: {}, limit: {}", artistName, songPrefix, limit);
+        CompletableFuture<PaginatedResponse> response = musicTrackRepository.findByArtistAsync(artistName, songPrefix,
+                limit, nextToken, projection(fields, includeStreamUrls));
+        return includeStreamUrls ? response.thenApply(this::withStreamUrls) : response;
+    }
+
+    public CompletableFuture<PaginatedResponse> getSortedSongs(TrackOrder order, boolean ascending, int limit,
+            String nextToken, boolean includeStreamUrls, List<TrackField> fields) {
+        log.debug("Fetching songs by {} {}, limit: {}", order, ascending ? "ascending" : "descending", limit);
+        CompletableFuture<PaginatedResponse> response = musicTrackRepository.findSortedAsync(order, ascending, limit,
+                nextToken, projection(fields, includeStreamUrls));
+        return includeStreamUrls ? response.thenApply(this::withStreamUrls) : response;
+    }
+
+    // the key attributes are always read: a page cut short resumes from its last track
+    private List<String> projection(List<TrackField> fields, boolean includeStreamUrls) {
+        Set<String> attributes = new LinkedHashSet<>();
+        attributes.add(TrackField.ARTIST_NAME.fieldName());
+        attributes.add(TrackField.SONG_NAME.fieldName());
+        if (includeStreamUrls) {
+            attributes.add(TrackField.S3_KEY.fieldName());
+        }
+        fields.forEach(field -> attributes.add(field.fieldName()));
+        return List.copyOf(attributes);
+    }
+
+    public long backfillListingAttributes() {
+        log.info("Backfilling listing attributes");
+        return musicTrackRepository.backfillListingAttributes();
+    }
+
+    // all URLs for the page are signed in one batch; the page may be shared, so it is copied rather than changed
+    private PaginatedResponse withStreamUrls(PaginatedResponse page) {
+        List<String> keys = page.getItems().stream()
+                .map(MusicTrack::getS3Key)
+                .filter(Objects::nonNull)
+                .toList();
+        Map<String, String> urls = s3Service.presignedGetObjectRequestUrls(keys);
+        List<MusicTrack> items = page.getItems().stream()
+                .map(track -> track.toBuilder().streamUrl(urls.get(track.getS3Key())).build())
+                .toList();
+        return new PaginatedResponse(items, page.getNextToken());
     }
 
     public MusicTrack updateSong(MusicTrack musicTrack) {
@@ -43,17 +160,56 @@ public class MusicTrackService {
         // musicTrackRepository.deleteSongByPartitionAndSortKey(songId);
     }
 
-    public UploadUrlResponse getUploadUrl(String artistName, String songName) {
+    public CompletableFuture<UploadUrlResponse> getUploadUrl(String artistName, String songName) {
         log.info("Generating upload URL for artist: {}, song: {}", artistName, songName);
-        if (musicTrackRepository.exists(artistName, songName)) {
-            log.warn("Duplicate song detected for artist: {}, song: {}", artistName, songName);
-            throw new DuplicateSongException("Song with " + artistName + " and " + songName + " already exists");
-        }
+        return newTrackKey(artistName, songName).thenApply(s3Key -> {
+            String url = s3Service.presignedPutObjectRequestUrl(s3Key);
+            log.debug("Upload URL generated for Key: {}", s3Key);
+            return new UploadUrlResponse(s3Key, url);
+        });
+    }
+
+    /**
+     * Starts a multipart upload for a new track, with the same duplicate check and
+     * key as {@link #getUploadUrl}.
+     */
+    public CompletableFuture<MultipartUploadResponse> createMultipartUpload(String artistName, String songName) {
+        log.info("Creating multipart upload for artist: {}, song: {}", artistName, songName);
+        return newTrackKey(artistName, songName).thenApply(s3Key -> {
+            String uploadId = s3Service.createMultipartUpload(s3Key);
+            log.debug("Multipart upload {} created for Key: {}", uploadId, s3Key);
+            return new MultipartUploadResponse(s3Key, uploadId);
+        });
+    }
+
+    public Map<Integer, String> getUploadPartUrls(String s3Key, String uploadId, List<Integer> partNumbers) {
+        log.debug("Generating {} part URLs for upload {}", partNumbers.size(), uploadId);
+        return s3Service.presignedUploadPartUrls(s3Key, uploadId, partNumbers);
+    }
+
+    public void completeMultipartUpload(String s3Key, String uploadId, Map<Integer, String> parts) {
+        log.info("Completing multipart upload {} for Key: {}", uploadId, s3Key);
+        s3Service.completeMultipartUpload(s3Key, uploadId, parts);
+    }
+
+    public void abortMultipartUpload(String s3Key, String uploadId) {
+        log.info("Aborting multipart upload {} for Key: {}", uploadId, s3Key);
+        s3Service.abortMultipartUpload(s3Key, uploadId);
+    }
 
-        String s3Key = "tracks/" + artistName + "/" + songName + ".mp3";
-        String url = s3Service.presignedPutObjectRequestUrl(s3Key);
-        log.debug("Upload URL generated for Key: {}", s3Key);
-        return new UploadUrlResponse(s3Key, url);
+    /**
+     * Key for a new track's audio file.
+     *
+     * @throws DuplicateSongException (wrapped in the future) if the song already exists
+     */
+    private CompletableFuture<String> newTrackKey(String artistName, String songName) {
+        return musicTrackRepository.existsAsync(artistName, songName).thenApply(exists -> {
+            if (exists) {
+                log.warn("Duplicate song detected for artist: {}, song: {}", artistName, songName);
+                throw new DuplicateSongException("Song with " + artistName + " and " + songName + " already exists");
+            }
+            return new TrackKey(artistName, songName).toS3Key();
+        });
     }
 
     public String getStreamUrl(String key) {
@@ -62,4 +218,22 @@ public class MusicTrackService {
 
     }
 
+    /**
+     * @return the track's HLS playlist with presigned segment URLs, or null if it hasn't been segmented
+     */
+    public String getHlsPlaylist(String key) {
+        log.debug("Fetching HLS playlist for key: {}", key);
+        return hlsService.getPlaylist(key);
+    }
+
+    public int segmentTrack(String key) throws IOException {
+        log.info("Segmenting track for HLS: {}", key);
+        return hlsService.segment(key);
+    }
+
+    public Map<String, String> getStreamUrls(List<String> keys) {
+        log.debug("Generating stream URLs for {} keys", keys.size());
+        return s3Service.presignedGetObjectRequestUrls(keys);
+    }
+
 }
@@ -0,0 +1,176 @@
+package com.musify.api.service;
+
+import com.musify.api.model.TrackKey;
+import com.musify.api.repository.MusicTrackRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts track plays in memory and adds them to each track's {@code playCount}
+ * every {@code musify.play-count.flush-interval}, one UpdateItem ADD per played
+ * track however many times it was played, and once more at shutdown.
+ * <p>
+ * A request that records a play runs the flush itself when the last one is older
+ * than the interval, or when {@code musify.play-count.flush-threshold} plays are
+ * waiting. That keeps counts moving where the scheduler doesn't run, as in a
+ * frozen Lambda environment, without a write per play.
+ * <p>
+ * A container that dies without shutting down loses the plays since its last
+ * flush. A flush whose write times out is retried at the next flush, so a write
+ * that did land is counted twice.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PlayCountService {
+
+    private final MusicTrackRepository musicTrackRepository;
+    private final MeterRegistry meterRegistry;
+
+    // tracks counted between flushes; plays of further tracks are dropped
+    @Value("${musify.play-count.max-keys:100000}")
+    private int maxKeys;
+
+    // UpdateItem calls a flush has in flight at once
+    @Value("${musify.play-count.flush-concurrency:8}")
+    private int flushConcurrency;
+
+    @Value("${musify.play-count.flush-interval:PT10S}")
+    private Duration flushInterval;
+
+    // plays recorded since the last flush that make the recording request flush
+    @Value("${musify.play-count.flush-threshold:10000}")
+    private long flushThreshold;
+
+    private PlayCounter counter;
+    // one flush at a time, so a slow one isn't overtaken by the next
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile long lastFlushNanos = System.nanoTime();
+    private volatile long recordedAtLastFlush;
+
+    private Counter flushed;
+    private Counter discarded;
+    private Counter failed;
+
+    @PostConstruct
+    public void init() {
+        counter = new PlayCounter(maxKeys);
+        FunctionCounter.builder("musify.play-count.recorded", counter, c -> c.stats().recorded())
+                .description("Plays counted in memory")
+                .register(meterRegistry);
+        FunctionCounter.builder("musify.play-count.dropped", counter, c -> c.stats().dropped())
+                .description("Plays not counted because max-keys tracks were already waiting for a flush")
+                .register(meterRegistry);
+        Gauge.builder("musify.play-count.pending", counter, PlayCounter::pending)
+                .description("Plays counted but not yet written")
+                .register(meterRegistry);
+        flushed = Counter.builder("musify.play-count.flushed")
+                .description("Plays added to DynamoDB")
+                .register(meterRegistry);
+        discarded = Counter.builder("musify.play-count.discarded")
+                .description("Plays of tracks that were deleted before the flush")
+                .register(meterRegistry);
+        failed = Counter.builder("musify.play-count.failed")
+                .description("Plays whose write failed and were kept for the next flush")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts a play of the track stored under {@code key}. Keys that don't name a
+     * track (HLS segments, foreign keys) are ignored.
+     */
+    public void record(String key) {
+        if (!TrackKey.isTrackFile(key) || !counter.record(key)) {
+            return;
+        }
+        if (System.nanoTime() - lastFlushNanos >= flushInterval.toNanos()
+                || counter.stats().recorded() - recordedAtLastFlush >= flushThreshold) {
+            // a flush already running will write this play, or leave it for the next one
+            if (flushLock.tryLock()) {
+                try {
+                    flushLocked();
+                } finally {
+                    flushLock.unlock();
+                }
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${musify.play-count.flush-interval:PT10S}",
+            fixedDelayString = "${musify.play-count.flush-interval:PT10S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushAtShutdown() {
+        flush();
+        long pending = counter.pending();
+        if (pending > 0) {
+            log.warn("{} plays could not be written at shutdown", pending);
+        }
+    }
+
+    public PlayCounter.Stats getStats() {
+        return counter.stats();
+    }
+
+    private void flushLocked() {
+        lastFlushNanos = System.nanoTime();
+        recordedAtLastFlush = counter.stats().recorded();
+        Map<String, Long> plays = counter.drain();
+        if (plays.isEmpty()) {
+            return;
+        }
+        Semaphore permits = new Semaphore(flushConcurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<String, Long> entry : plays.entrySet()) {
+                permits.acquireUninterruptibly();
+                executor.submit(() -> {
+                    try {
+                        write(entry.getKey(), entry.getValue());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        log.debug("Flushed plays of {} tracks", plays.size());
+    }
+
+    private void write(String key, long plays) {
+        TrackKey track = TrackKey.fromS3Key(key);
+        try {
+            if (musicTrackRepository.addPlayCount(track.artistName(), track.songName(), plays)) {
+                flushed.increment(plays);
+            } else {
+                discarded.increment(plays);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not add {} plays to {}: {}", plays, key, e.getMessage());
+            failed.increment(plays);
+            counter.restore(key, plays);
+        }
+    }
+}
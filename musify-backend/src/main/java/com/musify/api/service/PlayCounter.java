@@ -0,0 +1,125 @@
+package com.musify.api.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays per track key, counted in memory until {@link #drain} hands them out for
+ * writing. Recording a play for a key that already has a counter is a map lookup
+ * and a {@link LongAdder} increment: no allocation, and no contention between
+ * threads counting the same popular track.
+ * <p>
+ * {@link #drain} subtracts exactly what it returns, so plays recorded while it
+ * runs are kept for the next drain. Counters idle for two drains in a row are
+ * removed to keep the map to recently played tracks, and read once more at the
+ * following drain for plays recorded on them as they were removed. A play is only
+ * lost if the thread recording it stalls for a whole drain interval between
+ * finding the counter and incrementing it. Once {@code maxKeys} tracks have
+ * counters, plays of further tracks are dropped until idle ones are removed.
+ * <p>
+ * Only one thread may drain at a time.
+ */
+public class PlayCounter {
+
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, Count> counts = new ConcurrentHashMap<>();
+    // removed at the last drain, guarded by the draining thread
+    private final List<Map.Entry<String, Count>> retired = new ArrayList<>();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param recorded plays counted since start
+     * @param dropped  plays not counted because {@code maxKeys} tracks already had counters
+     * @param keys     tracks with a counter
+     */
+    public record Stats(long recorded, long dropped, int keys) {
+    }
+
+    private static final class Count extends LongAdder {
+        private static final long serialVersionUID = 1L;
+
+        // drains in a row that found no plays, only touched by the draining thread
+        int idleDrains;
+    }
+
+    public PlayCounter(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * @return false if the play was dropped
+     */
+    public boolean record(String key) {
+        return record(key, 1);
+    }
+
+    /**
+     * Counts {@code plays} plays at once, e.g. an upload weighted as several.
+     *
+     * @return false if the plays were dropped
+     */
+    public boolean record(String key, long plays) {
+        Count count = counts.get(key);
+        if (count == null) {
+            if (counts.size() >= maxKeys) {
+                dropped.add(plays);
+                return false;
+            }
+            count = counts.computeIfAbsent(key, k -> new Count());
+        }
+        count.add(plays);
+        recorded.add(plays);
+        return true;
+    }
+
+    /**
+     * @return plays by key recorded since the last drain; the caller must write them
+     *         or hand them back with {@link #restore}
+     */
+    public Map<String, Long> drain() {
+        Map<String, Long> plays = new HashMap<>();
+        for (Map.Entry<String, Count> entry : retired) {
+            long late = entry.getValue().sumThenReset();
+            if (late > 0) {
+                plays.merge(entry.getKey(), late, Long::sum);
+            }
+        }
+        retired.clear();
+        counts.forEach((key, count) -> {
+            long sum = count.sum();
+            if (sum > 0) {
+                count.add(-sum);
+                count.idleDrains = 0;
+                plays.merge(key, sum, Long::sum);
+            } else if (++count.idleDrains >= 2 && counts.remove(key, count)) {
+                retired.add(Map.entry(key, count));
+            }
+        });
+        return plays;
+    }
+
+    /**
+     * Adds back plays that could not be written, so the next drain retries them.
+     */
+    public void restore(String key, long plays) {
+        counts.computeIfAbsent(key, k -> new Count()).add(plays);
+    }
+
+    public long pending() {
+        long pending = 0;
+        for (Count count : counts.values()) {
+            pending += count.sum();
+        }
+        return pending;
+    }
+
+    public Stats stats() {
+        return new Stats(recorded.sum(), dropped.sum(), counts.size());
+    }
+}
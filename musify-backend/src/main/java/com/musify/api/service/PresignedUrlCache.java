@@ -0,0 +1,86 @@
+package com.musify.api.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of presigned GET URLs keyed by S3 key. An entry is handed out
+ * again only while it is younger than {@code maxAge}, so every client still gets
+ * most of the URL's validity window. Nothing needs invalidating when a track is
+ * deleted or uploaded again: the signature covers the key, not the object, so a
+ * cached URL fetches whatever is stored under the key when it is used.
+ */
+public class PresignedUrlCache {
+
+    private final int maxSize;
+    private final Duration maxAge;
+    private final Clock clock;
+    private final Map<String, CachedUrl> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private record CachedUrl(String url, Instant createdAt) {
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    public PresignedUrlCache(int maxSize, Duration maxAge, Clock clock) {
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUrl> eldest) {
+                if (size() > PresignedUrlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a cached URL for the key, or signs a new one with {@code signer}.
+     * Signing happens outside the lock; two racing misses on one key both sign,
+     * which is cheaper than making every other key wait.
+     */
+    public String get(String key, Function<String, String> signer) {
+        Instant now = clock.instant();
+        synchronized (entries) {
+            CachedUrl cached = entries.get(key);
+            if (cached != null) {
+                if (cached.createdAt().plus(maxAge).isAfter(now)) {
+                    hits.increment();
+                    return cached.url();
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        String url = signer.apply(key);
+        synchronized (entries) {
+            entries.put(key, new CachedUrl(url, now));
+        }
+        return url;
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.musify.api.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for asynchronous calls. Callers asking for a key while a call for
+ * it is in flight get that call's future instead of starting another, and a
+ * result is handed out again for {@code window} after it completes. A failure
+ * reaches every caller that joined the call and is not kept, so the next caller
+ * tries again. Results are shared: callers must not modify them.
+ * <p>
+ * No locks are taken: a caller either finds a live entry or installs its own with
+ * {@code putIfAbsent}/{@code replace}, retrying if another caller got there first.
+ */
+public class RequestCoalescer<K, V> {
+
+    private final Duration window;
+    private final Clock clock;
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    private static final class Flight<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        // Long.MAX_VALUE while the call is in flight
+        private volatile long expiresAt = Long.MAX_VALUE;
+    }
+
+    /**
+     * @param calls   calls made
+     * @param joined  callers that shared a call in flight
+     * @param reused  callers served a result completed less than {@code window} ago
+     */
+    public record Stats(long calls, long joined, long reused, int size) {
+        public long coalesced() {
+            return joined + reused;
+        }
+    }
+
+    public RequestCoalescer(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    /**
+     * @param call makes the call; only invoked if no live entry exists for {@code key}
+     */
+    public CompletableFuture<V> get(K key, Supplier<CompletableFuture<V>> call) {
+        while (true) {
+            Flight<V> current = flights.get(key);
+            if (current != null) {
+                long expiresAt = current.expiresAt;
+                if (expiresAt == Long.MAX_VALUE) {
+                    joined.increment();
+                    return current.future;
+                }
+                if (clock.millis() < expiresAt) {
+                    reused.increment();
+                    return current.future;
+                }
+            }
+            Flight<V> flight = new Flight<>();
+            boolean installed = current == null
+                    ? flights.putIfAbsent(key, flight) == null
+                    : flights.replace(key, current, flight);
+            if (installed) {
+                calls.increment();
+                run(key, flight, call);
+                return flight.future;
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(calls.sum(), joined.sum(), reused.sum(), flights.size());
+    }
+
+    private void run(K key, Flight<V> flight, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                // removed first, so nobody joins a call that already failed
+                flights.remove(key, flight);
+                flight.future.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+                return;
+            }
+            if (window.isZero() || window.isNegative()) {
+                flights.remove(key, flight);
+            } else {
+                flight.expiresAt = clock.millis() + window.toMillis();
+                CompletableFuture.delayedExecutor(window.toMillis(), TimeUnit.MILLISECONDS)
+                        .execute(() -> flights.remove(key, flight));
+            }
+            flight.future.complete(value);
+        });
+    }
+}
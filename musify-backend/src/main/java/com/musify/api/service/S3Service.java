@@ -1,19 +1,40 @@
 package com.musify.api.service;
 
+import com.musify.api.limit.Bulkheads;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @RequiredArgsConstructor
@@ -23,30 +44,87 @@ public class S3Service {
         @Value("${aws.s3.bucket-name}")
         private String bucketName;
 
+        @Value("${musify.s3.stream-url-cache.max-size:1000}")
+        private int streamUrlCacheMaxSize;
+
+        // GET URLs are valid for 60 minutes; only reuse them while most of that is left
+        @Value("${musify.s3.stream-url-cache.max-age:PT15M}")
+        private Duration streamUrlCacheMaxAge;
+
+        // signing is CPU bound, so batch signing gets a small fixed pool
+        @Value("${musify.s3.presign-threads:4}")
+        private int presignThreads;
+
+        // part URLs live as long as a large upload might take over a slow connection
+        @Value("${musify.s3.upload-part-url-ttl:PT1H}")
+        private Duration uploadPartUrlTtl;
+
+        private final S3Presigner presigner;
         private final S3Client s3Client;
+        private final MeterRegistry meterRegistry;
+        private final Bulkheads bulkheads;
 
-        public String presignedGetObjectRequestUrl(String key) {
-                log.debug("Generating presigned GET URL for key: {}", key);
-                S3Presigner presigner = getS3Presigner();
-                GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                                .bucket(bucketName)
-                                .key(key)
-                                .build();
+        private PresignedUrlCache streamUrlCache;
+        private ExecutorService presignExecutor;
+        // signing only; stream URL cache hits never reach these
+        private Timer presignGetTimer;
+        private Timer presignPutTimer;
+        private Timer presignUploadPartTimer;
 
-                GetObjectPresignRequest getObjectPresignRequest = GetObjectPresignRequest.builder()
-                                .signatureDuration(Duration.ofMinutes(60))
-                                .getObjectRequest(getObjectRequest)
-                                .build();
+        @PostConstruct
+        public void init() {
+                streamUrlCache = new PresignedUrlCache(streamUrlCacheMaxSize, streamUrlCacheMaxAge, Clock.systemUTC());
+                FunctionCounter.builder("musify.cache.gets", streamUrlCache, cache -> cache.stats().hits())
+                                .tags("cache", "stream-url", "result", "hit")
+                                .register(meterRegistry);
+                FunctionCounter.builder("musify.cache.gets", streamUrlCache, cache -> cache.stats().misses())
+                                .tags("cache", "stream-url", "result", "miss")
+                                .register(meterRegistry);
+                FunctionCounter.builder("musify.cache.evictions", streamUrlCache, cache -> cache.stats().evictions())
+                                .tag("cache", "stream-url")
+                                .register(meterRegistry);
+                Gauge.builder("musify.cache.size", streamUrlCache, cache -> cache.stats().size())
+                                .tag("cache", "stream-url")
+                                .register(meterRegistry);
+                presignExecutor = Executors.newFixedThreadPool(presignThreads);
+                presignGetTimer = presignTimer("get");
+                presignPutTimer = presignTimer("put");
+                presignUploadPartTimer = presignTimer("upload-part");
+        }
 
-                PresignedGetObjectRequest presignedGetObjectRequest = presigner
-                                .presignGetObject(getObjectPresignRequest);
-                log.debug("Presigned GET URL generated successfully");
-                return presignedGetObjectRequest.url().toString();
+        @PreDestroy
+        public void shutdown() {
+                presignExecutor.shutdown();
+        }
+
+        public String presignedGetObjectRequestUrl(String key) {
+                return streamUrlCache.get(key, this::signGetObjectRequestUrl);
+        }
+
+        /**
+         * Presigns GET URLs for several keys at once, in parallel on the presign pool.
+         * The returned map keeps the order of {@code keys} and drops duplicates.
+         */
+        public Map<String, String> presignedGetObjectRequestUrls(Collection<String> keys) {
+                List<String> distinctKeys = keys.stream().distinct().toList();
+                Map<String, String> urls = new LinkedHashMap<>();
+                if (distinctKeys.size() == 1) {
+                        urls.put(distinctKeys.get(0), presignedGetObjectRequestUrl(distinctKeys.get(0)));
+                        return urls;
+                }
+                List<CompletableFuture<String>> futures = distinctKeys.stream()
+                                .map(key -> CompletableFuture.supplyAsync(() -> presignedGetObjectRequestUrl(key),
+                                                presignExecutor))
+                                .toList();
+                for (int i = 0; i < distinctKeys.size(); i++) {
+                        urls.put(distinctKeys.get(i), futures.get(i).join());
+                }
+                return urls;
         }
 
         public String presignedPutObjectRequestUrl(String key) {
                 log.debug("Generating presigned PUT URL for key: {}", key);
-                S3Presigner presigner = getS3Presigner();
+                long start = System.nanoTime();
 
                 PutObjectRequest objectRequest = PutObjectRequest.builder()
                                 .bucket(bucketName)
@@ -59,14 +137,112 @@ public class S3Service {
                                 .build();
 
                 PresignedPutObjectRequest presignedRequest = presigner.presignPutObject(presignRequest);
+                presignPutTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
                 log.debug("Presigned PUT URL generated successfully");
                 return presignedRequest.url().toString();
         }
 
-        private S3Presigner getS3Presigner() {
-                return S3Presigner.builder()
-                                .s3Client(s3Client)
+        public String createMultipartUpload(String key) {
+                log.debug("Creating multipart upload for key: {}", key);
+                return bulkheads.s3().call(() -> s3Client.createMultipartUpload(
+                                r -> r.bucket(bucketName).key(key).contentType("audio/mpeg"))).uploadId();
+        }
+
+        /**
+         * Presigns PUT URLs for several parts of a multipart upload at once, in
+         * parallel on the presign pool. The returned map keeps the order of {@code partNumbers}.
+         */
+        public Map<Integer, String> presignedUploadPartUrls(String key, String uploadId, List<Integer> partNumbers) {
+                List<Integer> distinctParts = partNumbers.stream().distinct().toList();
+                List<CompletableFuture<String>> futures = distinctParts.stream()
+                                .map(partNumber -> CompletableFuture.supplyAsync(
+                                                () -> signUploadPartUrl(key, uploadId, partNumber), presignExecutor))
+                                .toList();
+                Map<Integer, String> urls = new LinkedHashMap<>();
+                for (int i = 0; i < distinctParts.size(); i++) {
+                        urls.put(distinctParts.get(i), futures.get(i).join());
+                }
+                return urls;
+        }
+
+        /**
+         * @param parts ETag by part number, as returned for each part's PUT
+         */
+        public void completeMultipartUpload(String key, String uploadId, Map<Integer, String> parts) {
+                log.debug("Completing multipart upload {} for key: {} with {} parts", uploadId, key, parts.size());
+                List<CompletedPart> completedParts = parts.entrySet().stream()
+                                .sorted(Map.Entry.comparingByKey())
+                                .map(part -> CompletedPart.builder().partNumber(part.getKey()).eTag(part.getValue()).build())
+                                .toList();
+                bulkheads.s3().run(() -> s3Client.completeMultipartUpload(r -> r.bucket(bucketName).key(key)
+                                .uploadId(uploadId).multipartUpload(m -> m.parts(completedParts))));
+        }
+
+        public void abortMultipartUpload(String key, String uploadId) {
+                log.debug("Aborting multipart upload {} for key: {}", uploadId, key);
+                bulkheads.s3().run(() -> s3Client.abortMultipartUpload(
+                                r -> r.bucket(bucketName).key(key).uploadId(uploadId)));
+        }
+
+        /**
+         * Aborts multipart uploads under {@code prefix} that were started before
+         * {@code cutoff}, freeing the storage their parts hold.
+         *
+         * @return the number of uploads aborted
+         */
+        public int abortMultipartUploadsInitiatedBefore(String prefix, Instant cutoff) {
+                int aborted = 0;
+                for (MultipartUpload upload : s3Client.listMultipartUploadsPaginator(
+                                r -> r.bucket(bucketName).prefix(prefix)).uploads()) {
+                        if (upload.initiated().isBefore(cutoff)) {
+                                try {
+                                        abortMultipartUpload(upload.key(), upload.uploadId());
+                                        aborted++;
+                                } catch (NoSuchUploadException e) {
+                                        log.debug("Multipart upload {} already gone", upload.uploadId());
+                                }
+                        }
+                }
+                return aborted;
+        }
+
+        private Timer presignTimer(String type) {
+                return Timer.builder("musify.s3.presign")
+                                .description("Time to sign one presigned URL")
+                                .tag("type", type)
+                                .register(meterRegistry);
+        }
+
+        private String signUploadPartUrl(String key, String uploadId, int partNumber) {
+                long start = System.nanoTime();
+                UploadPartPresignRequest presignRequest = UploadPartPresignRequest.builder()
+                                .signatureDuration(uploadPartUrlTtl)
+                                .uploadPartRequest(r -> r.bucket(bucketName).key(key).uploadId(uploadId)
+                                                .partNumber(partNumber))
+                                .build();
+                String url = presigner.presignUploadPart(presignRequest).url().toString();
+                presignUploadPartTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return url;
+        }
+
+        private String signGetObjectRequestUrl(String key) {
+                log.debug("Generating presigned GET URL for key: {}", key);
+                long start = System.nanoTime();
+                GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
                                 .build();
+
+                GetObjectPresignRequest getObjectPresignRequest = GetObjectPresignRequest.builder()
+                                .signatureDuration(Duration.ofMinutes(60))
+                                .getObjectRequest(getObjectRequest)
+                                .build();
+
+                PresignedGetObjectRequest presignedGetObjectRequest = presigner
+                                .presignGetObject(getObjectPresignRequest);
+                presignGetTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.debug("Presigned GET URL generated successfully");
+                return presignedGetObjectRequest.url().toString();
         }
 
 }
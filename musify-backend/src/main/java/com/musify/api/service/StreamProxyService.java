@@ -0,0 +1,89 @@
+package com.musify.api.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Serves track bytes from a local disk cache filled from S3, for deployments
+ * that proxy playback instead of handing out presigned URLs. Off unless
+ * {@code musify.stream.proxy.enabled=true}; on Lambda there is no disk worth caching on.
+ */
+@Service
+@ConditionalOnProperty(name = "musify.stream.proxy.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class StreamProxyService {
+
+    private final S3Client s3Client;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    @Value("${musify.stream.proxy.cache-dir:${java.io.tmpdir}/musify-track-cache}")
+    private Path cacheDir;
+
+    @Value("${musify.stream.proxy.cache-max-size:1GB}")
+    private DataSize cacheMaxSize;
+
+    private TrackFileCache cache;
+
+    @PostConstruct
+    public void init() throws IOException {
+        cache = TrackFileCache.create(cacheDir, cacheMaxSize.toBytes());
+        FunctionCounter.builder("musify.cache.gets", cache, c -> c.stats().hits())
+                .tags("cache", "track-file", "result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("musify.cache.gets", cache, c -> c.stats().misses())
+                .tags("cache", "track-file", "result", "miss")
+                .register(meterRegistry);
+        // waited for another request's download of the same key
+        FunctionCounter.builder("musify.cache.gets", cache, c -> c.stats().coalesced())
+                .tags("cache", "track-file", "result", "coalesced")
+                .register(meterRegistry);
+        FunctionCounter.builder("musify.cache.evictions", cache, c -> c.stats().evictions())
+                .tag("cache", "track-file")
+                .register(meterRegistry);
+        Gauge.builder("musify.cache.size", cache, c -> c.stats().files())
+                .tag("cache", "track-file")
+                .register(meterRegistry);
+        Gauge.builder("musify.cache.bytes", cache, c -> c.stats().cachedBytes())
+                .tag("cache", "track-file")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("musify.stream.proxy.bytes", cache, c -> c.stats().bytesServed())
+                .baseUnit("bytes")
+                .description("Track bytes sent by the Range proxy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the local copy of the object, opened; downloaded first if it isn't cached
+     * @throws software.amazon.awssdk.services.s3.model.NoSuchKeyException if the object doesn't exist
+     */
+    public TrackFileCache.OpenFile open(String key) throws IOException {
+        return cache.open(key, this::download);
+    }
+
+    public void recordBytesServed(long bytes) {
+        cache.recordBytesServed(bytes);
+    }
+
+    private void download(String key, Path target) {
+        log.debug("Fetching {} from S3 into the track cache", key);
+        s3Client.getObject(r -> r.bucket(bucketName).key(key), ResponseTransformer.toFile(target));
+    }
+}
@@ -0,0 +1,263 @@
+package com.musify.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded LRU cache of whole S3 objects on local disk, one file per key
+ * named by the key's SHA-256. Concurrent misses on the same key share a single
+ * fetch. Files already in the directory are picked up on startup, so the cache
+ * survives restarts. {@link #open} opens the file while it is still cached; an
+ * evicted file that is still open keeps being readable until it is closed.
+ */
+@Slf4j
+public class TrackFileCache {
+
+    private static final String PART_SUFFIX = ".part";
+    // an open only misses its file if other keys evict it right after it was fetched
+    private static final int MAX_OPEN_ATTEMPTS = 3;
+
+    private final Path directory;
+    private final long maxBytes;
+    // file name -> cached file, in access order; guarded by itself
+    private final Map<String, CachedFile> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<CachedFile>> loading = new ConcurrentHashMap<>();
+    private long cachedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+
+    public record CachedFile(Path path, long length) {
+    }
+
+    public record OpenFile(FileChannel channel, long length) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    public record Stats(long hits, long misses, long coalesced, long evictions, int files, long cachedBytes,
+                        long bytesServed) {
+        public double hitRate() {
+            long total = hits + misses + coalesced;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Fetcher {
+        /**
+         * Downloads the object for {@code key} to {@code target}, which does not exist yet.
+         */
+        void fetch(String key, Path target) throws IOException;
+    }
+
+    /**
+     * @return a cache in {@code directory} that starts out with the files already there
+     */
+    public static TrackFileCache create(Path directory, long maxBytes) throws IOException {
+        TrackFileCache cache = new TrackFileCache(directory, maxBytes);
+        Files.createDirectories(directory);
+        cache.loadExisting();
+        return cache;
+    }
+
+    private TrackFileCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached file for {@code key}, fetching it first on a miss.
+     */
+    public CachedFile get(String key, Fetcher fetcher) throws IOException {
+        String name = fileName(key);
+        CachedFile cached = lookup(name);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        CompletableFuture<CachedFile> load = new CompletableFuture<>();
+        CompletableFuture<CachedFile> inFlight = loading.putIfAbsent(name, load);
+        if (inFlight != null) {
+            coalesced.increment();
+            return await(inFlight);
+        }
+        try {
+            // the previous load for this key may have finished between lookup() and putIfAbsent()
+            cached = lookup(name);
+            if (cached == null) {
+                misses.increment();
+                cached = fetch(key, name, fetcher);
+            } else {
+                hits.increment();
+            }
+            load.complete(cached);
+            return cached;
+        } catch (IOException | RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(name, load);
+        }
+    }
+
+    /**
+     * Opens the cached file for {@code key}, fetching it first on a miss. The file
+     * is opened while it is in the cache, so an eviction can't delete it in between.
+     */
+    public OpenFile open(String key, Fetcher fetcher) throws IOException {
+        String name = fileName(key);
+        for (int attempt = 1; ; attempt++) {
+            get(key, fetcher);
+            OpenFile open = openIfCached(name);
+            if (open != null) {
+                return open;
+            }
+            if (attempt == MAX_OPEN_ATTEMPTS) {
+                throw new IOException("Cached file for " + key + " was evicted before it could be opened");
+            }
+        }
+    }
+
+    public void recordBytesServed(long bytes) {
+        bytesServed.add(bytes);
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.sum(), misses.sum(), coalesced.sum(), evictions.sum(), entries.size(),
+                    cachedBytes, bytesServed.sum());
+        }
+    }
+
+    private CachedFile lookup(String name) {
+        synchronized (entries) {
+            return entries.get(name);
+        }
+    }
+
+    private OpenFile openIfCached(String name) throws IOException {
+        synchronized (entries) {
+            CachedFile cached = entries.get(name);
+            if (cached == null) {
+                return null;
+            }
+            try {
+                return new OpenFile(FileChannel.open(cached.path()), cached.length());
+            } catch (NoSuchFileException e) {
+                // deleted from outside the cache
+                entries.remove(name);
+                cachedBytes -= cached.length();
+                return null;
+            }
+        }
+    }
+
+    private CachedFile fetch(String key, String name, Fetcher fetcher) throws IOException {
+        Path part = directory.resolve(name + "." + UUID.randomUUID() + PART_SUFFIX);
+        Path target = directory.resolve(name);
+        try {
+            fetcher.fetch(key, part);
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+        CachedFile cached = new CachedFile(target, Files.size(target));
+        add(name, cached);
+        log.debug("Cached {} ({} bytes)", key, cached.length());
+        return cached;
+    }
+
+    private void add(String name, CachedFile cached) {
+        // deleted under the lock: a refetch of the same key writes the same path
+        synchronized (entries) {
+            CachedFile previous = entries.put(name, cached);
+            if (previous != null) {
+                cachedBytes -= previous.length();
+            }
+            cachedBytes += cached.length();
+            Iterator<Map.Entry<String, CachedFile>> eldest = entries.entrySet().iterator();
+            // the newest file stays even if it alone is larger than the limit
+            while (cachedBytes > maxBytes && entries.size() > 1) {
+                CachedFile victim = eldest.next().getValue();
+                eldest.remove();
+                cachedBytes -= victim.length();
+                evictions.increment();
+                try {
+                    Files.deleteIfExists(victim.path());
+                } catch (IOException e) {
+                    log.warn("Could not delete evicted cache file {}: {}", victim.path(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void loadExisting() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(files::add);
+        }
+        // oldest first, so the most recently written files end up most recently used
+        files.sort((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()));
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(PART_SUFFIX)) {
+                Files.deleteIfExists(file);
+            } else if (Files.isRegularFile(file)) {
+                add(file.getFileName().toString(), new CachedFile(file, Files.size(file)));
+            }
+        }
+        log.info("Track cache at {} holds {} files, {} bytes", directory, stats().files(), stats().cachedBytes());
+    }
+
+    private static CachedFile await(CompletableFuture<CachedFile> load) throws IOException {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new UncheckedIOException(new IOException(e.getCause()));
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
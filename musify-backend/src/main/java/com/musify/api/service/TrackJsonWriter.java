@@ -0,0 +1,102 @@
+package com.musify.api.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.musify.api.dto.PaginatedResponse;
+import com.musify.api.model.MusicTrack;
+import com.musify.api.model.TrackField;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes tracks as JSON with the streaming generator, one selected field at a time,
+ * instead of going through the bean serializer: no reflection or per-property
+ * lookups, and nulls and unselected fields cost nothing. Property names are
+ * pre-encoded once.
+ */
+@Component
+public class TrackJsonWriter {
+
+    private static final SerializedString[] FIELD_NAMES = new SerializedString[TrackField.values().length];
+    private static final SerializedString STREAM_URL = new SerializedString("streamUrl");
+    private static final SerializedString ITEMS = new SerializedString("items");
+    private static final SerializedString NEXT_TOKEN = new SerializedString("nextToken");
+
+    static {
+        for (TrackField field : TrackField.values()) {
+            FIELD_NAMES[field.ordinal()] = new SerializedString(field.fieldName());
+        }
+    }
+
+    private final JsonFactory jsonFactory;
+
+    public TrackJsonWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * @return the page as {@code {"items": [...], "nextToken": ...}}, gzip-compressed if asked
+     */
+    public byte[] writePage(PaginatedResponse page, List<TrackField> fields, boolean gzip) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + page.getItems().size() * 32 * fields.size());
+        OutputStream out = gzip ? new GZIPOutputStream(bytes) : bytes;
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeFieldName(ITEMS);
+            generator.writeStartArray();
+            for (MusicTrack track : page.getItems()) {
+                writeTrack(generator, track, fields);
+            }
+            generator.writeEndArray();
+            generator.writeFieldName(NEXT_TOKEN);
+            generator.writeString(page.getNextToken());
+            generator.writeEndObject();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A generator for a stream of top-level tracks, e.g. NDJSON rows. Flushing it
+     * flushes {@code out}; closing it does not close {@code out}.
+     */
+    public JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = jsonFactory.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // rows are separated by the caller, not by a space
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    /**
+     * Writes the non-null values of {@code fields}, in that order, then the stream
+     * URL if one was filled in.
+     */
+    public void writeTrack(JsonGenerator generator, MusicTrack track, List<TrackField> fields) throws IOException {
+        generator.writeStartObject();
+        for (TrackField field : fields) {
+            Object value = field.get(track);
+            if (value == null) {
+                continue;
+            }
+            generator.writeFieldName(FIELD_NAMES[field.ordinal()]);
+            switch (value) {
+                case String string -> generator.writeString(string);
+                case Integer number -> generator.writeNumber(number);
+                case Long number -> generator.writeNumber(number);
+                default -> throw new IllegalStateException("Unexpected type for " + field + ": " + value.getClass());
+            }
+        }
+        if (track.getStreamUrl() != null) {
+            generator.writeFieldName(STREAM_URL);
+            generator.writeString(track.getStreamUrl());
+        }
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,387 @@
+package com.musify.api.service;
+
+import com.musify.api.dto.TrendingTrack;
+import com.musify.api.exception.OverloadedException;
+import com.musify.api.limit.Bulkheads;
+import com.musify.api.model.TrackKey;
+import com.musify.api.trending.CountMinSketch;
+import com.musify.api.trending.TrendingAggregate;
+import com.musify.api.trending.TrendingSummary;
+import com.musify.api.trending.TrendingWindow;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The most played tracks of the last {@code musify.trending.window}, counted in a
+ * {@link TrendingWindow} of fixed size. Plays and uploads are first counted in a
+ * {@link PlayCounter}, so recording one takes no lock, and are moved into the
+ * window at each refresh. The ranking is recomputed every
+ * {@code musify.trending.refresh-interval}, so serving it is a copy of the first
+ * {@code limit} entries. Refreshes and snapshot exchanges are scheduled, and also
+ * run from the request path once they are overdue, since scheduled tasks don't run
+ * while a Lambda environment is frozen.
+ * <p>
+ * Every {@code musify.trending.snapshot-interval} each container writes its
+ * window's {@link TrendingSummary} to S3. The container with the lowest id among
+ * those that wrote lately adds all snapshots up into one {@link TrendingAggregate},
+ * and the others read just that, so the reads grow with the number of containers
+ * rather than its square. Each container takes its own snapshot back out of the
+ * aggregate and adds its live window instead. A container that stops writing
+ * drops out once its snapshot is older than the window, and the aggregator then
+ * deletes it. A container that comes back writes its snapshot again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrendingService {
+
+    private final S3Client s3Client;
+    private final Bulkheads bulkheads;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    @Value("${musify.trending.window:PT1H}")
+    private Duration window;
+
+    // the window slides by window / buckets
+    @Value("${musify.trending.buckets:12}")
+    private int buckets;
+
+    // tracks ranked and served
+    @Value("${musify.trending.top:100}")
+    private int top;
+
+    // possible heavy hitters tracked per bucket and kept in snapshots
+    @Value("${musify.trending.capacity:1000}")
+    private int capacity;
+
+    @Value("${musify.trending.sketch-width:2048}")
+    private int sketchWidth;
+
+    @Value("${musify.trending.sketch-depth:4}")
+    private int sketchDepth;
+
+    // an upload counts as this many plays
+    @Value("${musify.trending.upload-weight:1}")
+    private int uploadWeight;
+
+    @Value("${musify.trending.snapshot-enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${musify.trending.snapshot-prefix:trending/}")
+    private String snapshotPrefix;
+
+    // a container that hasn't written for 3 intervals isn't picked to build the aggregate
+    @Value("${musify.trending.snapshot-interval:PT1M}")
+    private Duration snapshotInterval;
+
+    @Value("${musify.trending.refresh-interval:PT10S}")
+    private Duration refreshInterval;
+
+    // tracks counted between refreshes; plays of further tracks are dropped until the next one
+    @Value("${musify.trending.pending-keys:10000}")
+    private int pendingKeys;
+
+    private final Clock clock = Clock.systemUTC();
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private TrendingWindow trendingWindow;
+    private PlayCounter pending;
+    // one refresh and one exchange at a time; the request path skips them while one runs
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final ReentrantLock exchangeLock = new ReentrantLock();
+    private volatile long lastRefreshNanos = System.nanoTime();
+    private volatile long lastExchangeNanos;
+    // the last snapshots this container wrote, by ETag, to take back out of an aggregate
+    private final Map<String, TrendingSummary> published = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TrendingSummary> eldest) {
+            return size() > 3;
+        }
+    };
+    // the other containers' windows as of the last snapshot exchange, or null
+    private volatile TrendingSummary others;
+    private volatile List<TrendingTrack> trending = List.of();
+    private volatile int snapshotsMerged;
+
+    @PostConstruct
+    public void init() {
+        trendingWindow = new TrendingWindow(window, buckets, capacity, sketchWidth, sketchDepth);
+        pending = new PlayCounter(pendingKeys);
+        // due at once, so a new container's first request brings in the other containers' counts
+        lastExchangeNanos = System.nanoTime() - snapshotInterval.toNanos();
+        Gauge.builder("musify.trending.snapshots", this, service -> service.snapshotsMerged)
+                .description("Other containers' trending snapshots merged at the last exchange")
+                .register(meterRegistry);
+        FunctionCounter.builder("musify.trending.dropped", pending, counter -> counter.stats().dropped())
+                .description("Plays not counted because pending-keys tracks were already waiting for a refresh")
+                .register(meterRegistry);
+    }
+
+    public void recordPlay(String key) {
+        record(key, 1);
+    }
+
+    public void recordUpload(String key) {
+        record(key, uploadWeight);
+    }
+
+    /**
+     * @return up to {@code limit} tracks, most played first
+     */
+    public List<TrendingTrack> getTrending(int limit) {
+        refreshIfDue();
+        List<TrendingTrack> current = trending;
+        return current.subList(0, Math.max(0, Math.min(limit, current.size())));
+    }
+
+    @Scheduled(fixedDelayString = "${musify.trending.refresh-interval:PT10S}")
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            refreshLocked();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void refreshLocked() {
+        lastRefreshNanos = System.nanoTime();
+        drainPending();
+        TrendingSummary summary = trendingWindow.summary(clock.millis());
+        TrendingSummary merged = others;
+        if (merged != null) {
+            summary.merge(merged);
+        }
+        trending = summary.top(top).stream()
+                .map(entry -> {
+                    TrackKey track = TrackKey.fromS3Key(entry.key());
+                    return new TrendingTrack(track.artistName(), track.songName(), entry.key(), entry.count());
+                })
+                .toList();
+    }
+
+    @Scheduled(initialDelayString = "${musify.trending.snapshot-interval:PT1M}",
+            fixedDelayString = "${musify.trending.snapshot-interval:PT1M}")
+    public void exchangeSnapshots() {
+        // an exchange already running covers this one
+        if (snapshotEnabled && exchangeLock.tryLock()) {
+            try {
+                exchangeLocked();
+            } finally {
+                exchangeLock.unlock();
+            }
+        }
+    }
+
+    private void exchangeLocked() {
+        lastExchangeNanos = System.nanoTime();
+        try {
+            String etag = publishSnapshot();
+            List<S3Object> snapshots = listSnapshots();
+            boolean aggregator = isAggregator(snapshots);
+            useAggregate(aggregator ? buildAggregate(snapshots, etag) : readAggregate());
+            if (aggregator) {
+                deleteExpired(snapshots);
+            }
+        } catch (SdkException | OverloadedException | IOException e) {
+            log.warn("Trending snapshot exchange failed: {}", e.getMessage());
+        }
+        refresh();
+    }
+
+    private void record(String key, long weight) {
+        if (TrackKey.isTrackFile(key)) {
+            pending.record(key, weight);
+            refreshIfDue();
+        }
+    }
+
+    private void refreshIfDue() {
+        long now = System.nanoTime();
+        if (snapshotEnabled && now - lastExchangeNanos >= snapshotInterval.toNanos()) {
+            exchangeSnapshots();
+        } else if (now - lastRefreshNanos >= refreshInterval.toNanos() && refreshLock.tryLock()) {
+            try {
+                refreshLocked();
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+    }
+
+    // plays recorded since the last drain count as made now, at most a refresh interval late
+    private void drainPending() {
+        refreshLock.lock();
+        try {
+            long now = clock.millis();
+            pending.drain().forEach((key, plays) -> trendingWindow.add(key, plays, now));
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * @return the snapshot's ETag
+     */
+    private String publishSnapshot() throws IOException {
+        drainPending();
+        TrendingSummary summary = trendingWindow.summary(clock.millis());
+        summary.trim(capacity);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        summary.writeTo(out);
+        String etag = bulkheads.s3().call(() -> s3Client.putObject(
+                r -> r.bucket(bucketName).key(snapshotPrefix + instanceId),
+                RequestBody.fromBytes(out.toByteArray()))).eTag();
+        published.put(etag, summary);
+        return etag;
+    }
+
+    /**
+     * @return every container's snapshot, this container's and expired ones included
+     */
+    private List<S3Object> listSnapshots() {
+        return bulkheads.s3().call(() -> s3Client.listObjectsV2Paginator(
+                        r -> r.bucket(bucketName).prefix(snapshotPrefix)).contents().stream()
+                .filter(object -> !object.key().equals(aggregateKey()))
+                .toList());
+    }
+
+    private boolean isExpired(S3Object snapshot) {
+        return snapshot.lastModified().isBefore(clock.instant().minus(window));
+    }
+
+    private boolean isAggregator(List<S3Object> snapshots) {
+        Instant recent = clock.instant().minus(snapshotInterval.multipliedBy(3));
+        return snapshots.stream()
+                .filter(object -> !object.lastModified().isBefore(recent))
+                .map(S3Object::key)
+                .min(Comparator.naturalOrder())
+                .map(key -> key.equals(snapshotPrefix + instanceId))
+                .orElse(false);
+    }
+
+    private TrendingAggregate buildAggregate(List<S3Object> snapshots, String etag) throws IOException {
+        TrendingSummary merged = new TrendingSummary(new CountMinSketch(sketchWidth, sketchDepth));
+        Map<String, String> included = new LinkedHashMap<>();
+        merged.merge(published.get(etag));
+        included.put(instanceId, etag);
+        for (S3Object object : snapshots) {
+            if (object.key().equals(snapshotPrefix + instanceId) || isExpired(object)) {
+                continue;
+            }
+            try {
+                ResponseBytes<GetObjectResponse> bytes = bulkheads.s3().call(
+                        () -> s3Client.getObjectAsBytes(r -> r.bucket(bucketName).key(object.key())));
+                merged.merge(TrendingSummary.readFrom(bytes.asInputStream()));
+                // keep memory bounded however many containers there are
+                merged.trim(capacity);
+                included.put(object.key().substring(snapshotPrefix.length()), bytes.response().eTag());
+            } catch (NoSuchKeyException e) {
+                log.debug("Trending snapshot {} expired since the listing", object.key());
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Skipping trending snapshot {}: {}", object.key(), e.getMessage());
+            }
+        }
+        TrendingAggregate aggregate = new TrendingAggregate(included, merged);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        aggregate.writeTo(out);
+        bulkheads.s3().run(() -> s3Client.putObject(r -> r.bucket(bucketName).key(aggregateKey()),
+                RequestBody.fromBytes(out.toByteArray())));
+        return aggregate;
+    }
+
+    /**
+     * Deletes the snapshots of containers that stopped writing a window ago.
+     * Only the aggregator does this, so containers don't race to delete the same
+     * ones.
+     */
+    private void deleteExpired(List<S3Object> snapshots) {
+        List<ObjectIdentifier> expired = snapshots.stream()
+                .filter(this::isExpired)
+                .map(object -> ObjectIdentifier.builder().key(object.key()).build())
+                .toList();
+        // DeleteObjects takes up to 1000 keys
+        for (int from = 0; from < expired.size(); from += 1000) {
+            List<ObjectIdentifier> batch = expired.subList(from, Math.min(expired.size(), from + 1000));
+            bulkheads.s3().run(() -> s3Client.deleteObjects(
+                    r -> r.bucket(bucketName).delete(d -> d.objects(batch).quiet(true))));
+        }
+        if (!expired.isEmpty()) {
+            log.info("Deleted {} expired trending snapshots", expired.size());
+        }
+    }
+
+    /**
+     * @return the aggregate, or null if there is none from within the window
+     */
+    private TrendingAggregate readAggregate() throws IOException {
+        ResponseBytes<GetObjectResponse> bytes;
+        try {
+            bytes = bulkheads.s3().call(() -> s3Client.getObjectAsBytes(
+                    r -> r.bucket(bucketName).key(aggregateKey())));
+        } catch (NoSuchKeyException e) {
+            return null;
+        }
+        if (bytes.response().lastModified().isBefore(clock.instant().minus(window))) {
+            return null;
+        }
+        return TrendingAggregate.readFrom(bytes.asInputStream());
+    }
+
+    private void useAggregate(TrendingAggregate aggregate) {
+        if (aggregate == null) {
+            others = null;
+            snapshotsMerged = 0;
+            return;
+        }
+        TrendingSummary summary = aggregate.summary();
+        int count = aggregate.snapshots().size();
+        String etag = aggregate.snapshots().get(instanceId);
+        if (etag != null) {
+            TrendingSummary own = published.get(etag);
+            if (own == null) {
+                // built from a snapshot older than the ones kept; try again at the next exchange
+                log.debug("Trending aggregate has an old snapshot of this container, keeping the last one");
+                return;
+            }
+            summary.subtract(own);
+            count--;
+        }
+        others = count == 0 ? null : summary;
+        snapshotsMerged = count;
+    }
+
+    private String aggregateKey() {
+        return snapshotPrefix + "aggregate";
+    }
+}
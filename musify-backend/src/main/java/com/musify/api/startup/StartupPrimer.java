@@ -0,0 +1,132 @@
+package com.musify.api.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.musify.api.config.RefreshableAsyncHttpClient;
+import com.musify.api.config.RefreshableCredentialsProvider;
+import com.musify.api.config.RefreshableHttpClient;
+import com.musify.api.dto.MusicTrackRequest;
+import com.musify.api.dto.PaginatedResponse;
+import com.musify.api.model.MusicTrack;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Warms the expensive lazy paths (bean schema, Jackson, validation, SigV4 signer)
+ * before a SnapStart/CRaC checkpoint, and refreshes credentials and connection
+ * pools after restore. Priming never calls AWS over the network, but other beans
+ * may before the checkpoint, and their pooled connections are dead in a restored
+ * JVM.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StartupPrimer implements Resource {
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final S3Presigner presigner;
+    private final RefreshableCredentialsProvider credentialsProvider;
+    private final List<RefreshableHttpClient> httpClients;
+    // only with musify.aws.async=true
+    private final ObjectProvider<RefreshableAsyncHttpClient> asyncHttpClient;
+
+    // without SnapStart the Lambda init phase is still a cheaper place to warm up than the first request
+    @Value("${musify.priming.on-startup:false}")
+    private boolean primeOnStartup;
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    @PostConstruct
+    public void register() {
+        Core.getGlobalContext().register(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (primeOnStartup) {
+            prime();
+            StartupTimings.report("startup");
+        }
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        log.info("Priming before checkpoint");
+        prime();
+        StartupTimings.report("checkpoint");
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        long start = System.nanoTime();
+        credentialsProvider.refresh();
+        StartupTimings.record("restore.credentials", start);
+
+        start = System.nanoTime();
+        httpClients.forEach(RefreshableHttpClient::refresh);
+        asyncHttpClient.ifAvailable(RefreshableAsyncHttpClient::refresh);
+        StartupTimings.record("restore.connection-pools", start);
+        StartupTimings.report("restore");
+    }
+
+    public void prime() {
+        MusicTrack sample = MusicTrack.builder()
+                .artistName("Priming Artist")
+                .songName("Priming Song")
+                .artistNameLower("priming artist")
+                .songNameLower("priming song")
+                .s3Key("tracks/Priming Artist/Priming Song.mp3")
+                .duration(180)
+                .build();
+
+        long start = System.nanoTime();
+        TableSchema<MusicTrack> schema = TableSchema.fromBean(MusicTrack.class);
+        schema.mapToItem(schema.itemToMap(sample, true));
+        StartupTimings.record("prime.schema", start);
+
+        start = System.nanoTime();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new PaginatedResponse(List.of(sample), "cHJpbWluZw=="));
+            objectMapper.readValue(json, PaginatedResponse.class);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(Map.of("urls", Map.of("k", "v"))), Map.class);
+        } catch (Exception e) {
+            log.warn("Jackson priming failed: {}", e.getMessage());
+        }
+        StartupTimings.record("prime.jackson", start);
+
+        start = System.nanoTime();
+        MusicTrackRequest request = new MusicTrackRequest();
+        request.setArtistName(sample.getArtistName());
+        request.setSongName(sample.getSongName());
+        request.setS3Key(sample.getS3Key());
+        validator.validate(request);
+        StartupTimings.record("prime.validation", start);
+
+        start = System.nanoTime();
+        try {
+            presigner.presignGetObject(r -> r.signatureDuration(Duration.ofMinutes(1))
+                    .getObjectRequest(g -> g.bucket(bucketName).key(sample.getS3Key())));
+        } catch (Exception e) {
+            // no credentials locally; the signer classes are loaded either way
+            log.warn("Presigner priming failed: {}", e.getMessage());
+        }
+        StartupTimings.record("prime.presigner", start);
+    }
+}
@@ -0,0 +1,34 @@
+package com.musify.api.startup;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects how long each cold start / priming / restore phase took, so one log line
+ * shows where init time goes. Static because the Lambda handler records the Spring
+ * context start before any bean exists.
+ */
+@Slf4j
+public final class StartupTimings {
+
+    private static final Map<String, Long> PHASES = new LinkedHashMap<>();
+
+    private StartupTimings() {
+    }
+
+    public static synchronized void record(String phase, long startNanos) {
+        PHASES.put(phase, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    public static synchronized Map<String, Long> phases() {
+        return new LinkedHashMap<>(PHASES);
+    }
+
+    public static synchronized void report(String event) {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        log.info("Startup report [{}]: jvmUptime={}ms phases(ms)={}", event, uptime, PHASES);
+    }
+}
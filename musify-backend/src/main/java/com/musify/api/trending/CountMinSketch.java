@@ -0,0 +1,123 @@
+package com.musify.api.trending;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Approximate counts per key in a fixed {@code depth} x {@code width} table of
+ * counters. An estimate never undercounts, and overcounts by at most
+ * {@code e / width} of the total with probability {@code 1 - e^-depth}.
+ * <p>
+ * Each row picks its cell with its own seed of a 64-bit {@link Murmur3} hash of
+ * the key's UTF-8 bytes, so rows don't collide on the same keys, and sketches of
+ * the same shape built in different containers can be added up with
+ * {@link #merge}. Not thread-safe.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long[] counts;
+    private long total;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     */
+    public CountMinSketch(int width, int depth) {
+        this.width = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+        this.depth = depth;
+        this.counts = new long[this.width * depth];
+    }
+
+    public void add(String key, long count) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        for (int row = 0; row < depth; row++) {
+            counts[cell(bytes, row)] += count;
+        }
+        total += count;
+    }
+
+    public long estimate(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[cell(bytes, row)]);
+        }
+        return min;
+    }
+
+    private int cell(byte[] key, int row) {
+        return row * width + (int) (Murmur3.hash64(key, row) & (width - 1));
+    }
+
+    /**
+     * Adds another sketch's counts to this one. Both must have the same shape.
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Sketch of " + other.depth + "x" + other.width
+                    + " can't be merged into " + depth + "x" + width);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * Takes counts added with {@link #merge} out again. Both must have the same shape.
+     */
+    public void subtract(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Sketch of " + other.depth + "x" + other.width
+                    + " can't be subtracted from " + depth + "x" + width);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] -= other.counts[i];
+        }
+        total -= other.total;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(width);
+        out.writeInt(depth);
+        out.writeLong(total);
+        for (long count : counts) {
+            out.writeLong(count);
+        }
+    }
+
+    static CountMinSketch readFrom(DataInput in) throws IOException {
+        int width = in.readInt();
+        int depth = in.readInt();
+        if (Integer.bitCount(width) != 1 || depth < 1 || (long) width * depth > 1 << 24) {
+            throw new IOException("Bad sketch shape " + depth + "x" + width);
+        }
+        CountMinSketch sketch = new CountMinSketch(width, depth);
+        sketch.total = in.readLong();
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = in.readLong();
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,47 @@
+package com.musify.api.trending;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Several containers' {@link TrendingSummary TrendingSummaries} added up, with
+ * the ETag of each snapshot that went in, so a container can take its own
+ * contribution back out.
+ *
+ * @param snapshots instance id to the ETag of its snapshot
+ */
+public record TrendingAggregate(Map<String, String> snapshots, TrendingSummary summary) {
+
+    private static final int MAGIC = 0x4D545241;
+    private static final int VERSION = 1;
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(snapshots.size());
+        for (Map.Entry<String, String> snapshot : snapshots.entrySet()) {
+            data.writeUTF(snapshot.getKey());
+            data.writeUTF(snapshot.getValue());
+        }
+        summary.writeTo(data);
+    }
+
+    public static TrendingAggregate readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Not a trending aggregate of version " + VERSION);
+        }
+        int count = data.readInt();
+        Map<String, String> snapshots = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            snapshots.put(data.readUTF(), data.readUTF());
+        }
+        return new TrendingAggregate(snapshots, TrendingSummary.readFrom(data));
+    }
+}
@@ -0,0 +1,125 @@
+package com.musify.api.trending;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Counts over a time window as a {@link CountMinSketch} plus the keys that may
+ * be among the most counted, as found by {@link SpaceSaving}. Summaries of the
+ * same sketch shape add up with {@link #merge}, and travel between containers
+ * with {@link #writeTo} and {@link #readFrom}. Not thread-safe.
+ */
+public class TrendingSummary {
+
+    private static final int MAGIC = 0x4D545253;
+    // 2: sketch cells chosen by Murmur3 instead of String.hashCode
+    private static final int VERSION = 2;
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::count).reversed()
+            .thenComparing(Entry::key);
+
+    private final CountMinSketch sketch;
+    private final Set<String> candidates = new HashSet<>();
+
+    /**
+     * @param count the sketch's estimate, which may overcount but never undercounts
+     */
+    public record Entry(String key, long count) {
+    }
+
+    public TrendingSummary(CountMinSketch sketch) {
+        this.sketch = sketch;
+    }
+
+    public CountMinSketch getSketch() {
+        return sketch;
+    }
+
+    public void addCandidate(String key) {
+        candidates.add(key);
+    }
+
+    public int candidateCount() {
+        return candidates.size();
+    }
+
+    public void merge(TrendingSummary other) {
+        sketch.merge(other.sketch);
+        candidates.addAll(other.candidates);
+    }
+
+    /**
+     * Takes a merged summary's counts out again. Its candidates stay, and drop
+     * out of {@link #top} if nothing else counted them.
+     */
+    public void subtract(TrendingSummary other) {
+        sketch.subtract(other.sketch);
+    }
+
+    /**
+     * @return the {@code k} candidates with the highest estimates, highest first
+     */
+    public List<Entry> top(int k) {
+        PriorityQueue<Entry> best = new PriorityQueue<>(ORDER.reversed());
+        for (String key : candidates) {
+            long count = sketch.estimate(key);
+            if (count == 0) {
+                continue;
+            }
+            best.add(new Entry(key, count));
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+        List<Entry> top = new ArrayList<>(best);
+        top.sort(ORDER);
+        return top;
+    }
+
+    /**
+     * Forgets all but the {@code k} best candidates, so merging many summaries
+     * keeps a bounded number of them.
+     */
+    public void trim(int k) {
+        if (candidates.size() <= k) {
+            return;
+        }
+        List<Entry> top = top(k);
+        candidates.clear();
+        top.forEach(entry -> candidates.add(entry.key()));
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        sketch.writeTo(data);
+        data.writeInt(candidates.size());
+        for (String key : candidates) {
+            data.writeUTF(key);
+        }
+        data.flush();
+    }
+
+    public static TrendingSummary readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Not a trending summary of version " + VERSION);
+        }
+        TrendingSummary summary = new TrendingSummary(CountMinSketch.readFrom(data));
+        int candidates = data.readInt();
+        for (int i = 0; i < candidates; i++) {
+            summary.addCandidate(data.readUTF());
+        }
+        return summary;
+    }
+}
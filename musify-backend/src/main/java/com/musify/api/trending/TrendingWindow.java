@@ -0,0 +1,82 @@
+package com.musify.api.trending;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Event counts over a sliding time window, kept as a ring of buckets that each
+ * cover {@code window / buckets} and hold their own {@link CountMinSketch} and
+ * {@link SpaceSaving}. A bucket is cleared and reused once it falls out of the
+ * window, so memory stays the same however many distinct keys are counted. The
+ * window slides a bucket at a time.
+ */
+public class TrendingWindow {
+
+    private final long bucketMillis;
+    private final int width;
+    private final int depth;
+    private final Bucket[] buckets;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private static final class Bucket {
+        // the bucket's time slot, window start / bucketMillis; -1 if never used
+        long slot = -1;
+        final CountMinSketch sketch;
+        final SpaceSaving heavyHitters;
+
+        Bucket(int width, int depth, int capacity) {
+            sketch = new CountMinSketch(width, depth);
+            heavyHitters = new SpaceSaving(capacity);
+        }
+    }
+
+    /**
+     * @param capacity keys each bucket tracks as possible heavy hitters
+     */
+    public TrendingWindow(Duration window, int bucketCount, int capacity, int width, int depth) {
+        this.bucketMillis = Math.max(1, window.toMillis() / bucketCount);
+        this.width = width;
+        this.depth = depth;
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket(width, depth, capacity);
+        }
+    }
+
+    public void add(String key, long count, long nowMillis) {
+        long slot = nowMillis / bucketMillis;
+        lock.lock();
+        try {
+            Bucket bucket = buckets[(int) Math.floorMod(slot, (long) buckets.length)];
+            if (bucket.slot != slot) {
+                bucket.sketch.clear();
+                bucket.heavyHitters.clear();
+                bucket.slot = slot;
+            }
+            bucket.sketch.add(key, count);
+            bucket.heavyHitters.add(key, count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the counts of the buckets still in the window at {@code nowMillis}
+     */
+    public TrendingSummary summary(long nowMillis) {
+        long slot = nowMillis / bucketMillis;
+        TrendingSummary summary = new TrendingSummary(new CountMinSketch(width, depth));
+        lock.lock();
+        try {
+            for (Bucket bucket : buckets) {
+                if (bucket.slot > slot - buckets.length && bucket.slot <= slot) {
+                    summary.getSketch().merge(bucket.sketch);
+                    bucket.heavyHitters.forEachKey(summary::addCandidate);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return summary;
+    }
+}
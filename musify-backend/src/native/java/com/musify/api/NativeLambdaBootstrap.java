@@ -0,0 +1,15 @@
+package com.musify.api;
+
+import com.amazonaws.services.lambda.runtime.api.client.AWSLambda;
+
+/**
+ * Entry point of the native executable (-Pnative) for the Lambda custom runtime
+ * (provided.al2023). It runs the runtime interface client loop against
+ * {@link StreamLambdaHandler}, the same handler the java21 runtime uses.
+ */
+public class NativeLambdaBootstrap {
+
+    public static void main(String[] args) {
+        AWSLambda.main(new String[]{StreamLambdaHandler.class.getName() + "::handleRequest"});
+    }
+}
@@ -0,0 +1,122 @@
+package com.musify.api.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Mp3InfoReaderTest {
+
+    // MPEG 1 Layer III, 44.1 kHz, joint stereo; bitrate index in the high nibble of the third byte
+    private static final int INDEX_128 = 9;
+    private static final int INDEX_192 = 11;
+    private static final int INDEX_64 = 5;
+
+    private static byte[] frame(int bitrateIndex, int kbps) {
+        byte[] frame = new byte[144 * kbps * 1000 / 44100];
+        frame[0] = (byte) 0xFF;
+        frame[1] = (byte) 0xFB;
+        frame[2] = (byte) (bitrateIndex << 4);
+        frame[3] = 0x40;
+        return frame;
+    }
+
+    private static byte[] id3v2(int size) {
+        byte[] tag = new byte[10 + size];
+        tag[0] = 'I';
+        tag[1] = 'D';
+        tag[2] = '3';
+        tag[3] = 4;
+        for (int i = 0; i < 4; i++) {
+            tag[6 + i] = (byte) ((size >> (7 * (3 - i))) & 0x7F);
+        }
+        return tag;
+    }
+
+    private static Mp3InfoReader.RangeSource source(byte[] file, AtomicInteger reads) {
+        return new Mp3InfoReader.RangeSource() {
+            @Override
+            public int read(long position, byte[] buf, int length) {
+                reads.incrementAndGet();
+                int n = (int) Math.min(length, file.length - position);
+                System.arraycopy(file, (int) position, buf, 0, n);
+                return n;
+            }
+
+            @Override
+            public long size() {
+                return file.length;
+            }
+        };
+    }
+
+    @Test
+    void computesDurationOfConstantBitrateFileBehindLargeTag() throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(id3v2(40_000));
+        for (int i = 0; i < 2000; i++) {
+            file.write(frame(INDEX_128, 128));
+        }
+        AtomicInteger reads = new AtomicInteger();
+
+        AudioInfo info = Mp3InfoReader.read(source(file.toByteArray(), reads), new byte[Mp3InfoReader.BUFFER_SIZE]);
+
+        // 2000 frames * 1152 samples / 44100 Hz
+        assertThat(info.durationSeconds()).isEqualTo(52);
+        assertThat(info.bitrateKbps()).isEqualTo(128);
+        assertThat(info.sampleRate()).isEqualTo(44100);
+        assertThat(info.vbr()).isFalse();
+        assertThat(info.estimated()).isFalse();
+        // head, head again after the tag, then the sample points
+        assertThat(reads.get()).isEqualTo(2 + Mp3InfoReader.SAMPLE_POINTS);
+    }
+
+    @Test
+    void takesFrameCountFromXingHeader() throws IOException {
+        byte[] first = frame(INDEX_128, 128);
+        int xing = 4 + 32;
+        first[xing] = 'X';
+        first[xing + 1] = 'i';
+        first[xing + 2] = 'n';
+        first[xing + 3] = 'g';
+        first[xing + 7] = 0x3;
+        // 10 000 frames, 4 000 000 bytes
+        writeInt(first, xing + 8, 10_000);
+        writeInt(first, xing + 12, 4_000_000);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(first);
+        for (int i = 0; i < 50; i++) {
+            file.write(frame(i % 2 == 0 ? INDEX_192 : INDEX_64, i % 2 == 0 ? 192 : 64));
+        }
+        AtomicInteger reads = new AtomicInteger();
+
+        AudioInfo info = Mp3InfoReader.read(source(file.toByteArray(), reads), new byte[Mp3InfoReader.BUFFER_SIZE]);
+
+        // 10 000 * 1152 / 44100 = 261.2 s, 4 000 000 bytes over that is 122.5 kbps
+        assertThat(info.durationSeconds()).isEqualTo(261);
+        assertThat(info.bitrateKbps()).isEqualTo(123);
+        assertThat(info.vbr()).isTrue();
+        assertThat(info.estimated()).isFalse();
+        assertThat(reads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsFilesWithoutFrames() {
+        byte[] file = new byte[20_000];
+
+        assertThatThrownBy(() -> Mp3InfoReader.read(source(file, new AtomicInteger()),
+                new byte[Mp3InfoReader.BUFFER_SIZE]))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static void writeInt(byte[] buf, int offset, int value) {
+        buf[offset] = (byte) (value >>> 24);
+        buf[offset + 1] = (byte) (value >>> 16);
+        buf[offset + 2] = (byte) (value >>> 8);
+        buf[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,91 @@
+package com.musify.api.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Mp3SegmenterTest {
+
+    // MPEG 1 Layer III, 128 kbps, 44.1 kHz: 417 bytes and 1152 samples per frame
+    private static final int FRAME_LENGTH = 417;
+
+    private static byte[] frame() {
+        byte[] frame = new byte[FRAME_LENGTH];
+        frame[0] = (byte) 0xFF;
+        frame[1] = (byte) 0xFB;
+        frame[2] = (byte) 0x90;
+        frame[3] = 0x40;
+        return frame;
+    }
+
+    private static byte[] track(int frames) throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(new byte[]{'I', 'D', '3', 4, 0, 0, 0, 0, 1, 0}); // 128-byte tag
+        file.write(new byte[128]);
+        byte[] info = frame();
+        System.arraycopy("Info".getBytes(), 0, info, 4 + 32, 4);
+        file.write(info);
+        for (int i = 0; i < frames; i++) {
+            file.write(frame());
+        }
+        file.write("TAG".getBytes());
+        file.write(new byte[125]);
+        return file.toByteArray();
+    }
+
+    @Test
+    void cutsAtFrameBoundariesAndDropsTagsAndInfoFrame() throws IOException {
+        List<byte[]> written = new ArrayList<>();
+
+        // 500 frames of 26.1 ms; 6 s needs 230 frames
+        List<Mp3Segmenter.Segment> segments = Mp3Segmenter.segment(new ByteArrayInputStream(track(500)), 6.0,
+                (segment, data, length) -> written.add(Arrays.copyOf(data, length)));
+
+        assertThat(segments).extracting(Mp3Segmenter.Segment::index).containsExactly(0, 1, 2);
+        assertThat(segments.get(0).seconds()).isEqualTo(230 * 1152 / 44100.0);
+        assertThat(segments.get(2).seconds()).isEqualTo(40 * 1152 / 44100.0);
+        int tagLength = 10 + 10 + "com.apple.streaming.transportStreamTimestamp".length() + 1 + 8;
+        assertThat(written).extracting(data -> data.length)
+                .containsExactly(tagLength + 230 * FRAME_LENGTH, tagLength + 230 * FRAME_LENGTH,
+                        tagLength + 40 * FRAME_LENGTH);
+        for (byte[] data : written) {
+            assertThat(new String(data, 0, 3)).isEqualTo("ID3");
+            assertThat(Mp3HeaderParser.parseFrameHeader(data, tagLength)).isNotNull();
+            assertThat(Mp3HeaderParser.parseVbrHeader(data, tagLength, data.length,
+                    Mp3HeaderParser.parseFrameHeader(data, tagLength))).isNull();
+        }
+        // second segment starts at 230 frames = 6.009 s on the 90 kHz clock
+        long timestamp = 0;
+        for (int i = tagLength - 8; i < tagLength; i++) {
+            timestamp = (timestamp << 8) | (written.get(1)[i] & 0xFF);
+        }
+        assertThat(timestamp).isEqualTo(230L * 1152 * 90_000 / 44100);
+    }
+
+    @Test
+    void buildsVodPlaylist() {
+        String playlist = Mp3Segmenter.playlist(
+                List.of(new Mp3Segmenter.Segment(0, 6.008), new Mp3Segmenter.Segment(1, 1.5)),
+                List.of("00000.mp3", "00001.mp3"));
+
+        assertThat(playlist).isEqualTo("""
+                #EXTM3U
+                #EXT-X-VERSION:3
+                #EXT-X-PLAYLIST-TYPE:VOD
+                #EXT-X-TARGETDURATION:7
+                #EXT-X-MEDIA-SEQUENCE:0
+                #EXTINF:6.008,
+                00000.mp3
+                #EXTINF:1.500,
+                00001.mp3
+                #EXT-X-ENDLIST
+                """);
+    }
+}
@@ -0,0 +1,51 @@
+package com.musify.api.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdminTokenInterceptorTest {
+
+    static class Handlers {
+        @AdminOnly
+        public void backfill() {
+        }
+
+        public void list() {
+        }
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), name);
+    }
+
+    private static int status(AdminTokenInterceptor interceptor, String handler, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/musictrack/" + handler);
+        if (token != null) {
+            request.addHeader(AdminTokenInterceptor.HEADER, token);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        return interceptor.preHandle(request, response, handler(handler)) ? 200 : response.getStatus();
+    }
+
+    @Test
+    void requiresTheConfiguredTokenOnAdminHandlersOnly() throws Exception {
+        AdminTokenInterceptor interceptor = new AdminTokenInterceptor("s3cret");
+
+        assertThat(status(interceptor, "backfill", "s3cret")).isEqualTo(200);
+        assertThat(status(interceptor, "backfill", "s3cre")).isEqualTo(403);
+        assertThat(status(interceptor, "backfill", null)).isEqualTo(403);
+        assertThat(status(interceptor, "list", null)).isEqualTo(200);
+    }
+
+    @Test
+    void hidesAdminHandlersWithoutAConfiguredToken() throws Exception {
+        AdminTokenInterceptor interceptor = new AdminTokenInterceptor("");
+
+        assertThat(status(interceptor, "backfill", "")).isEqualTo(404);
+        assertThat(status(interceptor, "list", null)).isEqualTo(200);
+    }
+}
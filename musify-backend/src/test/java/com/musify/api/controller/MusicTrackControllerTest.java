@@ -0,0 +1,64 @@
+package com.musify.api.controller;
+
+import com.musify.api.exception.GlobalExceptionHandler;
+import com.musify.api.service.MusicTrackService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MusicTrackControllerTest {
+
+    private final MusicTrackService musicTrackService = mock(MusicTrackService.class);
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new MusicTrackController(musicTrackService, null, null, null, null, null, null))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    void rejectsNullAndBlankStreamKeysBeforeSigning() throws Exception {
+        for (String keys : List.of("[\"tracks/Adele/Hello.mp3\", null]", "[\"  \"]")) {
+            mockMvc.perform(post("/api/musictrack/stream/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"keys\": " + keys + "}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.messages[0]").value("Keys must not be blank"));
+        }
+        verify(musicTrackService, never()).getStreamUrls(any());
+
+        when(musicTrackService.getStreamUrls(List.of("tracks/Adele/Hello.mp3")))
+                .thenReturn(Map.of("tracks/Adele/Hello.mp3", "https://example.com/hello"));
+        mockMvc.perform(post("/api/musictrack/stream/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"keys\": [\"tracks/Adele/Hello.mp3\"]}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void gzipsOnlyWhenAcceptEncodingAllowsAndPrefersIt() {
+        assertThat(MusicTrackController.acceptsGzip("gzip, deflate, br")).isTrue();
+        assertThat(MusicTrackController.acceptsGzip("br;q=1.0, GZIP;q=0.8")).isTrue();
+        assertThat(MusicTrackController.acceptsGzip("*")).isTrue();
+        assertThat(MusicTrackController.acceptsGzip("gzip;q=0.5, identity;q=0")).isTrue();
+
+        assertThat(MusicTrackController.acceptsGzip(null)).isFalse();
+        assertThat(MusicTrackController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(MusicTrackController.acceptsGzip("gzip;q=0.000, br")).isFalse();
+        assertThat(MusicTrackController.acceptsGzip("identity")).isFalse();
+        assertThat(MusicTrackController.acceptsGzip("gzip;q=0.5, identity")).isFalse();
+        assertThat(MusicTrackController.acceptsGzip("*;q=0, identity")).isFalse();
+    }
+}
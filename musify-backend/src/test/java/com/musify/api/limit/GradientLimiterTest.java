@@ -0,0 +1,52 @@
+package com.musify.api.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void limitGrowsWhileLatencyHoldsAndShrinksWhenItRises() {
+        GradientLimiter limiter = new GradientLimiter(10, 2, 100, 1.5);
+        assertThat(fillAndRelease(limiter, 10 * MILLIS)).isEqualTo(10);
+        assertThat(limiter.getRejected()).isEqualTo(1);
+
+        for (int i = 0; i < 20; i++) {
+            fillAndRelease(limiter, 10 * MILLIS);
+        }
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(50);
+
+        for (int i = 0; i < 5; i++) {
+            fillAndRelease(limiter, 50 * MILLIS);
+        }
+        assertThat(limiter.getLimit()).isLessThan(grown / 2);
+    }
+
+    @Test
+    void throttledCallsCutTheLimit() {
+        GradientLimiter limiter = new GradientLimiter(20, 2, 100, 1.5);
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(10 * MILLIS, true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(6);
+        assertThat(limiter.getDropped()).isEqualTo(10);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    // takes every permit the limiter gives out, then ends all the calls with the same latency
+    private static int fillAndRelease(GradientLimiter limiter, long rttNanos) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(rttNanos, false);
+        }
+        return acquired;
+    }
+}
@@ -0,0 +1,84 @@
+package com.musify.api.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmfMeterRegistryTest {
+
+    private final MockClock clock = new MockClock();
+    private final List<String> lines = new ArrayList<>();
+    // not enabled, so no publishing thread is started; the test calls publish() itself
+    private final EmfMeterRegistry registry = new EmfMeterRegistry(
+            key -> Map.of("musify.metrics.emf.enabled", "false").get(key), clock, lines::add);
+
+    @Test
+    void publishesLastStepAsEmfDocumentPerTagSet() throws Exception {
+        Timer timer = Timer.builder("musify.repository.calls").tag("method", "findAll")
+                .publishPercentiles(0.99).register(registry);
+        // percentiles come from a window that trails the step, so record late in it
+        clock.add(Duration.ofSeconds(50));
+        timer.record(Duration.ofMillis(20));
+        timer.record(Duration.ofMillis(40));
+        registry.counter("musify.dynamodb.scan.items", "kind", "scanned").increment(25);
+        registry.counter("musify.dynamodb.scan.items", "kind", "returned");
+        registry.counter("jvm.gc.pause.count").increment();
+        clock.add(Duration.ofSeconds(10));
+
+        registry.publish();
+
+        assertThat(lines).hasSize(2);
+        JsonNode findAll = new ObjectMapper().readTree(lines.stream()
+                .filter(line -> line.contains("findAll")).findFirst().orElseThrow());
+        JsonNode directive = findAll.at("/_aws/CloudWatchMetrics/0");
+        assertThat(directive.get("Namespace").asText()).isEqualTo("Musify");
+        assertThat(directive.at("/Dimensions/0/0").asText()).isEqualTo("method");
+        assertThat(findAll.get("method").asText()).isEqualTo("findAll");
+        assertThat(findAll.get("musify.repository.calls.count").asDouble()).isEqualTo(2);
+        assertThat(findAll.get("musify.repository.calls.sum").asDouble()).isEqualTo(60);
+        assertThat(findAll.get("musify.repository.calls.max").asDouble()).isEqualTo(40);
+        assertThat(findAll.get("musify.repository.calls.p99").asDouble()).isBetween(39.0, 42.0);
+        assertThat(directive.get("Metrics").findValuesAsText("Unit")).contains("Milliseconds", "Count");
+
+        // the returned counter saw nothing and the JVM meter isn't included, so only one more line
+        JsonNode scanned = new ObjectMapper().readTree(lines.stream()
+                .filter(line -> line.contains("scanned")).findFirst().orElseThrow());
+        assertThat(scanned.get("musify.dynamodb.scan.items").asDouble()).isEqualTo(25);
+    }
+
+    @Test
+    void perInvocationFlushPublishesWhatWasRecordedSinceTheLastFlush() throws Exception {
+        EmfMeterRegistry perInvocation = new EmfMeterRegistry(key -> Map.of(
+                "musify.metrics.emf.enabled", "true",
+                "musify.metrics.emf.per-invocation", "true").get(key), clock, lines::add);
+        ObjectMapper mapper = new ObjectMapper();
+
+        perInvocation.counter("musify.stream.requests").increment(3);
+        perInvocation.flush();
+        // frozen for longer than a step between invocations
+        clock.add(Duration.ofHours(1));
+        perInvocation.counter("musify.stream.requests").increment(2);
+        perInvocation.flush();
+        perInvocation.flush();
+
+        assertThat(lines).hasSize(2);
+        assertThat(mapper.readTree(lines.get(0)).get("musify.stream.requests").asDouble()).isEqualTo(3);
+        assertThat(mapper.readTree(lines.get(1)).get("musify.stream.requests").asDouble()).isEqualTo(2);
+        assertThat(mapper.readTree(lines.get(1)).get("_aws").get("Timestamp").asLong())
+                .isEqualTo(clock.wallTime());
+
+        perInvocation.counter("musify.stream.requests").increment();
+        perInvocation.close();
+        assertThat(lines).hasSize(3);
+        assertThat(mapper.readTree(lines.get(2)).get("musify.stream.requests").asDouble()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,25 @@
+package com.musify.api.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackKeyTest {
+
+    @Test
+    void splitsAtTheLastSlashSoArtistsMayContainOne() {
+        assertThat(TrackKey.fromS3Key("tracks/AC/DC/Thunderstruck.mp3"))
+                .isEqualTo(new TrackKey("AC/DC", "Thunderstruck"));
+        assertThat(TrackKey.fromS3Key(new TrackKey("AC/DC", "Thunderstruck").toS3Key()))
+                .isEqualTo(new TrackKey("AC/DC", "Thunderstruck"));
+        assertThat(TrackKey.fromS3Key("tracks/Adele/Hello.mp3")).isEqualTo(new TrackKey("Adele", "Hello"));
+    }
+
+    @Test
+    void hlsSegmentsAndOtherKeysAreNotTrackFiles() {
+        assertThat(TrackKey.isTrackFile("tracks/AC/DC/Thunderstruck.hls/00000.mp3")).isFalse();
+        assertThat(TrackKey.isTrackFile("tracks/Adele.mp3")).isFalse();
+        assertThat(TrackKey.isTrackFile("other/Adele/Hello.mp3")).isFalse();
+        assertThat(TrackKey.fromS3Key("tracks/Adele/Hello.hls/index.m3u8")).isNull();
+    }
+}
@@ -0,0 +1,96 @@
+package com.musify.api.repository;
+
+import com.musify.api.limit.Bulkheads;
+import com.musify.api.model.MusicTrack;
+import com.musify.api.search.AutocompleteIndex;
+import com.musify.api.search.TrackSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MusicTrackRepositoryTest {
+
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+    private final Set<String> written = ConcurrentHashMap.newKeySet();
+    private MusicTrackRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        // "Song 3" is left unprocessed twice, "Song 7" every time
+        DynamoDbClient dynamoDbClient = new DynamoDbClient() {
+            @Override
+            public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+                List<WriteRequest> unprocessed = new ArrayList<>();
+                for (WriteRequest write : request.requestItems().get("MusicTrack")) {
+                    String song = write.putRequest().item().get("songName").s();
+                    int attempt = attempts.merge(song, 1, Integer::sum);
+                    if (song.equals("Song 7") || song.equals("Song 3") && attempt <= 2) {
+                        unprocessed.add(write);
+                    } else {
+                        written.add(song);
+                    }
+                }
+                return BatchWriteItemResponse.builder()
+                        .unprocessedItems(unprocessed.isEmpty() ? Map.of() : Map.of("MusicTrack", unprocessed))
+                        .build();
+            }
+
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Bulkheads bulkheads = new Bulkheads(meterRegistry);
+        ReflectionTestUtils.setField(bulkheads, "enabled", false);
+        ReflectionTestUtils.setField(bulkheads, "tolerance", 1.5);
+        bulkheads.init();
+        repository = new MusicTrackRepository(DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDbClient).build(),
+                new TrackSearchIndex(), new AutocompleteIndex(),
+                new StaticListableBeanFactory().getBeanProvider(DynamoDbEnhancedAsyncClient.class), meterRegistry,
+                bulkheads, dynamoDbClient);
+        ReflectionTestUtils.setField(repository, "lookupCacheMaxSize", 10);
+        ReflectionTestUtils.setField(repository, "lookupCacheTtl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(repository, "lookupCacheNegativeTtl", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(repository, "batchWriteConcurrency", 2);
+        ReflectionTestUtils.setField(repository, "batchWriteMaxAttempts", 3);
+        repository.init();
+    }
+
+    @Test
+    void saveAllRetriesUnprocessedItemsUntilTheAttemptsRunOut() {
+        // 30 tracks: one batch of 25 and one of 5
+        List<MusicTrack> tracks = IntStream.range(0, 30)
+                .mapToObj(i -> MusicTrack.builder().artistName("Artist " + i % 3).songName("Song " + i)
+                        .s3Key("tracks/" + i + ".mp3").build())
+                .toList();
+
+        List<MusicTrack> failed = repository.saveAll(tracks);
+
+        assertThat(failed).extracting(MusicTrack::getSongName).containsExactly("Song 7");
+        assertThat(written).hasSize(29).contains("Song 3").doesNotContain("Song 7");
+        assertThat(attempts).containsEntry("Song 3", 3).containsEntry("Song 7", 3).containsEntry("Song 0", 1);
+    }
+}
@@ -0,0 +1,76 @@
+package com.musify.api.repository;
+
+import com.musify.api.dto.PaginatedResponse;
+import com.musify.api.model.MusicTrack;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScanPageFillerTest {
+
+    private static MusicTrack track(String artist, String song) {
+        return MusicTrack.builder().artistName(artist).songName(song).build();
+    }
+
+    private static Page<MusicTrack> page(int scanned, double capacity, String lastArtist, MusicTrack... matches) {
+        Page.Builder<MusicTrack> page = Page.builder(MusicTrack.class)
+                .items(List.of(matches))
+                .scannedCount(scanned)
+                .consumedCapacity(ConsumedCapacity.builder().capacityUnits(capacity).build());
+        if (lastArtist != null) {
+            page.lastEvaluatedKey(Map.of("artistName", AttributeValue.builder().s(lastArtist).build(),
+                    "songName", AttributeValue.builder().s("z").build()));
+        }
+        return page.build();
+    }
+
+    @Test
+    void keepsReadingUntilFullAndResumesAfterTheLastItemReturned() {
+        ScanPageFiller filler = new ScanPageFiller(3, null, 1000, 100, Duration.ofMinutes(1), Clock.systemUTC());
+
+        assertThat(filler.add(page(3, 0.5, "c"))).isTrue();
+        // no match yet: the next request reads more
+        assertThat(filler.pageSize()).isEqualTo(12);
+        assertThat(filler.add(page(12, 1, "n", track("f", "1")))).isTrue();
+        // 1 match in 15 items, 2 more wanted
+        assertThat(filler.pageSize()).isEqualTo(38);
+        assertThat(filler.startKey().get("artistName").s()).isEqualTo("n");
+        assertThat(filler.add(page(38, 2, "x", track("p", "1"), track("q", "1"), track("r", "1")))).isFalse();
+
+        PaginatedResponse response = filler.response();
+        assertThat(response.getItems()).extracting(MusicTrack::getArtistName).containsExactly("f", "p", "q");
+        assertThat(PageTokens.decodeScanKey(response.getNextToken()).get("artistName").s()).isEqualTo("q");
+        assertThat(filler.pages()).isEqualTo(3);
+    }
+
+    @Test
+    void stopsAtTheCapacityBudgetOrTheEndOfTheTable() {
+        ScanPageFiller budgeted = new ScanPageFiller(10, null, 1000, 2, Duration.ofMinutes(1), Clock.systemUTC());
+        assertThat(budgeted.add(page(10, 1.5, "c", track("a", "1")))).isTrue();
+        assertThat(budgeted.add(page(40, 1, "k", track("j", "1")))).isFalse();
+        assertThat(budgeted.budgetSpent()).isTrue();
+        assertThat(budgeted.response().getItems()).hasSize(2);
+        assertThat(PageTokens.decodeScanKey(budgeted.response().getNextToken()).get("artistName").s())
+                .isEqualTo("k");
+
+        ScanPageFiller lastPage = new ScanPageFiller(10, null, 1000, 100, Duration.ofMinutes(1), Clock.systemUTC());
+        assertThat(lastPage.add(page(4, 0.5, null, track("a", "1")))).isFalse();
+        assertThat(lastPage.response().getNextToken()).isNull();
+    }
+
+    @Test
+    void doesNotSizeItsBufferByAnUncheckedLimit() {
+        ScanPageFiller filler = new ScanPageFiller(Integer.MAX_VALUE, null, 1000, 100, Duration.ofMinutes(1),
+                Clock.systemUTC());
+        assertThat(filler.add(page(3, 0.5, "c", track("a", "1")))).isTrue();
+        assertThat(filler.response().getItems()).hasSize(1);
+    }
+}
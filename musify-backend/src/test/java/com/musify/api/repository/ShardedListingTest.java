@@ -0,0 +1,99 @@
+package com.musify.api.repository;
+
+import com.musify.api.dto.PaginatedResponse;
+import com.musify.api.model.MusicTrack;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedListingTest {
+
+    private final List<MusicTrack> catalog = new ArrayList<>();
+
+    ShardedListingTest() {
+        for (int i = 0; i < 200; i++) {
+            // few distinct durations, so most of the order comes from the table key
+            catalog.add(MusicTrack.builder().artistName("Artist " + i % 13).songName("Song " + i)
+                    .duration(120 + i % 7).build());
+        }
+    }
+
+    // a Query of one shard's partition in the byDuration index; maxItems stands in for the 1 MB cap
+    private Page<MusicTrack> query(int shard, Map<String, AttributeValue> startKey, boolean ascending, int limit,
+                                   int maxItems) {
+        Comparator<MusicTrack> order = Comparator.comparing(MusicTrack::getDuration)
+                .thenComparing(MusicTrack::getArtistName).thenComparing(MusicTrack::getSongName);
+        if (!ascending) {
+            order = order.reversed();
+        }
+        MusicTrack after = startKey == null ? null : MusicTrack.builder()
+                .duration(Integer.parseInt(startKey.get("duration").n()))
+                .artistName(startKey.get("artistName").s()).songName(startKey.get("songName").s()).build();
+        assertThat(startKey == null || startKey.get("listingKey").s().equals(MusicTrack.listingKey(shard))).isTrue();
+        Comparator<MusicTrack> finalOrder = order;
+        List<MusicTrack> rest = catalog.stream()
+                .filter(track -> MusicTrack.listingKey(track.getArtistName(), track.getSongName())
+                        .equals(MusicTrack.listingKey(shard)))
+                .filter(track -> after == null || finalOrder.compare(track, after) > 0)
+                .sorted(order)
+                .toList();
+        List<MusicTrack> items = rest.subList(0, Math.min(rest.size(), Math.min(limit, maxItems)));
+        boolean more = items.size() < rest.size() || items.size() == limit;
+        Page.Builder<MusicTrack> page = Page.builder(MusicTrack.class).items(items);
+        if (more) {
+            page.lastEvaluatedKey(Map.of("listingKey", AttributeValue.fromS(MusicTrack.listingKey(shard))));
+        }
+        return page.build();
+    }
+
+    private List<MusicTrack> readAll(boolean ascending, int limit, int maxItems) {
+        List<MusicTrack> read = new ArrayList<>();
+        String token = null;
+        do {
+            ShardedListing listing = new ShardedListing(TrackOrder.DURATION, ascending, limit, token);
+            List<Page<MusicTrack>> pages = new ArrayList<>();
+            for (int shard : listing.shards()) {
+                pages.add(query(shard, listing.startKey(shard), ascending, limit, maxItems));
+            }
+            PaginatedResponse page = listing.merge(pages);
+            assertThat(page.getItems().size()).isLessThanOrEqualTo(limit);
+            read.addAll(page.getItems());
+            token = page.getNextToken();
+        } while (token != null);
+        return read;
+    }
+
+    @Test
+    void pagesThroughAllShardsInIndexOrder() {
+        List<MusicTrack> expected = catalog.stream().sorted(Comparator.comparing(MusicTrack::getDuration)
+                .thenComparing(MusicTrack::getArtistName).thenComparing(MusicTrack::getSongName)).toList();
+
+        assertThat(readAll(true, 25, Integer.MAX_VALUE)).containsExactlyElementsOf(expected);
+        assertThat(readAll(false, 30, Integer.MAX_VALUE)).containsExactlyElementsOf(expected.reversed());
+        assertThat(readAll(true, 1, Integer.MAX_VALUE)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void doesNotMergePastAShardPageThatWasCutShort() {
+        List<MusicTrack> expected = catalog.stream().sorted(Comparator.comparing(MusicTrack::getDuration)
+                .thenComparing(MusicTrack::getArtistName).thenComparing(MusicTrack::getSongName)).toList();
+
+        assertThat(readAll(true, 50, 7)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void restartsFromTheTopOnATokenForAnotherShardCount() {
+        ShardedListing listing = new ShardedListing(TrackOrder.DURATION, true, 10,
+                PageTokens.encodeListingCursor(List.of("", "")));
+
+        assertThat(listing.shards()).hasSize(MusicTrack.LISTING_SHARDS);
+        assertThat(listing.startKey(0)).isNull();
+    }
+}
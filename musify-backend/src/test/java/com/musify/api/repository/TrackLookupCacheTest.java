@@ -0,0 +1,68 @@
+package com.musify.api.repository;
+
+import com.musify.api.MutableClock;
+import com.musify.api.model.MusicTrack;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackLookupCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final TrackLookupCache cache = new TrackLookupCache(2, Duration.ofMinutes(5), Duration.ofSeconds(30),
+            clock);
+
+    private MusicTrack load(String songName) {
+        loads.incrementAndGet();
+        return MusicTrack.builder().artistName("Adele").songName(songName).build();
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedTrackAndExpiresAfterTheTtl() {
+        MusicTrack hello = cache.get("Adele", "Hello", () -> load("Hello"));
+        cache.get("Adele", "Skyfall", () -> load("Skyfall"));
+        assertThat(cache.get("Adele", "Hello", () -> load("Hello"))).isSameAs(hello);
+        cache.get("Adele", "Rumour Has It", () -> load("Rumour Has It"));
+        assertThat(cache.get(" Adele", "Hello ", () -> load("Hello"))).isSameAs(hello);
+        assertThat(loads).hasValue(3);
+
+        cache.get("Adele", "Skyfall", () -> load("Skyfall"));
+        assertThat(loads).hasValue(4);
+
+        clock.advance(Duration.ofMinutes(5));
+        assertThat(cache.get("Adele", "Skyfall", () -> load("Skyfall"))).isNotNull();
+        assertThat(loads).hasValue(5);
+    }
+
+    @Test
+    void remembersMissesForTheShorterNegativeTtl() {
+        assertThat(cache.get("Adele", "Unreleased", () -> null)).isNull();
+        clock.advance(Duration.ofSeconds(29));
+        assertThat(cache.get("Adele", "Unreleased", () -> load("Unreleased"))).isNull();
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(cache.get("Adele", "Unreleased", () -> load("Unreleased"))).isNotNull();
+        TrackLookupCache.Stats stats = cache.stats();
+        assertThat(stats.negativeHits()).isEqualTo(1);
+        assertThat(stats.misses()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotStoreALoadThatRacedAnInvalidation() {
+        CompletableFuture<MusicTrack> stale = new CompletableFuture<>();
+        CompletableFuture<MusicTrack> pending = cache.getAsync("Adele", "Hello", () -> stale);
+        cache.invalidate("Adele", "Hello");
+        stale.complete(load("Hello"));
+
+        assertThat(pending.join()).isNotNull();
+        MusicTrack fresh = cache.get("Adele", "Hello", () -> load("Hello"));
+        assertThat(fresh).isNotSameAs(pending.join());
+        assertThat(cache.get("Adele", "Hello", () -> load("Hello"))).isSameAs(fresh);
+        assertThat(loads).hasValue(2);
+    }
+}
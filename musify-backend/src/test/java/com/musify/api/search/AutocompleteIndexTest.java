@@ -0,0 +1,84 @@
+package com.musify.api.search;
+
+import com.musify.api.dto.Completion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AutocompleteIndexTest {
+
+    private AutocompleteIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AutocompleteIndex();
+        AutocompleteIndex.Loader loader = new AutocompleteIndex.Loader();
+        loader.add("Adele", "Hello", 50);
+        loader.add("Adele", "Skyfall", 30);
+        loader.add("Lionel Richie", "Hello", 20);
+        loader.add("Beyoncé", "HALO", 40);
+        loader.add("AC/DC", "Highway to Hell", 10);
+        index.replaceAll(loader);
+    }
+
+    @Test
+    void completesArtistsAndSongsMostPlayedFirst() {
+        assertThat(index.complete("h", 10)).containsExactly(
+                new Completion("Adele", "Hello", 50),
+                new Completion("Beyoncé", "HALO", 40),
+                new Completion("Lionel Richie", "Hello", 20),
+                new Completion("AC/DC", "Highway to Hell", 10));
+        assertThat(index.complete("A", 10)).containsExactly(
+                new Completion("Adele", null, 80),
+                new Completion("AC/DC", null, 10));
+        assertThat(index.complete("BEYONCÉ", 10)).containsExactly(new Completion("Beyoncé", null, 40));
+        assertThat(index.complete("hello", 1)).containsExactly(new Completion("Adele", "Hello", 50));
+        assertThat(index.complete("hellos", 10)).isEmpty();
+    }
+
+    @Test
+    void writesChangeWeightsAndNamesRightAway() {
+        index.addPlays("Lionel Richie", "Hello", 100);
+        index.remove("adele", "hello");
+        index.put("Halsey", "Without Me", 45);
+        index.put("Adele", "Hometown Glory", 5);
+
+        assertThat(index.complete("h", 10)).containsExactly(
+                new Completion("Lionel Richie", "Hello", 120),
+                new Completion("Halsey", null, 45),
+                new Completion("Beyoncé", "HALO", 40),
+                new Completion("AC/DC", "Highway to Hell", 10),
+                new Completion("Adele", "Hometown Glory", 5));
+        assertThat(index.complete("ad", 10)).containsExactly(new Completion("Adele", null, 35));
+    }
+
+    @Test
+    void keepsAnswersThroughRebuilds() {
+        Random random = new Random(42);
+        List<Completion> songs = new ArrayList<>();
+        String[] words = {"Love", "night", "Über", "Fire", "fireworks", "Ω", "lo", "Night Train"};
+        for (int i = 0; i < 3000; i++) {
+            String song = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + i;
+            Completion completion = new Completion("Artist " + (i % 7), song, random.nextInt(1000));
+            songs.add(completion);
+            // the first 1024 wait as pending names, then everything is rebuilt
+            index.put(completion.artistName(), completion.songName(), completion.weight());
+        }
+        for (String prefix : List.of("l", "lo", "LOVE ", "night t", "ü", "fire", "Ω", "x")) {
+            List<Completion> expected = songs.stream()
+                    .filter(song -> song.songName().toLowerCase().startsWith(prefix.toLowerCase()))
+                    .sorted(Comparator.comparingLong(Completion::weight).reversed()
+                            .thenComparing(Completion::songName, String.CASE_INSENSITIVE_ORDER))
+                    .limit(10)
+                    .toList();
+            assertThat(index.complete(prefix, 10)).as(prefix).containsExactlyElementsOf(expected);
+        }
+        assertThat(index.stats().pending()).isLessThan(3000);
+    }
+}
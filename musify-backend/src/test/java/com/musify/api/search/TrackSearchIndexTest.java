@@ -0,0 +1,101 @@
+package com.musify.api.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackSearchIndexTest {
+
+    private TrackSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrackSearchIndex();
+        index.replaceAll(List.of(
+                new String[]{"Adele", "Hello", null, null},
+                new String[]{"Lionel Richie", "Hello", null, null},
+                new String[]{"Coldplay", "Yellow", null, null},
+                new String[]{"Othello Band", "Intro", null, null}));
+    }
+
+    @Test
+    void matchesSubstringsLikeTheScanFilter() {
+        List<TrackSearchIndex.Hit> hits = index.search("ELLO", null, 10);
+
+        assertThat(hits).extracting(TrackSearchIndex.Hit::artistName)
+                .containsExactly("Adele", "Coldplay", "Lionel Richie", "Othello Band");
+        assertThat(index.search("xyz", null, 10)).isEmpty();
+        assertThat(index.search("co", null, 10)).extracting(TrackSearchIndex.Hit::songName)
+                .containsExactly("Yellow");
+    }
+
+    @Test
+    void ranksExactAndPrefixMatchesFirst() {
+        List<TrackSearchIndex.Hit> hits = index.search("hello", null, 10);
+
+        assertThat(hits).extracting(TrackSearchIndex.Hit::score)
+                .containsExactly(TrackSearchIndex.SCORE_EXACT, TrackSearchIndex.SCORE_EXACT,
+                        TrackSearchIndex.SCORE_CONTAINS);
+        assertThat(index.search("yel", null, 10).get(0).score()).isEqualTo(TrackSearchIndex.SCORE_PREFIX);
+        assertThat(index.search("band", null, 10).get(0).score()).isEqualTo(TrackSearchIndex.SCORE_WORD_PREFIX);
+    }
+
+    @Test
+    void cursorResumesAfterLastHitEvenWhenIndexChanges() {
+        List<TrackSearchIndex.Hit> first = index.search("ello", null, 2);
+        assertThat(first).hasSize(3);
+
+        index.put("Aaron", "Hello Again", null, null);
+        index.put("Zed", "Hello Again", null, null);
+        index.remove("Coldplay", "Yellow");
+
+        List<TrackSearchIndex.Hit> second = index.search("ello", first.get(1), 2);
+        assertThat(second).extracting(TrackSearchIndex.Hit::artistName)
+                .containsExactly("Lionel Richie", "Othello Band", "Zed");
+    }
+
+    @Test
+    void removeAndUpdateKeepPostingsConsistent() {
+        index.remove("Adele", "Hello");
+        index.put("Adele", "Hello", "adele", "hello");
+        index.put("Adele", "Hello", "adele", "hello");
+
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.search("adel", null, 10)).hasSize(1);
+    }
+
+    @Test
+    void servesTheOldIndexDuringARebuildAndKeepsWritesMadeMeanwhile() {
+        TrackSearchIndex.Loader loader = index.startRebuild();
+        loader.add("Adele", "Hello", null, null);
+        loader.add("Coldplay", "Yellow", null, null);
+        index.put("Muse", "Hysteria", null, null);
+        index.remove("Coldplay", "Yellow");
+
+        assertThat(index.search("ello", null, 10)).hasSize(3);
+        index.replaceAll(loader);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.search("ello", null, 10)).extracting(TrackSearchIndex.Hit::artistName)
+                .containsExactly("Adele");
+        assertThat(index.search("hyst", null, 10)).extracting(TrackSearchIndex.Hit::artistName)
+                .containsExactly("Muse");
+    }
+
+    @Test
+    void lowersLimitsAboveTheMaximum() {
+        assertThat(index.search("ello", null, Integer.MAX_VALUE)).hasSize(4);
+
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < TrackSearchIndex.MAX_LIMIT + 500; i++) {
+            rows.add(new String[]{"Artist", "Song " + i, null, null});
+        }
+        index.replaceAll(rows);
+        // the extra hit says more results exist
+        assertThat(index.search("song", null, Integer.MAX_VALUE)).hasSize(TrackSearchIndex.MAX_LIMIT + 1);
+    }
+}
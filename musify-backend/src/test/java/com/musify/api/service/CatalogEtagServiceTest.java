@@ -0,0 +1,51 @@
+package com.musify.api.service;
+
+import com.musify.api.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogEtagServiceTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final long[] catalogVersion = {7};
+    private CatalogEtagService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CatalogEtagService(() -> catalogVersion[0], clock);
+        ReflectionTestUtils.setField(service, "etagWindow", Duration.ofMinutes(1));
+    }
+
+    @Test
+    void tagChangesWithTheRequestTheCatalogVersionAndTheWindow() {
+        String etag = service.etag("list", 20, null);
+        assertThat(etag).matches("\"[0-9a-f]{32}\"");
+
+        clock.advance(Duration.ofSeconds(59));
+        assertThat(service.etag("list", 20, null)).isEqualTo(etag);
+        assertThat(service.etag("list", 21, null)).isNotEqualTo(etag);
+
+        catalogVersion[0]++;
+        String afterWrite = service.etag("list", 20, null);
+        assertThat(afterWrite).isNotEqualTo(etag);
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(service.etag("list", 20, null)).isNotEqualTo(afterWrite);
+    }
+
+    @Test
+    void ifNoneMatchTakesListsWeakTagsAndAStar() {
+        String etag = service.etag("list", 20, null);
+
+        assertThat(service.matches(null, etag)).isFalse();
+        assertThat(service.matches(etag, etag)).isTrue();
+        assertThat(service.matches("\"other\", W/" + etag, etag)).isTrue();
+        assertThat(service.matches("*", etag)).isTrue();
+        assertThat(service.matches("\"other\", \"another\"", etag)).isFalse();
+    }
+}
@@ -0,0 +1,94 @@
+package com.musify.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.musify.api.dto.BulkIngestItemResult;
+import com.musify.api.dto.BulkIngestResponse;
+import com.musify.api.model.MusicTrack;
+import com.musify.api.repository.MusicTrackRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MusicTrackIngestServiceTest {
+
+    private final Set<String> stored = Set.of("Adele|Hello");
+    private final List<List<String>> writes = new ArrayList<>();
+    private MusicTrackIngestService service;
+
+    @BeforeEach
+    void setUp() {
+        MusicTrackRepository repository = new MusicTrackRepository(null, null, null, null, new SimpleMeterRegistry(),
+                null, null) {
+            @Override
+            public List<MusicTrack> findExisting(List<MusicTrack> musicTracks) {
+                return musicTracks.stream()
+                        .filter(track -> stored.contains(track.getArtistName() + "|" + track.getSongName()))
+                        .toList();
+            }
+
+            @Override
+            public List<MusicTrack> saveAll(List<MusicTrack> musicTracks) {
+                writes.add(musicTracks.stream().map(MusicTrack::getSongName).toList());
+                // BatchWriteItem left this one unprocessed on every attempt
+                return musicTracks.stream().filter(track -> track.getSongName().equals("Unlucky")).toList();
+            }
+        };
+        service = new MusicTrackIngestService(repository, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+    }
+
+    @Test
+    void reportsEachRecordAndWritesOnlyNewTracks() throws IOException {
+        BulkIngestResponse response = ingest("""
+                {"artistName":"Adele","songName":"Hello","s3Key":"tracks/Adele/Hello.mp3"}
+                {"artistName":"Adele","songName":"Skyfall","s3Key":"tracks/Adele/Skyfall.mp3","duration":286}
+                {"artistName":"Adele","songName":"","s3Key":"tracks/Adele/.mp3"}
+                {"artistName":"Adele","songName":"Skyfall","s3Key":"tracks/Adele/Skyfall.mp3"}
+                {"artistName":"Adele","songName":"Unlucky","s3Key":"tracks/Adele/Unlucky.mp3"}
+                {"artistName":"Adele","songName":"Rumour Has It","s3Key":"tracks/Adele/Rumour Has It.mp3"}
+                """);
+
+        assertThat(response.getResults()).extracting(BulkIngestItemResult::index, BulkIngestItemResult::status)
+                .containsExactly(
+                        tuple(0, BulkIngestItemResult.Status.DUPLICATE),
+                        tuple(1, BulkIngestItemResult.Status.CREATED),
+                        tuple(2, BulkIngestItemResult.Status.INVALID),
+                        tuple(3, BulkIngestItemResult.Status.INVALID),
+                        tuple(4, BulkIngestItemResult.Status.FAILED),
+                        tuple(5, BulkIngestItemResult.Status.CREATED));
+        assertThat(response.getResults().get(3).messages())
+                .containsExactly("Duplicate artist and song name in this request");
+        assertThat(writes).containsExactly(List.of("Skyfall"), List.of("Unlucky", "Rumour Has It"));
+        assertThat(List.of(response.getReceived(), response.getCreated(), response.getDuplicate(),
+                response.getInvalid(), response.getFailed())).containsExactly(6, 2, 1, 2, 1);
+    }
+
+    @Test
+    void malformedInputStopsReadingButKeepsWhatCameBefore() throws IOException {
+        BulkIngestResponse response = ingest("""
+                [{"artistName":"Adele","songName":"Skyfall","s3Key":"tracks/Adele/Skyfall.mp3"},
+                 {"artistName":"Adele","songName":
+                """);
+
+        assertThat(response.getResults()).extracting(BulkIngestItemResult::status)
+                .containsExactly(BulkIngestItemResult.Status.CREATED, BulkIngestItemResult.Status.INVALID);
+        assertThat(writes).containsExactly(List.of("Skyfall"));
+    }
+
+    private BulkIngestResponse ingest(String body) throws IOException {
+        return service.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,60 @@
+package com.musify.api.service;
+
+import com.musify.api.repository.MusicTrackRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlayCountServiceTest {
+
+    private static final String KEY = "tracks/Adele/Hello.mp3";
+
+    private final Map<String, Long> written = new ConcurrentHashMap<>();
+    private PlayCountService service;
+
+    @BeforeEach
+    void setUp() {
+        MusicTrackRepository repository = new MusicTrackRepository(null, null, null, null, new SimpleMeterRegistry(),
+                null, null) {
+            @Override
+            public boolean addPlayCount(String artistName, String songName, long plays) {
+                written.merge(artistName + "/" + songName, plays, Long::sum);
+                return true;
+            }
+        };
+        service = new PlayCountService(repository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "maxKeys", 100);
+        ReflectionTestUtils.setField(service, "flushConcurrency", 2);
+        ReflectionTestUtils.setField(service, "flushInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "flushThreshold", 3L);
+        service.init();
+    }
+
+    @Test
+    void requestsOnlyCountUntilTheThresholdIsReached() {
+        service.record(KEY);
+        service.record(KEY);
+        assertThat(written).isEmpty();
+
+        service.record(KEY);
+        assertThat(written).containsExactly(Map.entry("Adele/Hello", 3L));
+    }
+
+    @Test
+    void requestFlushesWhenTheLastFlushIsOverdue() throws InterruptedException {
+        service.record(KEY);
+        assertThat(written).isEmpty();
+
+        ReflectionTestUtils.setField(service, "flushInterval", Duration.ofMillis(20));
+        Thread.sleep(30);
+        service.record(KEY);
+        assertThat(written).containsExactly(Map.entry("Adele/Hello", 2L));
+    }
+}
@@ -0,0 +1,66 @@
+package com.musify.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlayCounterTest {
+
+    @Test
+    void drainHandsOutEveryPlayOnceWhileRecordingContinues() throws Exception {
+        PlayCounter counter = new PlayCounter(100);
+        LongAdder drained = new LongAdder();
+        int threads = 4;
+        int playsPerThread = 100_000;
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> players = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                players.add(executor.submit(() -> {
+                    for (int i = 0; i < playsPerThread; i++) {
+                        counter.record("tracks/A/Song " + (i % 3) + ".mp3");
+                    }
+                }));
+            }
+            while (!players.stream().allMatch(Future::isDone)) {
+                counter.drain().values().forEach(drained::add);
+                Thread.sleep(10);
+            }
+            for (Future<?> player : players) {
+                player.get();
+            }
+        }
+        counter.drain().values().forEach(drained::add);
+
+        assertThat(drained.sum()).isEqualTo((long) threads * playsPerThread);
+        assertThat(counter.pending()).isZero();
+    }
+
+    @Test
+    void idleKeysAreRemovedAfterTwoDrainsAndNewKeysDroppedWhenFull() {
+        PlayCounter counter = new PlayCounter(2);
+        assertThat(counter.record("a")).isTrue();
+        assertThat(counter.record("b")).isTrue();
+        assertThat(counter.record("c")).isFalse();
+        assertThat(counter.record("a")).isTrue();
+
+        assertThat(counter.drain()).isEqualTo(Map.of("a", 2L, "b", 1L));
+        assertThat(counter.drain()).isEmpty();
+        assertThat(counter.stats().keys()).isEqualTo(2);
+        // idle for a second drain: the counters go, making room again
+        assertThat(counter.drain()).isEmpty();
+        assertThat(counter.stats().keys()).isZero();
+        assertThat(counter.record("c")).isTrue();
+
+        counter.restore("a", 5);
+        assertThat(counter.drain()).isEqualTo(Map.of("a", 5L, "c", 1L));
+        assertThat(counter.stats().dropped()).isEqualTo(1);
+    }
+}
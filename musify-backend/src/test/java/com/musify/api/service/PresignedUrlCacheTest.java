@@ -0,0 +1,42 @@
+package com.musify.api.service;
+
+import com.musify.api.MutableClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PresignedUrlCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final AtomicInteger signed = new AtomicInteger();
+    private final Function<String, String> signer = key -> key + "?v=" + signed.incrementAndGet();
+
+    @Test
+    void evictsTheLeastRecentlyUsedUrl() {
+        PresignedUrlCache cache = new PresignedUrlCache(2, Duration.ofMinutes(15), clock);
+        String a = cache.get("a", signer);
+        cache.get("b", signer);
+        assertThat(cache.get("a", signer)).isEqualTo(a);
+        cache.get("c", signer);
+
+        assertThat(cache.get("a", signer)).isEqualTo(a);
+        assertThat(cache.get("b", signer)).isEqualTo("b?v=4");
+        assertThat(cache.stats()).isEqualTo(new PresignedUrlCache.Stats(2, 4, 2, 2));
+    }
+
+    @Test
+    void signsAgainOnceTheUrlIsTooOld() {
+        PresignedUrlCache cache = new PresignedUrlCache(10, Duration.ofMinutes(15), clock);
+        cache.get("a", signer);
+        clock.advance(Duration.ofMinutes(14));
+        assertThat(cache.get("a", signer)).isEqualTo("a?v=1");
+
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(cache.get("a", signer)).isEqualTo("a?v=2");
+        assertThat(cache.stats().size()).isEqualTo(1);
+    }
+}
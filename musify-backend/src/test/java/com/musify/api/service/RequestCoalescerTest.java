@@ -0,0 +1,61 @@
+package com.musify.api.service;
+
+import com.musify.api.MutableClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestCoalescerTest {
+
+    @Test
+    void sharesCallsInFlightAndRecentResults() {
+        MutableClock clock = new MutableClock();
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>(Duration.ofSeconds(1), clock);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = coalescer.get("a", () -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> second = coalescer.get("a", () -> CompletableFuture.completedFuture("other"));
+        CompletableFuture<String> otherKey = coalescer.get("b", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("b");
+        });
+        pending.complete("page");
+
+        assertThat(first.join()).isEqualTo("page");
+        assertThat(second.join()).isEqualTo("page");
+        assertThat(otherKey.join()).isEqualTo("b");
+        assertThat(coalescer.get("a", () -> CompletableFuture.completedFuture("other")).join()).isEqualTo("page");
+
+        clock.advance(Duration.ofSeconds(2));
+        assertThat(coalescer.get("a", () -> CompletableFuture.completedFuture("fresh")).join()).isEqualTo("fresh");
+        assertThat(calls).hasValue(2);
+        RequestCoalescer.Stats stats = coalescer.stats();
+        assertThat(stats.calls()).isEqualTo(3);
+        assertThat(stats.joined()).isEqualTo(1);
+        assertThat(stats.reused()).isEqualTo(1);
+    }
+
+    @Test
+    void failuresReachEveryWaiterAndAreNotKept() {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>(Duration.ofMinutes(1), Clock.systemUTC());
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = coalescer.get("a", () -> pending);
+        CompletableFuture<String> second = coalescer.get("a", () -> CompletableFuture.completedFuture("other"));
+        pending.completeExceptionally(new IllegalStateException("throttled"));
+
+        assertThatThrownBy(first::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(second::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(coalescer.get("a", () -> CompletableFuture.completedFuture("retried")).join()).isEqualTo("retried");
+    }
+}
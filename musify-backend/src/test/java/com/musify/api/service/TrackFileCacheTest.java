@@ -0,0 +1,118 @@
+package com.musify.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackFileCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private static TrackFileCache.Fetcher bytes(int size, AtomicInteger fetches) {
+        return (key, target) -> {
+            fetches.incrementAndGet();
+            Files.write(target, new byte[size]);
+        };
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedFilesBySize() throws Exception {
+        TrackFileCache cache = TrackFileCache.create(dir, 250);
+        AtomicInteger fetches = new AtomicInteger();
+
+        TrackFileCache.CachedFile a = cache.get("a.mp3", bytes(100, fetches));
+        cache.get("b.mp3", bytes(100, fetches));
+        cache.get("a.mp3", bytes(100, fetches));
+        cache.get("c.mp3", bytes(100, fetches));
+
+        assertThat(fetches).hasValue(3);
+        assertThat(Files.exists(a.path())).isTrue();
+        TrackFileCache.Stats stats = cache.stats();
+        assertThat(stats.files()).isEqualTo(2);
+        assertThat(stats.cachedBytes()).isEqualTo(200);
+        assertThat(stats.evictions()).isEqualTo(1);
+        assertThat(stats.hits()).isEqualTo(1);
+
+        cache.get("b.mp3", bytes(100, fetches));
+        assertThat(fetches).hasValue(4);
+    }
+
+    @Test
+    void concurrentMissesShareOneFetch() throws Exception {
+        TrackFileCache cache = TrackFileCache.create(dir, 1_000);
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        TrackFileCache.Fetcher slow = (key, target) -> {
+            fetches.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Files.write(target, new byte[10]);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<TrackFileCache.CachedFile>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> cache.get("hot.mp3", slow)));
+        }
+        while (cache.stats().coalesced() + fetches.get() < 4) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        for (Future<TrackFileCache.CachedFile> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS).length()).isEqualTo(10);
+        }
+        executor.shutdown();
+
+        assertThat(fetches).hasValue(1);
+        assertThat(cache.stats().coalesced()).isEqualTo(3);
+    }
+
+    @Test
+    void openFilesSurviveEvictionAndMissingFilesAreFetchedAgain() throws Exception {
+        TrackFileCache cache = TrackFileCache.create(dir, 150);
+        AtomicInteger fetches = new AtomicInteger();
+
+        try (TrackFileCache.OpenFile a = cache.open("a.mp3", bytes(100, fetches))) {
+            cache.open("b.mp3", bytes(100, fetches)).close();
+            assertThat(cache.stats().evictions()).isEqualTo(1);
+            assertThat(a.channel().read(ByteBuffer.allocate(200), 0)).isEqualTo(100);
+        }
+
+        Files.delete(cache.get("b.mp3", bytes(100, fetches)).path());
+        try (TrackFileCache.OpenFile b = cache.open("b.mp3", bytes(100, fetches))) {
+            assertThat(b.length()).isEqualTo(100);
+        }
+        assertThat(fetches).hasValue(3);
+    }
+
+    @Test
+    void picksUpFilesFromAnEarlierRun() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        TrackFileCache.create(dir, 1_000).get("a.mp3", bytes(10, fetches));
+        Files.write(dir.resolve("leftover.part"), new byte[5]);
+
+        TrackFileCache restarted = TrackFileCache.create(dir, 1_000);
+        restarted.get("a.mp3", bytes(10, fetches));
+
+        assertThat(fetches).hasValue(1);
+        assertThat(restarted.stats().hits()).isEqualTo(1);
+        assertThat(Files.exists(dir.resolve("leftover.part"))).isFalse();
+    }
+}
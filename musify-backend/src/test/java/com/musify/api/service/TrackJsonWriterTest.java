@@ -0,0 +1,70 @@
+package com.musify.api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.musify.api.dto.PaginatedResponse;
+import com.musify.api.model.MusicTrack;
+import com.musify.api.model.TrackField;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrackJsonWriterTest {
+
+    private final TrackJsonWriter writer = new TrackJsonWriter(new ObjectMapper());
+
+    private final MusicTrack hello = MusicTrack.builder()
+            .artistName("Adele").songName("Hello").s3Key("tracks/Adele/Hello.mp3")
+            .duration(295).uploadedAt(1_700_000_000_000L).playCount(12L)
+            .build();
+    // never played or measured, so most fields are null
+    private final MusicTrack untitled = MusicTrack.builder()
+            .artistName("Beyoncé").songName("\"Untitled\"").streamUrl("https://example.com/u?a=1&b=2")
+            .build();
+
+    @Test
+    void writesOnlySelectedNonNullFieldsInTheGivenOrder() throws IOException {
+        PaginatedResponse page = new PaginatedResponse(List.of(hello, untitled), "abc");
+
+        assertThat(string(writer.writePage(page, List.of(TrackField.DURATION, TrackField.SONG_NAME), false)))
+                .isEqualTo("{\"items\":[{\"duration\":295,\"songName\":\"Hello\"},"
+                        + "{\"songName\":\"\\\"Untitled\\\"\",\"streamUrl\":\"https://example.com/u?a=1&b=2\"}],"
+                        + "\"nextToken\":\"abc\"}");
+        assertThat(string(writer.writePage(new PaginatedResponse(List.of(hello), null), TrackField.LISTED, false)))
+                .isEqualTo("{\"items\":[{\"artistName\":\"Adele\",\"songName\":\"Hello\","
+                        + "\"s3Key\":\"tracks/Adele/Hello.mp3\",\"duration\":295,\"uploadedAt\":1700000000000,"
+                        + "\"playCount\":12}],\"nextToken\":null}");
+    }
+
+    @Test
+    void gzipAndRowsCarryTheSameJson() throws IOException {
+        PaginatedResponse page = new PaginatedResponse(List.of(hello, untitled), null);
+        byte[] gzipped = writer.writePage(page, TrackField.LISTED, true);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertThat(in.readAllBytes()).isEqualTo(writer.writePage(page, TrackField.LISTED, false));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = writer.createGenerator(out)) {
+            for (MusicTrack track : page.getItems()) {
+                writer.writeTrack(generator, track, List.of(TrackField.ARTIST_NAME));
+                generator.writeRaw('\n');
+            }
+        }
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"artistName":"Adele"}
+                {"artistName":"Beyoncé","streamUrl":"https://example.com/u?a=1&b=2"}
+                """);
+    }
+
+    private static String string(byte[] json) {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,57 @@
+package com.musify.api.service;
+
+import com.musify.api.dto.TrendingTrack;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TrendingServiceTest {
+
+    private TrendingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TrendingService(null, null, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "window", Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "buckets", 12);
+        ReflectionTestUtils.setField(service, "top", 10);
+        ReflectionTestUtils.setField(service, "capacity", 100);
+        ReflectionTestUtils.setField(service, "sketchWidth", 256);
+        ReflectionTestUtils.setField(service, "sketchDepth", 4);
+        ReflectionTestUtils.setField(service, "uploadWeight", 3);
+        ReflectionTestUtils.setField(service, "snapshotEnabled", false);
+        ReflectionTestUtils.setField(service, "snapshotInterval", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(service, "refreshInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(service, "pendingKeys", 100);
+        service.init();
+    }
+
+    @Test
+    void playsAreRankedOnlyOnceARefreshMovesThemIntoTheWindow() {
+        service.recordPlay("tracks/Adele/Hello.mp3");
+        service.recordPlay("tracks/Adele/Hello.mp3");
+        service.recordUpload("tracks/Muse/Hysteria.mp3");
+        service.recordPlay("tracks/Adele/Hello.hls/00000.mp3");
+        assertThat(service.getTrending(10)).isEmpty();
+
+        service.refresh();
+        assertThat(service.getTrending(10)).extracting(TrendingTrack::songName, TrendingTrack::score)
+                .containsExactly(tuple("Hysteria", 3L), tuple("Hello", 2L));
+    }
+
+    @Test
+    void requestRefreshesWhenTheLastRefreshIsOverdue() throws InterruptedException {
+        service.recordPlay("tracks/Adele/Hello.mp3");
+        assertThat(service.getTrending(10)).isEmpty();
+
+        ReflectionTestUtils.setField(service, "refreshInterval", Duration.ofMillis(20));
+        Thread.sleep(30);
+        assertThat(service.getTrending(10)).extracting(TrendingTrack::songName).containsExactly("Hello");
+    }
+}
@@ -0,0 +1,25 @@
+package com.musify.api.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Murmur3Test {
+
+    // sketch cells in snapshots written by other containers depend on these staying the same
+    @Test
+    void matchesTheReferenceImplementation() {
+        assertThat(Murmur3.hash64(new byte[0], 0)).isZero();
+        assertThat(Murmur3.hash64(new byte[0], 1)).isEqualTo(0x4610ABE56EFF5CB5L);
+        assertThat(Murmur3.hash64(bytes("hello"), 0)).isEqualTo(0xCBD8A7B341BD9B02L);
+        assertThat(Murmur3.hash64(bytes("hello"), 1)).isEqualTo(0xA78DDFF5ADAE8D10L);
+        assertThat(Murmur3.hash64(bytes("tracks/Adele/Rolling in the Deep.mp3"), 0)).isEqualTo(0xA2DE95976045D18BL);
+        assertThat(Murmur3.hash64(bytes("tracks/Adele/Rolling in the Deep.mp3"), 1)).isEqualTo(0xAAE125346F47E185L);
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+}
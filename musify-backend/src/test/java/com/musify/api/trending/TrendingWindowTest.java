@@ -0,0 +1,87 @@
+package com.musify.api.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrendingWindowTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    void findsHeavyHittersAmongManyMoreKeysThanItTracks() {
+        TrendingWindow window = new TrendingWindow(Duration.ofHours(1), 12, 50, 1024, 4);
+        Random random = new Random(42);
+        // 10 hot tracks among 100000 played once each, interleaved
+        for (int i = 0; i < 100_000; i++) {
+            window.add("tracks/Long Tail/Song " + i + ".mp3", 1, i % 60 * MINUTE);
+            if (i % 10 == 0) {
+                int hot = random.nextInt(10);
+                window.add("tracks/Hot/Song " + hot + ".mp3", 1 + hot, i % 60 * MINUTE);
+            }
+        }
+
+        List<TrendingSummary.Entry> top = window.summary(59 * MINUTE).top(10);
+        assertThat(top).extracting(TrendingSummary.Entry::key).allMatch(key -> key.startsWith("tracks/Hot/"));
+        assertThat(top.get(0).key()).isEqualTo("tracks/Hot/Song 9.mp3");
+    }
+
+    @Test
+    void oldBucketsLeaveTheWindow() {
+        TrendingWindow window = new TrendingWindow(Duration.ofHours(1), 12, 10, 256, 4);
+        window.add("tracks/A/Old.mp3", 100, 0);
+        window.add("tracks/A/New.mp3", 5, 30 * MINUTE);
+
+        assertThat(window.summary(55 * MINUTE).top(1).get(0).key()).isEqualTo("tracks/A/Old.mp3");
+        assertThat(window.summary(61 * MINUTE).top(5)).containsExactly(
+                new TrendingSummary.Entry("tracks/A/New.mp3", 5));
+    }
+
+    @Test
+    void summariesFromSeveralContainersAddUp() throws Exception {
+        TrendingWindow first = new TrendingWindow(Duration.ofHours(1), 12, 10, 256, 4);
+        TrendingWindow second = new TrendingWindow(Duration.ofHours(1), 12, 10, 256, 4);
+        first.add("tracks/A/Song.mp3", 3, 0);
+        first.add("tracks/B/Song.mp3", 4, 0);
+        second.add("tracks/A/Song.mp3", 2, MINUTE);
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        second.summary(MINUTE).writeTo(snapshot);
+        TrendingSummary merged = first.summary(MINUTE);
+        merged.merge(TrendingSummary.readFrom(new ByteArrayInputStream(snapshot.toByteArray())));
+
+        assertThat(merged.top(2)).containsExactly(
+                new TrendingSummary.Entry("tracks/A/Song.mp3", 5),
+                new TrendingSummary.Entry("tracks/B/Song.mp3", 4));
+    }
+
+    @Test
+    void anAggregateLessOwnSnapshotLeavesTheOthers() throws Exception {
+        TrendingWindow own = new TrendingWindow(Duration.ofHours(1), 12, 10, 256, 4);
+        TrendingWindow other = new TrendingWindow(Duration.ofHours(1), 12, 10, 256, 4);
+        own.add("tracks/A/Song.mp3", 3, 0);
+        other.add("tracks/A/Song.mp3", 2, 0);
+        other.add("tracks/B/Song.mp3", 4, 0);
+        TrendingSummary ownSnapshot = own.summary(MINUTE);
+        TrendingSummary merged = new TrendingSummary(new CountMinSketch(256, 4));
+        merged.merge(ownSnapshot);
+        merged.merge(other.summary(MINUTE));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new TrendingAggregate(Map.of("own", "\"1\"", "other", "\"2\""), merged).writeTo(bytes);
+        TrendingAggregate aggregate = TrendingAggregate.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+        aggregate.summary().subtract(ownSnapshot);
+
+        assertThat(aggregate.snapshots()).containsEntry("own", "\"1\"").hasSize(2);
+        assertThat(aggregate.summary().top(5)).containsExactly(
+                new TrendingSummary.Entry("tracks/B/Song.mp3", 4),
+                new TrendingSummary.Entry("tracks/A/Song.mp3", 2));
+    }
+}
@@ -33,6 +33,21 @@ export const getAllSongs = async (limit: number = 20, nextToken?: string, search
     return response.json();
 };
 
+export const getStreamUrls = async (keys: string[]): Promise<Record<string, string>> => {
+    const response = await fetch(`${API_BASE_URL}/stream/batch`, {
+        method: 'POST',
+        headers: {
+            'Content-Type': 'application/json'
+        },
+        body: JSON.stringify({ keys })
+    });
+    if (!response.ok) {
+        throw new Error('Failed to get stream URLs');
+    }
+    const body: { urls: Record<string, string> } = await response.json();
+    return body.urls;
+};
+
 export const uploadToS3 = async (uploadUrl: string, file: File): Promise<void> => {
     const response = await fetch(uploadUrl, {
         method: 'PUT',
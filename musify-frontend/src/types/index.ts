@@ -3,5 +3,9 @@ export interface MusicTrack {
   artistName: string;
   s3Key: string;
   duration?: number; // duration in seconds
+  uploadedAt?: number; // epoch millis, set by the backend when the metadata is saved
+  bitrate?: number; // kbps, read from the MP3 headers
+  sampleRate?: number; // Hz
+  streamUrl?: string; // only set when requested with includeStreamUrls
 
 }
\ No newline at end of file